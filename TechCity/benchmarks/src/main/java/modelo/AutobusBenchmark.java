@@ -0,0 +1,75 @@
+package modelo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bajada y subida de pasajeros de toda la flota, a través de las vistas {@link Autobus}
+ * (API usada por la interfaz) y de los núcleos por índice de {@link EstadoRed} (usados por el tick).
+ * Cada invocación recorre la flota completa; el tiempo reportado es por autobús recorrido
+ * multiplicado por la flota, así que conviene comparar variantes con el mismo tamaño.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AutobusBenchmark {
+
+    private static final int ESTACIONES = 1000;
+
+    @Param({"10", "10000", "1000000"})
+    public int autobuses;
+
+    private Simulador simulador;
+    private EstadoRed estado;
+    private List<Autobus> vistas;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        simulador = new Simulador(ESTACIONES, autobuses, 60, 42L);
+        estado = simulador.getEstado();
+        vistas = simulador.getAutobuses();
+        for (int i = 0; i < vistas.size(); i++) {
+            vistas.get(i); // crear las vistas fuera de la medición
+        }
+    }
+
+    @Benchmark
+    public void vistas(Blackhole bh) {
+        for (int i = 0, n = vistas.size(); i < n; i++) {
+            Autobus bus = vistas.get(i);
+            Estacion estacion = bus.getEstacionActual();
+            if (estacion.getPasajerosEsperando() < 5) estacion.agregarPasajeros(5); // reponer la demanda drenada
+            bus.mover();
+            bh.consume(bus.dejarPasajeros());
+            bh.consume(bus.recogerPasajeros());
+        }
+    }
+
+    @Benchmark
+    public void indices(Blackhole bh) {
+        for (int b = 0, n = estado.getNumeroAutobuses(); b < n; b++) {
+            int estacion = estado.getEstacionAutobus(b);
+            if (estado.getPasajerosEsperando(estacion) < 5) estado.agregarPasajeros(estacion, 5);
+            if (estado.moverAutobus(b, ESTACIONES)) estacion = estado.getEstacionAutobus(b);
+            bh.consume(estado.dejarPasajeros(b));
+            bh.consume(estado.recogerPasajeros(b, estacion));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package modelo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Horario nocturno disperso: 1 de cada 40 autobuses en servicio y poca demanda.
+ * Compara el costo de un minuto simulado (60 ticks) en modo por ticks y en modo eventos.
+ * La simulación se rehace en cada iteración para que la demanda acumulada no crezca sin límite.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventosBenchmark {
+
+    private static final int ESTACIONES = 2000;
+    private static final int RUTAS = 60;
+    private static final int PARADAS_POR_RUTA = 40;
+    private static final int AUTOBUSES = 1000;
+
+    @Param({"TICKS", "EVENTOS"})
+    public Simulador.Modo modo;
+
+    private RedTransporte red;
+    private Simulador simulador;
+
+    @Setup(Level.Trial)
+    public void prepararRed() {
+        Random rnd = new Random(42);
+        int[][] rutas = new int[RUTAS][PARADAS_POR_RUTA];
+        for (int[] ruta : rutas) {
+            int e = rnd.nextInt(ESTACIONES);
+            for (int j = 0; j < ruta.length; j++) {
+                ruta[j] = e;
+                e = Math.floorMod(e + 1 + rnd.nextInt(40) - 20, ESTACIONES);
+            }
+        }
+        red = new RedTransporte(ESTACIONES, rutas);
+    }
+
+    @Setup(Level.Iteration)
+    public void preparar() {
+        simulador = new Simulador(red, AUTOBUSES, 60, 42L);
+        EstadoRed estado = simulador.getEstado();
+        for (int b = 0; b < AUTOBUSES; b++) {
+            if (b % 40 != 0) estado.setRetraso(b, Integer.MAX_VALUE / 2); // fuera de servicio
+        }
+        simulador.setModo(modo);
+        simulador.setDemanda(DemandaPoisson.constante(ESTACIONES, 0.001));
+    }
+
+    @Benchmark
+    public void minuto() {
+        simulador.ejecutarTicks(60);
+    }
+}
@@ -0,0 +1,101 @@
+package modelo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sorteo de llegadas uniformes, suma a los pasajeros esperando y máscara de congestión para
+ * todas las estaciones: estación por estación a través de {@link ModeloDemanda} (como antes de
+ * {@link LlegadasEnBloque}), en bloque escalar y en bloque con la Vector API.
+ * <p>
+ * La variante {@code vectorial} no corre por defecto: necesita el jar compilado con
+ * {@code -P vector}, la JVM con {@code --add-modules jdk.incubator.vector} (los forks heredan
+ * las opciones de la JVM que lanza JMH) y pedirla con
+ * {@code -p implementacion=por-estacion,escalar,vectorial}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LlegadasBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int estaciones;
+
+    @Param({"por-estacion", "escalar"})
+    public String implementacion;
+
+    private LlegadasEnBloque bloque;
+    private DemandaUniforme demanda;
+    private int[] llegadas;
+    private int[] esperando;
+    private int[] esperandoInicial;
+    private long[] congestion;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        if (implementacion.equals("vectorial")) {
+            bloque = LlegadasEnBloque.vectorial();
+            if (bloque == null) {
+                throw new IllegalStateException("Falta la Vector API: compilar con -P vector y correr con --add-modules jdk.incubator.vector");
+            }
+        } else {
+            bloque = LlegadasEnBloque.escalar();
+        }
+        demanda = new DemandaUniforme(5);
+        demanda.iniciar(estaciones, 42L);
+        llegadas = new int[estaciones];
+        esperando = new int[estaciones];
+        congestion = new long[(estaciones + 63) >>> 6];
+
+        // Alrededor del umbral: después de sumar 0 a 5 llegadas, la mitad de las estaciones
+        // queda por encima, al azar, y la máscara no es predecible
+        Random rnd = new Random(7);
+        esperandoInicial = new int[estaciones];
+        for (int e = 0; e < estaciones; e++) {
+            esperandoInicial[e] = DespachoCongestion.UMBRAL - 5 + rnd.nextInt(8);
+        }
+    }
+
+    /**
+     * Cada invocación parte de los mismos conteos: si se acumularan, en pocas llamadas todas
+     * las estaciones superarían el umbral y la rama estación por estación sería siempre igual.
+     * La copia no se mide; con más de 10 µs por operación el costo de medir cada invocación
+     * es despreciable.
+     */
+    @Setup(Level.Invocation)
+    public void reiniciarEsperando() {
+        System.arraycopy(esperandoInicial, 0, esperando, 0, estaciones);
+    }
+
+    @Benchmark
+    public long[] sortear() {
+        if (implementacion.equals("por-estacion")) {
+            final ModeloDemanda dem = demanda;
+            for (int e = 0; e < estaciones; e++) {
+                int w = esperando[e] += dem.llegadas(e);
+                if (w > DespachoCongestion.UMBRAL) congestion[e >>> 6] |= 1L << e;
+                else congestion[e >>> 6] &= ~(1L << e);
+            }
+        } else {
+            bloque.sortear(demanda.getFlujos(), demanda.getMaximo() + 1, null, llegadas, esperando,
+                    DespachoCongestion.UMBRAL, congestion, 0, estaciones);
+        }
+        return congestion;
+    }
+}
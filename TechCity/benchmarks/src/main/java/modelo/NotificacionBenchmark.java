@@ -0,0 +1,61 @@
+package modelo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de {@link Simulador#notificarActualizacion()} con un listener que solo consume
+ * las listas: mide la preparación de los datos que recibe la vista en cada tick.
+ * Con {@code fotos=true} además se captura y publica la {@link FotoSimulacion} del tick
+ * (con {@code -prof gc} debe reportar 0 B/op).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotificacionBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int estaciones;
+
+    @Param({"10", "10000", "1000000"})
+    public int autobuses;
+
+    @Param({"false", "true"})
+    public boolean fotos;
+
+    private Simulador simulador;
+
+    @Setup(Level.Trial)
+    public void preparar(Blackhole bh) {
+        simulador = new Simulador(estaciones, autobuses, 60, 42L);
+        simulador.addListener((ests, buses) -> {
+            bh.consume(ests);
+            bh.consume(buses);
+        });
+        if (fotos) {
+            simulador.addFotoListener(bh::consume);
+        }
+        simulador.notificarActualizacion(); // crear las vistas fuera de la medición
+    }
+
+    @Benchmark
+    public void notificar() {
+        simulador.notificarActualizacion();
+    }
+}
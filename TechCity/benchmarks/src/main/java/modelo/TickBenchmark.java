@@ -0,0 +1,59 @@
+package modelo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de un tick completo de {@link Simulador#actualizarSimulacion()} sin listeners.
+ * El modo SampleTime reporta percentiles (p99) de la latencia de tick.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TickBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int estaciones;
+
+    @Param({"10", "10000", "1000000"})
+    public int autobuses;
+
+    @Param({"1"})
+    public int hilos;
+
+    private Simulador simulador;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        simulador = new Simulador(estaciones, autobuses, 60, 42L);
+        simulador.setParalelismo(hilos);
+        // Salir del estado inicial vacío antes de medir
+        simulador.ejecutarTicks(50);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        simulador.setParalelismo(1);
+    }
+
+    @Benchmark
+    public void tick() {
+        simulador.actualizarSimulacion();
+    }
+}
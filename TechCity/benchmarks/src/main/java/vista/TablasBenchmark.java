@@ -0,0 +1,70 @@
+package vista;
+
+import modelo.BufferFotos;
+import modelo.FotoSimulacion;
+import modelo.Simulador;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.swing.JTable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de refrescar las tablas de {@link VentanaSimulacion} tras un tick, desde las vistas
+ * del modelo o desde la {@link FotoSimulacion} del tick.
+ * Los modelos se conectan a {@link JTable}s (sin ventana) para incluir el costo de los eventos
+ * de tabla; corre en modo headless.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class TablasBenchmark {
+
+    /** Filas de cada tabla: misma cantidad de estaciones y de autobuses. */
+    @Param({"10", "1000", "100000", "1000000"})
+    public int filas;
+
+    private Simulador simulador;
+    private TablasSimulacion tablas;
+    private BufferFotos fotos;
+    private FotoSimulacion foto;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        simulador = new Simulador(filas, filas, 60, 42L);
+        fotos = simulador.getBufferFotos();
+        tablas = new TablasSimulacion();
+        new JTable(tablas.getModeloEstaciones());
+        new JTable(tablas.getModeloAutobuses());
+        tablas.setTopologia(simulador.getEstaciones(), simulador.getAutobuses());
+    }
+
+    @Setup(Level.Invocation)
+    public void avanzar() {
+        simulador.actualizarSimulacion();
+        foto = fotos.tomarUltima();
+    }
+
+    @Benchmark
+    public void actualizarTablas() {
+        tablas.actualizar(simulador.getEstaciones(), simulador.getAutobuses());
+    }
+
+    @Benchmark
+    public void actualizarDesdeFoto() {
+        tablas.actualizar(foto);
+    }
+}
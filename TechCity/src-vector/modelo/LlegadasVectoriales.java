@@ -0,0 +1,68 @@
+package modelo;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link LlegadasEnBloque} con la Vector API: avanza y mezcla los flujos SplitMix64 de varias
+ * estaciones por instrucción (un carril {@code long} por estación), reduce cada sorteo al rango
+ * de llegadas, lo pasa a carriles {@code int} para sumarlo a los pasajeros esperando y compara
+ * contra el umbral. Los bits de congestión se arman corriendo cada carril a su posición y
+ * combinándolos con una reducción OR: en JDK 17 {@code VectorMask.toLong()} no es intrínseco
+ * y cuesta más que el resto del sorteo.
+ * <p>
+ * Requiere JDK 17 o superior con {@code --add-modules jdk.incubator.vector}; se compila solo con
+ * el perfil {@code vector} y se carga por reflexión, así que sin él queda la versión escalar.
+ */
+final class LlegadasVectoriales extends LlegadasEnBloque {
+
+    private static final VectorSpecies<Long> LARGOS = LongVector.SPECIES_PREFERRED;
+    // Misma cantidad de carriles que LARGOS, con enteros de 32 bits
+    private static final VectorSpecies<Integer> ENTEROS =
+            VectorSpecies.of(int.class, VectorShape.forBitSize(LARGOS.vectorBitSize() / 2));
+    private static final IntVector CARRIL = IntVector.zero(ENTEROS).addIndex(1); // 0, 1, 2...
+
+    LlegadasVectoriales() {
+        if (64 % LARGOS.length() != 0) throw new IllegalStateException("Carriles no soportados: " + LARGOS.length());
+    }
+
+    @Override
+    void sortear(long[] flujos, int limite, int[] atendidas, int[] llegadas, int[] esperando,
+                 int umbral, long[] congestion, int desde, int hasta) {
+        final int carriles = LARGOS.length();
+        for (int base = desde; base < hasta; base += 64) {
+            int fin = Math.min(base + 64, hasta);
+            long bits = 0;
+            int e = base;
+            for (; e <= fin - carriles; e += carriles) {
+                LongVector z = LongVector.fromArray(LARGOS, flujos, e).add(Aleatorio.PASO);
+                z.intoArray(flujos, e);
+                z = z.lanewise(VectorOperators.XOR, z.lanewise(VectorOperators.LSHR, 30)).mul(Aleatorio.MEZCLA_1);
+                z = z.lanewise(VectorOperators.XOR, z.lanewise(VectorOperators.LSHR, 27)).mul(Aleatorio.MEZCLA_2);
+                z = z.lanewise(VectorOperators.XOR, z.lanewise(VectorOperators.LSHR, 31));
+                IntVector n = (IntVector) z.lanewise(VectorOperators.LSHR, 32).mul(limite)
+                        .lanewise(VectorOperators.LSHR, 32).convertShape(VectorOperators.L2I, ENTEROS, 0);
+                if (atendidas != null) n = n.and(IntVector.fromArray(ENTEROS, atendidas, e));
+                n.intoArray(llegadas, e);
+                IntVector w = IntVector.fromArray(ENTEROS, esperando, e).add(n);
+                w.intoArray(esperando, e);
+                // Bit por carril: 1 si umbral - w es negativo, corrido a la posición del carril
+                bits |= (long) IntVector.broadcast(ENTEROS, umbral).sub(w).lanewise(VectorOperators.LSHR, 31)
+                        .lanewise(VectorOperators.LSHL, CARRIL).reduceLanes(VectorOperators.OR) << (e - base);
+            }
+            for (; e < fin; e++) {
+                int w = sortearEstacion(flujos, limite, atendidas, llegadas, esperando, e);
+                bits |= (long) ((umbral - w) >>> 31) << (e - base);
+            }
+            congestion[base >>> 6] = bits;
+        }
+    }
+
+    @Override
+    String getNombre() {
+        return "vectorial (" + LARGOS.length() + " carriles)";
+    }
+}
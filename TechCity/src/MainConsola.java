@@ -0,0 +1,80 @@
+import modelo.ArchivoEscenario;
+import modelo.BarridoEscenarios;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Punto de entrada sin interfaz: corre uno o más archivos de escenario
+ * ({@link ArchivoEscenario}) y escribe sus indicadores en la salida estándar.
+ * No usa nada de AWT ni Swing, así que arranca rápido y sirve en servidores sin pantalla.
+ * <pre>
+ * java -cp target/classes MainConsola [--csv] escenario.properties...
+ * </pre>
+ * Varios archivos se corren en la misma JVM, uno tras otro, para pagar el arranque una sola vez.
+ * Un archivo que falla se informa en la salida de error y se sigue con los demás; en ese
+ * caso el proceso termina con código 1, después de escribir los resultados de los que sí corrieron.
+ */
+public class MainConsola {
+    public static void main(String[] args) throws IOException {
+        boolean csv = false;
+        List<String> archivos = new ArrayList<>();
+        for (String a : args) {
+            if (a.equals("--csv")) csv = true;
+            else archivos.add(a);
+        }
+        if (archivos.isEmpty()) {
+            System.err.println("Uso: MainConsola [--csv] escenario.properties...");
+            System.exit(2);
+        }
+
+        Writer salida = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+        List<BarridoEscenarios.Resultado> resultados = new ArrayList<>();
+        int fallidos = 0;
+        for (String archivo : archivos) {
+            BarridoEscenarios.Resultado r;
+            try {
+                ArchivoEscenario escenario = ArchivoEscenario.leer(Paths.get(archivo));
+                r = escenario.ejecutar();
+            } catch (IllegalArgumentException ex) {
+                System.err.println(ex.getMessage()); // ya incluye el archivo
+                fallidos++;
+                continue;
+            } catch (IOException | UncheckedIOException ex) {
+                // UncheckedIOException: archivo de demanda histórica que falta o no se puede leer
+                System.err.println("No se pudo leer " + archivo + ": " + ex.getMessage());
+                fallidos++;
+                continue;
+            }
+            if (csv) {
+                resultados.add(r);
+            } else {
+                escribirResumen(archivo, r, salida);
+            }
+        }
+        if (csv) BarridoEscenarios.escribirCsv(resultados, salida);
+        salida.flush();
+        if (fallidos > 0) System.exit(1);
+    }
+
+    private static void escribirResumen(String archivo, BarridoEscenarios.Resultado r, Writer salida) throws IOException {
+        BarridoEscenarios.Escenario e = r.getEscenario();
+        salida.write(String.format(Locale.ROOT,
+                "escenario=%s%nestaciones=%d%nautobuses=%d%ncapacidad=%d%nsemilla=%d%npolitica=%s%nticks=%d%n"
+                        + "viajes_completados=%d%nespera_promedio=%.4f%nviaje_promedio=%.4f%nesperando_media=%.4f%n"
+                        + "esperando_p90=%.1f%ncarga_media=%.4f%ncarga_p90=%.4f%nintervalo_medio=%.4f%n"
+                        + "cv_intervalo=%.4f%nfraccion_perdida=%.4f%nmilisegundos=%d%n%n",
+                archivo, e.getEstaciones(), e.getAutobuses(), e.getCapacidad(), e.getSemilla(), r.getPolitica(),
+                r.getTicks(), r.getViajesCompletados(), r.getEsperaPromedio(), r.getViajePromedio(),
+                r.getEsperandoMedia(), r.getEsperandoP90(), r.getCargaMedia(), r.getCargaP90(),
+                r.getIntervaloMedio(), r.getCoeficienteVariacionIntervalo(), r.getFraccionPerdida(),
+                r.getMilisegundos()));
+    }
+}
@@ -1,28 +1,52 @@
 package controlador;
 
-import modelo.Autobus;
-import modelo.Estacion;
+import modelo.AgregadorKpi;
+import modelo.FotoSimulacion;
+import modelo.ResumenKpi;
+import modelo.RelojHilo;
 import modelo.Simulador;
+import vista.PanelMapa;
 import vista.VentanaSimulacion;
 
 import javax.swing.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.List;
 
 /**
  * Controlador que coordina la comunicación entre la vista y el modelo.
- * Maneja los eventos de los botones y actualiza la GUI en cada tick.
+ * Maneja los eventos de los botones y actualiza la GUI con la última foto.
+ * <p>
+ * El motor corre en su propio hilo ({@link RelojHilo}); la vista se refresca en el EDT a
+ * través de un {@link PuenteEdt}, así que una vista lenta no frena la simulación y un motor
+ * rápido no satura el EDT.
+ * <p>
+ * El selector de velocidad cambia solo el ritmo del reloj (de 0.25 a 1000 ticks por segundo);
+ * el modelo no cambia. A velocidades altas la vista se salta ticks: refresca como mucho una
+ * vez por cuadro de pantalla con la foto más reciente.
  */
-public class ControladorSimulacion implements Simulador.SimulacionListener {
+public class ControladorSimulacion {
 
     private final Simulador simulador;
     private final VentanaSimulacion vista;
+    private final AgregadorKpi kpi;
+    private final PuenteEdt puente;
+    private final RelojHilo reloj;
 
     public ControladorSimulacion(Simulador simulador, VentanaSimulacion vista) {
         this.simulador = simulador;
         this.vista = vista;
-        this.simulador.addListener(this);
+        this.reloj = RelojHilo.conFrecuencia(vista.getVelocidad());
+        this.simulador.setReloj(reloj);
+        // El agregador ve todos los ticks en el hilo del motor y publica un resumen reciclado:
+        // el EDT lo toma sin candados, así que un repintado lento no frena la simulación
+        this.kpi = new AgregadorKpi(simulador.getEstado());
+        this.simulador.addFotoListener(foto -> {
+            kpi.onFoto(foto);
+            kpi.publicarResumen();
+        });
+        this.puente = new PuenteEdt(simulador.getBufferFotos(), this::refrescar,
+                1000 / PanelMapa.frecuenciaPantalla());
+        this.simulador.addFotoListener(puente);
         configurarEventos();
     }
 
@@ -45,12 +69,22 @@ public class ControladorSimulacion implements Simulador.SimulacionListener {
             }
         });
 
+        // Selector de velocidad
+        vista.getSelectorVelocidad().addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                cambiarVelocidad(vista.getVelocidad());
+            }
+        });
+        cambiarVelocidad(vista.getVelocidad());
+
         // Botón Salir (si existe)
         if (vista.getBotonSalir() != null) {
             vista.getBotonSalir().addActionListener(new ActionListener() {
                 @Override
                 public void actionPerformed(ActionEvent e) {
                     simulador.detenerSimulacion();
+                    puente.cerrar();
                     SwingUtilities.getWindowAncestor(vista.getPanelPrincipal()).dispose();
                 }
             });
@@ -58,6 +92,11 @@ public class ControladorSimulacion implements Simulador.SimulacionListener {
         actualizarBotones();
     }
 
+    private void cambiarVelocidad(double ticksPorSegundo) {
+        reloj.setTicksPorSegundo(ticksPorSegundo);
+        vista.setPeriodoTick(reloj.getPeriodoNanos());
+    }
+
     private void actualizarBotones() {
         boolean ejecutando = simulador.isEnEjecucion(); // Verificar estado de la simulación
         vista.getBotonPausar().setEnabled(ejecutando);
@@ -69,15 +108,21 @@ public class ControladorSimulacion implements Simulador.SimulacionListener {
      */
     public void iniciar() {
         // Inicializar tablas/mapa antes de arrancar
-        onActualizar(simulador.getEstaciones(), simulador.getAutobuses());
+        vista.prepararTablas(simulador.getEstaciones(), simulador.getAutobuses());
+        vista.prepararMapa(simulador.getEstaciones(), simulador.getRed());
+        simulador.publicarEstado();
         simulador.iniciarSimulacion();
         actualizarBotones();
     }
 
-    @Override
-    public void onActualizar(List<Estacion> estaciones, List<Autobus> autobuses) {
-        // Esta llamada viene desde el hilo del Timer (EDT, ya que es Swing Timer)
-        vista.actualizarTablas(estaciones, autobuses);
-        vista.actualizarMapa(estaciones, autobuses);
+    /**
+     * Refresco en el EDT con la foto más reciente (ver {@link PuenteEdt}).
+     * Tablas y mapa copian lo que necesitan: la foto y el resumen se reciclan en el siguiente refresco.
+     */
+    private void refrescar(FotoSimulacion foto) {
+        vista.actualizarTablas(foto);
+        vista.actualizarMapa(foto);
+        ResumenKpi resumen = kpi.tomarResumen();
+        if (resumen != null) vista.actualizarKpi(resumen);
     }
 }
\ No newline at end of file
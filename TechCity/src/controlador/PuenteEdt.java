@@ -0,0 +1,92 @@
+package controlador;
+
+import modelo.BufferFotos;
+import modelo.FotoSimulacion;
+import modelo.Simulador;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Puente entre el motor (en su propio hilo) y el EDT.
+ * <p>
+ * En cada tick el motor publica la foto en su {@link BufferFotos} y este listener, si no hay
+ * ya un refresco pendiente, agenda uno con {@code invokeLater}. El refresco toma la foto más
+ * reciente, así que los ticks que llegan mientras tanto se agrupan en uno solo: la vista se
+ * salta ticks intermedios, pero el motor los calcula todos y nunca espera al EDT.
+ * Además se respeta un intervalo mínimo entre refrescos (por defecto, 60 por segundo).
+ */
+public class PuenteEdt implements Simulador.FotoListener {
+
+    /** Intervalo mínimo por defecto entre refrescos: un cuadro a 60 Hz. */
+    public static final int MILISEGUNDOS_POR_CUADRO = 16;
+
+    private final BufferFotos buffer;
+    private final Consumer<FotoSimulacion> refresco;
+    private final AtomicBoolean pendiente = new AtomicBoolean();
+    private final long intervaloNanos;
+    private final Timer demora;     // solo en el EDT
+    private long ultimoRefresco;    // solo en el EDT
+    private volatile boolean cerrado;
+
+    /**
+     * @param buffer buffer de fotos del simulador; el EDT pasa a ser su único consumidor
+     * @param refresco acción en el EDT con la foto más reciente (válida durante la llamada)
+     */
+    public PuenteEdt(BufferFotos buffer, Consumer<FotoSimulacion> refresco) {
+        this(buffer, refresco, MILISEGUNDOS_POR_CUADRO);
+    }
+
+    /**
+     * @param intervaloMs milisegundos mínimos entre refrescos (0 = sin límite)
+     */
+    public PuenteEdt(BufferFotos buffer, Consumer<FotoSimulacion> refresco, int intervaloMs) {
+        if (buffer == null || refresco == null) throw new IllegalArgumentException("El buffer y el refresco no pueden ser nulos");
+        if (intervaloMs < 0) throw new IllegalArgumentException("El intervalo no puede ser negativo");
+        this.buffer = buffer;
+        this.refresco = refresco;
+        this.intervaloNanos = TimeUnit.MILLISECONDS.toNanos(intervaloMs);
+        this.demora = new Timer(intervaloMs, e -> refrescar());
+        this.demora.setRepeats(false);
+    }
+
+    /**
+     * Se llama en el hilo del motor con la foto del tick ya publicada en el buffer: un
+     * refresco que corra a partir de aquí la encuentra, aunque libere {@code pendiente} antes
+     * de que vuelva esta llamada.
+     */
+    @Override
+    public void onFoto(FotoSimulacion foto) {
+        if (!cerrado && pendiente.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::refrescar);
+        }
+    }
+
+    private void refrescar() {
+        if (cerrado) return;
+        long ahora = System.nanoTime();
+        long faltan = ultimoRefresco + intervaloNanos - ahora;
+        if (ultimoRefresco != 0 && faltan > 0) {
+            // Demasiado pronto: se refresca al terminar el cuadro (sigue pendiente)
+            demora.setInitialDelay((int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(faltan)));
+            demora.restart();
+            return;
+        }
+        ultimoRefresco = ahora;
+        // Se libera antes de leer: una foto publicada durante el refresco agenda otro
+        pendiente.set(false);
+        FotoSimulacion foto = buffer.tomarUltima();
+        if (foto != null) refresco.accept(foto);
+    }
+
+    /**
+     * Deja de refrescar la vista (por ejemplo, al cerrar la ventana).
+     */
+    public void cerrar() {
+        cerrado = true;
+        SwingUtilities.invokeLater(demora::stop);
+    }
+}
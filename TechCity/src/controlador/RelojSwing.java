@@ -0,0 +1,47 @@
+package controlador;
+
+import modelo.Reloj;
+
+import javax.swing.Timer;
+
+/**
+ * Reloj basado en {@link javax.swing.Timer}: cada tick se ejecuta en el EDT,
+ * por lo que los listeners pueden tocar componentes Swing directamente.
+ */
+public class RelojSwing implements Reloj {
+
+    private final int periodoMs;
+    private Timer timer;
+
+    /**
+     * Constructor.
+     * @param periodoMs milisegundos entre ticks
+     */
+    public RelojSwing(int periodoMs) {
+        if (periodoMs <= 0) throw new IllegalArgumentException("El periodo debe ser positivo");
+        this.periodoMs = periodoMs;
+    }
+
+    @Override
+    public void iniciar(Runnable tarea) {
+        if (timer == null) {
+            timer = new Timer(periodoMs, e -> tarea.run());
+            timer.setInitialDelay(periodoMs);
+        }
+        if (!timer.isRunning()) {
+            timer.start();
+        }
+    }
+
+    @Override
+    public void detener() {
+        if (timer != null && timer.isRunning()) {
+            timer.stop();
+        }
+    }
+
+    @Override
+    public boolean isActivo() {
+        return timer != null && timer.isRunning();
+    }
+}
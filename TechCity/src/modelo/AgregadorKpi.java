@@ -0,0 +1,360 @@
+package modelo;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Indicadores de servicio acumulados tick a tick a partir de las fotos del simulador (o de un
+ * {@link ReproductorHistorial}), sin volver a recorrer el historial:
+ * <ul>
+ * <li>Por estación: media, máximo y percentil 90 de pasajeros esperando.</li>
+ * <li>Por autobús y por ruta: factor de carga (pasajeros / capacidad) medio y máximo, y la
+ * fracción de ticks en que el autobús no avanzó (retrasos por la regla de más de 20 pasajeros).</li>
+ * <li>Por ruta: intervalo entre llegadas consecutivas de autobuses de la ruta a una misma
+ * parada (media, desviación y coeficiente de variación, que crece cuando los autobuses se
+ * amontonan).</li>
+ * <li>En toda la red: percentiles 50, 90 y 99 de pasajeros esperando y percentil 90 de carga.</li>
+ * </ul>
+ * Las medias y varianzas usan el método de Welford, el percentil por estación el estimador P²
+ * y los de la red las cubetas logarítmicas de {@link HistogramaLatencia} (exactas hasta 15 y
+ * con error de a lo sumo 1/16 por encima). Cada foto cuesta O(estaciones + autobuses) y la
+ * memoria no crece con los ticks.
+ * <p>
+ * Los avances y las llegadas solo se cuentan entre fotos de ticks consecutivos; si se saltan
+ * ticks (lotes en modo eventos, reproducción de varias fotos por paso) solo se acumulan los
+ * conteos. No es seguro para hilos: las lecturas deben hacerse en el hilo que recibe las fotos
+ * (por ejemplo, en otro listener registrado después de este) o con la simulación detenida.
+ * Para leer desde otro hilo, ese listener publica un {@link #resumir()} o, sin crear objetos,
+ * llama a {@link #publicarResumen()} y el otro hilo a {@link #tomarResumen()}.
+ */
+public final class AgregadorKpi implements Simulador.FotoListener {
+
+    private final RedTransporte red;
+    private final int[] rutaAutobus;
+
+    // Por estación
+    private final EstadisticasEnLinea esperaEstacion;
+    private final CuantilesP2 esperaP90Estacion;
+
+    // Por autobús
+    private final EstadisticasEnLinea cargaAutobus;
+    private final long[] observadosAutobus;  // ticks consecutivos observados
+    private final long[] perdidosAutobus;    // de esos, ticks sin avanzar
+
+    // Por ruta
+    private final EstadisticasEnLinea cargaRuta;
+    private final EstadisticasEnLinea intervaloRuta;
+    private final long[] observadosRuta;
+    private final long[] perdidosRuta;
+    private final long[] ultimaLlegada;      // por parada de ruta: tick de la última llegada, o -1
+
+    // Red completa: conteos en las cubetas de HistogramaLatencia (carga en milésimas)
+    private final long[] cubetasEspera = new long[HistogramaLatencia.CUBETAS];
+    private final long[] cubetasCarga = new long[HistogramaLatencia.CUBETAS];
+    private long sumaEspera;
+    private long observacionesEspera;
+    private double sumaCarga;
+    private long observacionesCarga;
+
+    private final int[] estacionPrevia;
+    private long tickPrevio = -1;
+    private long fotos;
+
+    // Triple buffer de resúmenes, como BufferFotos
+    private final AtomicReference<ResumenKpi> resumenMedio;
+    private ResumenKpi resumenEscritura; // solo el hilo de las fotos
+    private ResumenKpi resumenLectura;   // solo el consumidor
+    private boolean hayResumen;          // el consumidor ya tomó al menos uno
+
+    /**
+     * @param estado almacén del simulador o del reproductor ({@code getEstado()}), para conocer
+     *               la red y la ruta de cada autobús
+     */
+    public AgregadorKpi(EstadoRed estado) {
+        this.red = estado.getRed();
+        if (red == null) throw new IllegalArgumentException("El estado debe tener una red de rutas");
+        int numeroEstaciones = estado.getNumeroEstaciones();
+        int numeroAutobuses = estado.getNumeroAutobuses();
+        int numeroRutas = red.getNumeroRutas();
+        this.resumenEscritura = new ResumenKpi(numeroRutas);
+        this.resumenMedio = new AtomicReference<>(new ResumenKpi(numeroRutas));
+        this.resumenLectura = new ResumenKpi(numeroRutas);
+        this.rutaAutobus = new int[numeroAutobuses];
+        for (int b = 0; b < numeroAutobuses; b++) {
+            rutaAutobus[b] = estado.getRuta(b);
+        }
+        this.esperaEstacion = new EstadisticasEnLinea(numeroEstaciones);
+        this.esperaP90Estacion = new CuantilesP2(numeroEstaciones, 0.9);
+        this.cargaAutobus = new EstadisticasEnLinea(numeroAutobuses);
+        this.observadosAutobus = new long[numeroAutobuses];
+        this.perdidosAutobus = new long[numeroAutobuses];
+        this.cargaRuta = new EstadisticasEnLinea(numeroRutas);
+        this.intervaloRuta = new EstadisticasEnLinea(numeroRutas);
+        this.observadosRuta = new long[numeroRutas];
+        this.perdidosRuta = new long[numeroRutas];
+        this.ultimaLlegada = new long[red.getNumeroParadas()];
+        this.estacionPrevia = new int[numeroAutobuses];
+        Arrays.fill(ultimaLlegada, -1);
+    }
+
+    @Override
+    public void onFoto(FotoSimulacion foto) {
+        if (foto.getNumeroEstaciones() != esperaEstacion.getSeries()
+                || foto.getNumeroAutobuses() != rutaAutobus.length) {
+            throw new IllegalArgumentException("La foto no corresponde a la red del agregador");
+        }
+        final long tick = foto.getTick();
+        if (tick <= tickPrevio) {
+            // Misma foto publicada otra vez o salto hacia atrás: solo se toma como referencia
+            if (tick < tickPrevio) guardarEstaciones(foto, tick);
+            return;
+        }
+        final boolean consecutiva = tickPrevio >= 0 && tick == tickPrevio + 1;
+        fotos++;
+
+        final int[] esperando = foto.pasajerosEsperando;
+        for (int e = 0, n = esperando.length; e < n; e++) {
+            int espera = esperando[e];
+            esperaEstacion.registrar(e, espera);
+            esperaP90Estacion.registrar(e, espera);
+            cubetasEspera[HistogramaLatencia.indice(espera)]++;
+            sumaEspera += espera;
+        }
+        observacionesEspera += esperando.length;
+
+        final int[] estacion = foto.estacionAutobus;
+        for (int b = 0, n = rutaAutobus.length; b < n; b++) {
+            int r = rutaAutobus[b];
+            int capacidad = foto.capacidad[b];
+            double carga = capacidad == 0 ? 0 : (double) foto.pasajerosAutobus[b] / capacidad;
+            cargaAutobus.registrar(b, carga);
+            cargaRuta.registrar(r, carga);
+            cubetasCarga[HistogramaLatencia.indice(Math.round(carga * 1000))]++;
+            sumaCarga += carga;
+
+            if (!consecutiva) continue;
+            observadosAutobus[b]++;
+            observadosRuta[r]++;
+            if (estacion[b] == estacionPrevia[b]) {
+                perdidosAutobus[b]++;
+                perdidosRuta[r]++;
+                continue;
+            }
+            int parada = indiceParada(r, estacion[b]);
+            if (parada >= 0) {
+                long anterior = ultimaLlegada[parada];
+                if (anterior >= 0) intervaloRuta.registrar(r, tick - anterior);
+                ultimaLlegada[parada] = tick;
+            }
+        }
+        observacionesCarga += rutaAutobus.length;
+        guardarEstaciones(foto, tick);
+    }
+
+    private void guardarEstaciones(FotoSimulacion foto, long tick) {
+        System.arraycopy(foto.estacionAutobus, 0, estacionPrevia, 0, estacionPrevia.length);
+        tickPrevio = tick;
+    }
+
+    /**
+     * @return índice global de la parada de la ruta en la estación (la primera, si la ruta pasa
+     *         dos veces), o -1 si la ruta no pasa por ella
+     */
+    private int indiceParada(int ruta, int estacion) {
+        for (int k = 0, n = red.getCantidadApariciones(estacion); k < n; k++) {
+            if (red.getRutaAparicion(estacion, k) == ruta) {
+                return red.getIndiceParada(ruta, red.getPosicionAparicion(estacion, k));
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Descarta lo acumulado; la próxima foto vuelve a ser la primera.
+     */
+    public void reiniciar() {
+        esperaEstacion.reiniciar();
+        esperaP90Estacion.reiniciar();
+        cargaAutobus.reiniciar();
+        Arrays.fill(observadosAutobus, 0);
+        Arrays.fill(perdidosAutobus, 0);
+        cargaRuta.reiniciar();
+        intervaloRuta.reiniciar();
+        Arrays.fill(observadosRuta, 0);
+        Arrays.fill(perdidosRuta, 0);
+        Arrays.fill(ultimaLlegada, -1);
+        Arrays.fill(cubetasEspera, 0);
+        Arrays.fill(cubetasCarga, 0);
+        sumaEspera = 0;
+        observacionesEspera = 0;
+        sumaCarga = 0;
+        observacionesCarga = 0;
+        tickPrevio = -1;
+        fotos = 0;
+    }
+
+    /**
+     * @return copia inmutable de los indicadores de red y por ruta, para publicarla a otro hilo
+     */
+    public ResumenKpi resumir() {
+        return new ResumenKpi(this);
+    }
+
+    /**
+     * Publica los indicadores actuales para {@link #tomarResumen()}, reciclando tres resúmenes
+     * como {@link BufferFotos}. Debe llamarse en el hilo que recibe las fotos.
+     */
+    public void publicarResumen() {
+        resumenEscritura.copiar(this);
+        resumenEscritura.fresco = true;
+        resumenEscritura = resumenMedio.getAndSet(resumenEscritura);
+    }
+
+    /**
+     * Toma el último resumen publicado. Pertenece al llamador hasta su siguiente llamada; si
+     * no hay uno nuevo se devuelve el mismo. Debe llamarse siempre desde el mismo hilo.
+     * @return último resumen publicado, o null si aún no se publicó ninguno
+     */
+    public ResumenKpi tomarResumen() {
+        if (resumenMedio.get().fresco) {
+            resumenLectura.fresco = false;
+            resumenLectura = resumenMedio.getAndSet(resumenLectura);
+            hayResumen = true;
+        }
+        return hayResumen ? resumenLectura : null;
+    }
+
+    /**
+     * @return fotos acumuladas (cada tick cuenta una vez)
+     */
+    public long getFotos() {
+        return fotos;
+    }
+
+    public int getNumeroRutas() {
+        return cargaRuta.getSeries();
+    }
+
+    // Estaciones
+
+    public double getEsperaMedia(int estacion) {
+        return esperaEstacion.getMedia(estacion);
+    }
+
+    public double getEsperaMaxima(int estacion) {
+        return esperaEstacion.getMaximo(estacion);
+    }
+
+    public double getEsperaP90(int estacion) {
+        return esperaP90Estacion.getValor(estacion);
+    }
+
+    // Autobuses
+
+    public double getCargaMedia(int bus) {
+        return cargaAutobus.getMedia(bus);
+    }
+
+    public double getCargaMaxima(int bus) {
+        return cargaAutobus.getMaximo(bus);
+    }
+
+    /**
+     * @return fracción de ticks observados en que el autobús no avanzó (0 a 1)
+     */
+    public double getFraccionPerdida(int bus) {
+        return fraccion(perdidosAutobus[bus], observadosAutobus[bus]);
+    }
+
+    // Rutas
+
+    public double getCargaMediaRuta(int ruta) {
+        return cargaRuta.getMedia(ruta);
+    }
+
+    public double getCargaMaximaRuta(int ruta) {
+        return cargaRuta.getMaximo(ruta);
+    }
+
+    /**
+     * @return intervalo medio en ticks entre autobuses consecutivos de la ruta en una parada
+     */
+    public double getIntervaloMedio(int ruta) {
+        return intervaloRuta.getMedia(ruta);
+    }
+
+    public double getVarianzaIntervalo(int ruta) {
+        return intervaloRuta.getVarianza(ruta);
+    }
+
+    /**
+     * @return desviación del intervalo sobre su media: 0 con servicio regular, cerca de 1 o más
+     *         cuando los autobuses viajan amontonados
+     */
+    public double getCoeficienteVariacionIntervalo(int ruta) {
+        return intervaloRuta.getCoeficienteVariacion(ruta);
+    }
+
+    public double getFraccionPerdidaRuta(int ruta) {
+        return fraccion(perdidosRuta[ruta], observadosRuta[ruta]);
+    }
+
+    // Red completa
+
+    public double getEsperaMediaRed() {
+        return observacionesEspera == 0 ? 0 : (double) sumaEspera / observacionesEspera;
+    }
+
+    public double getEsperaP50Red() {
+        return percentil(cubetasEspera, observacionesEspera, 0.5);
+    }
+
+    public double getEsperaP90Red() {
+        return percentil(cubetasEspera, observacionesEspera, 0.9);
+    }
+
+    public double getEsperaP99Red() {
+        return percentil(cubetasEspera, observacionesEspera, 0.99);
+    }
+
+    public double getCargaMediaRed() {
+        return observacionesCarga == 0 ? 0 : sumaCarga / observacionesCarga;
+    }
+
+    public double getCargaP90Red() {
+        double maximo = 0;
+        for (int r = 0, n = cargaRuta.getSeries(); r < n; r++) {
+            maximo = Math.max(maximo, cargaRuta.getMaximo(r));
+        }
+        // El centro de la cubeta puede pasarse del máximo observado
+        return Math.min(percentil(cubetasCarga, observacionesCarga, 0.9) / 1000, maximo);
+    }
+
+    public double getFraccionPerdidaRed() {
+        long perdidos = 0;
+        long observados = 0;
+        for (int r = 0; r < perdidosRuta.length; r++) {
+            perdidos += perdidosRuta[r];
+            observados += observadosRuta[r];
+        }
+        return fraccion(perdidos, observados);
+    }
+
+    /**
+     * Recorre las cubetas de a una (cantidad fija, no depende de los ticks).
+     */
+    private static double percentil(long[] cubetas, long total, double cuantil) {
+        if (total == 0) return 0;
+        long objetivo = Math.max(1, (long) Math.ceil(cuantil * total));
+        long acumulado = 0;
+        for (int i = 0; i < cubetas.length; i++) {
+            acumulado += cubetas[i];
+            if (acumulado >= objetivo) return HistogramaLatencia.valorCubeta(i);
+        }
+        return HistogramaLatencia.valorCubeta(cubetas.length - 1);
+    }
+
+    private static double fraccion(long parte, long total) {
+        return total == 0 ? 0 : (double) parte / total;
+    }
+}
@@ -0,0 +1,106 @@
+package modelo;
+
+/**
+ * Flujos pseudoaleatorios por entidad guardados en un {@code long[]} (SplitMix64,
+ * el mismo generador de {@link java.util.SplittableRandom}).
+ * Cada posición del arreglo es el estado de un flujo independiente, así que varios
+ * hilos pueden sortear para entidades distintas sin compartir ni sincronizar nada.
+ * Todos los flujos se derivan de una única semilla, lo que hace reproducible cada corrida.
+ */
+final class Aleatorio {
+
+    static final long PASO = 0x9E3779B97F4A7C15L;
+    // Multiplicadores de la función de mezcla (los usa también LlegadasVectoriales)
+    static final long MEZCLA_1 = 0xBF58476D1CE4E5B9L;
+    static final long MEZCLA_2 = 0x94D049BB133111EBL;
+
+    /** Dominio de los flujos de ruta y destino de los pasajeros (uno por estación). */
+    static final long DOMINIO_ESTACIONES = 0x45535441L;
+    /** Dominio de los flujos de bajada de pasajeros (uno por autobús). */
+    static final long DOMINIO_AUTOBUSES = 0x42555345L;
+    /** Dominio de los flujos de los modelos de demanda (uno por estación). */
+    static final long DOMINIO_DEMANDA = 0x44454D41L;
+
+    private Aleatorio() {
+    }
+
+    /**
+     * Función de mezcla de SplitMix64.
+     */
+    static long mezclar(long z) {
+        z = (z ^ (z >>> 30)) * MEZCLA_1;
+        z = (z ^ (z >>> 27)) * MEZCLA_2;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Deriva de la semilla global una semilla independiente para un dominio de entidades,
+     * de modo que estaciones y autobuses no compartan flujos.
+     */
+    static long derivar(long semilla, long dominio) {
+        return mezclar(semilla ^ mezclar(dominio));
+    }
+
+    /**
+     * Inicializa un flujo independiente por posición a partir de una semilla.
+     */
+    static void sembrar(long[] estados, long semilla) {
+        for (int i = 0; i < estados.length; i++) {
+            estados[i] = flujo(semilla, i);
+        }
+    }
+
+    /**
+     * Estado inicial del flujo {@code i} que {@link #sembrar(long[], long)} pondría en la
+     * posición {@code i}; sirve para sembrar un arreglo que cubre solo parte de las entidades.
+     */
+    static long flujo(long semilla, int i) {
+        return mezclar(semilla + (i + 1) * PASO);
+    }
+
+    /**
+     * Avanza el flujo {@code i} y devuelve un entero en [0, limite).
+     * @param limite cota superior exclusiva (> 0)
+     */
+    static int siguienteEntero(long[] estados, int i, int limite) {
+        long z = mezclar(estados[i] += PASO);
+        return (int) (((z >>> 32) * limite) >>> 32);
+    }
+
+    /**
+     * Avanza el flujo {@code i} y devuelve un real uniforme en [0, 1).
+     */
+    static double siguienteReal(long[] estados, int i) {
+        return (mezclar(estados[i] += PASO) >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Tiempo exponencial de media {@code 1 / tasa} con el flujo {@code i}.
+     */
+    static double siguienteExponencial(long[] estados, int i, double tasa) {
+        return -Math.log(1 - siguienteReal(estados, i)) / tasa;
+    }
+
+    /**
+     * Cantidad con distribución de Poisson de media {@code media}, por inversión de la
+     * función de distribución (un sorteo por cada tramo de media 30 como máximo).
+     */
+    static int siguientePoisson(long[] estados, int i, double media) {
+        int total = 0;
+        while (media > 0) {
+            double tramo = Math.min(media, 30);
+            media -= tramo;
+            double u = siguienteReal(estados, i);
+            double p = Math.exp(-tramo);
+            double acumulada = p;
+            int k = 0;
+            while (u > acumulada && p > 0) {
+                k++;
+                p *= tramo / k;
+                acumulada += p;
+            }
+            total += k;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,277 @@
+package modelo;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Escenario leído de un archivo de propiedades, para correr simulaciones sin interfaz.
+ * <pre>
+ * estaciones=12
+ * # Rutas (opcional): estaciones de cada una en orden; sin rutas, una circular por todas
+ * ruta.0=0,1,2,3,4,5
+ * ruta.1=6,7,8,9,10,11,3
+ * # Flota: total repartido entre las rutas por turnos, o autobuses por ruta con "flota"
+ * autobuses=8
+ * flota=5,3
+ * capacidad=40
+ * semilla=42
+ * ticks=3600
+ * # Opcionales (con su valor por defecto)
+ * # demanda: uniforme:máximo | poisson:tasa | historica:archivo.csv
+ * demanda=uniforme:5
+ * # politica: congestion | sin-control | retencion:u | salto:u | retorno:u | completo:u
+ * politica=congestion
+ * # modo: ticks | eventos
+ * modo=ticks
+ * hilos=1
+ * </pre>
+ * Como en todo archivo de propiedades, {@code #} solo inicia un comentario al principio de
+ * una línea. Las rutas de archivos se resuelven desde la carpeta del escenario.
+ */
+public final class ArchivoEscenario {
+
+    private final String nombre;
+    private final RedTransporte red;
+    private final int[] rutaPorAutobus;
+    private final int capacidad;
+    private final long semilla;
+    private final long ticks;
+    private final String demanda;
+    private final String politica;
+    private final Simulador.Modo modo;
+    private final int hilos;
+    private final Path carpeta;
+
+    private ArchivoEscenario(String nombre, Properties p, Path carpeta) {
+        this.nombre = nombre;
+        this.carpeta = carpeta;
+        int estaciones = entero(p, "estaciones", null);
+        if (estaciones < 1) throw new IllegalArgumentException("Debe haber al menos 1 estación");
+        this.red = leerRed(p, estaciones);
+        this.rutaPorAutobus = leerFlota(p, red);
+        this.capacidad = entero(p, "capacidad", null);
+        if (capacidad < 1) throw new IllegalArgumentException("La capacidad debe ser mayor que 0");
+        this.semilla = largo(p, "semilla", "1");
+        this.ticks = largo(p, "ticks", null);
+        if (ticks < 0) throw new IllegalArgumentException("Los ticks no pueden ser negativos");
+        this.demanda = valor(p, "demanda", "uniforme:5");
+        this.politica = valor(p, "politica", "congestion");
+        String textoModo = valor(p, "modo", "ticks");
+        if (textoModo.equalsIgnoreCase("ticks")) modo = Simulador.Modo.TICKS;
+        else if (textoModo.equalsIgnoreCase("eventos")) modo = Simulador.Modo.EVENTOS;
+        else throw new IllegalArgumentException("Modo desconocido: " + textoModo);
+        this.hilos = entero(p, "hilos", "1");
+        // Validar demanda y política ahora y no a mitad de un lote
+        crearPolitica();
+        if (!demanda.startsWith("historica:")) crearDemanda();
+    }
+
+    /**
+     * Lee un escenario de un archivo de propiedades (UTF-8).
+     * @throws IllegalArgumentException si falta una clave o un valor no es válido
+     */
+    public static ArchivoEscenario leer(Path archivo) throws IOException {
+        Properties p = new Properties();
+        try (Reader r = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            p.load(r);
+        }
+        Path carpeta = archivo.toAbsolutePath().getParent();
+        try {
+            return new ArchivoEscenario(archivo.getFileName().toString(), p, carpeta);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException(archivo + ": " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Crea un escenario desde propiedades ya cargadas; los archivos se buscan en la carpeta actual.
+     */
+    public static ArchivoEscenario desde(String nombre, Properties propiedades) {
+        return new ArchivoEscenario(nombre, propiedades, Paths.get("").toAbsolutePath());
+    }
+
+    private static String valor(Properties p, String clave, String porDefecto) {
+        String v = p.getProperty(clave);
+        if (v == null || v.trim().isEmpty()) {
+            if (porDefecto == null) throw new IllegalArgumentException("Falta la clave \"" + clave + "\"");
+            return porDefecto;
+        }
+        return v.trim();
+    }
+
+    private static int entero(Properties p, String clave, String porDefecto) {
+        String v = valor(p, clave, porDefecto);
+        try {
+            return Integer.parseInt(v);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Valor inválido para \"" + clave + "\": " + v);
+        }
+    }
+
+    private static long largo(Properties p, String clave, String porDefecto) {
+        String v = valor(p, clave, porDefecto);
+        try {
+            return Long.parseLong(v);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Valor inválido para \"" + clave + "\": " + v);
+        }
+    }
+
+    private static int[] enteros(String clave, String lista) {
+        String[] partes = lista.split(",");
+        int[] valores = new int[partes.length];
+        for (int i = 0; i < partes.length; i++) {
+            try {
+                valores[i] = Integer.parseInt(partes[i].trim());
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Valor inválido en \"" + clave + "\": " + partes[i].trim());
+            }
+        }
+        return valores;
+    }
+
+    private static RedTransporte leerRed(Properties p, int estaciones) {
+        List<int[]> rutas = new ArrayList<>();
+        for (int r = 0; p.getProperty("ruta." + r) != null; r++) {
+            rutas.add(enteros("ruta." + r, p.getProperty("ruta." + r)));
+        }
+        if (rutas.isEmpty()) return RedTransporte.circular(estaciones);
+        return new RedTransporte(estaciones, rutas.toArray(new int[0][]));
+    }
+
+    private static int[] leerFlota(Properties p, RedTransporte red) {
+        String flota = p.getProperty("flota");
+        if (flota == null || flota.trim().isEmpty()) {
+            return Simulador.repartirPorTurnos(red, entero(p, "autobuses", null));
+        }
+        int[] porRuta = enteros("flota", flota);
+        if (porRuta.length != red.getNumeroRutas()) {
+            throw new IllegalArgumentException("\"flota\" debe tener un valor por ruta (" + red.getNumeroRutas() + ")");
+        }
+        int total = 0;
+        for (int n : porRuta) {
+            if (n < 0) throw new IllegalArgumentException("\"flota\" no puede tener valores negativos");
+            total += n;
+        }
+        if (total < 1) throw new IllegalArgumentException("Debe haber al menos 1 autobús");
+        int[] rutaPorAutobus = new int[total];
+        for (int r = 0, b = 0; r < porRuta.length; r++) {
+            for (int k = 0; k < porRuta[r]; k++) {
+                rutaPorAutobus[b++] = r;
+            }
+        }
+        return rutaPorAutobus;
+    }
+
+    private ModeloDemanda crearDemanda() {
+        int dos = demanda.indexOf(':');
+        String tipo = dos < 0 ? demanda : demanda.substring(0, dos);
+        String argumento = dos < 0 ? "" : demanda.substring(dos + 1).trim();
+        try {
+            switch (tipo) {
+                case "uniforme":
+                    return new DemandaUniforme(argumento.isEmpty() ? 5 : Integer.parseInt(argumento));
+                case "poisson":
+                    return DemandaPoisson.constante(red.getNumeroEstaciones(), Double.parseDouble(argumento));
+                case "historica":
+                    Path archivo = carpeta.resolve(argumento);
+                    return argumento.endsWith(".csv") ? DemandaHistorica.desdeCsv(archivo) : DemandaHistorica.desdeBinario(archivo);
+                default:
+                    throw new IllegalArgumentException("Demanda desconocida: " + demanda);
+            }
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Valor inválido para \"demanda\": " + demanda);
+        }
+    }
+
+    private PoliticaDespacho crearPolitica() {
+        int dos = politica.indexOf(':');
+        String tipo = dos < 0 ? politica : politica.substring(0, dos);
+        double umbral;
+        try {
+            umbral = dos < 0 ? 0.8 : Double.parseDouble(politica.substring(dos + 1).trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Valor inválido para \"politica\": " + politica);
+        }
+        switch (tipo) {
+            case "congestion":
+                return new DespachoCongestion();
+            case "sin-control":
+                return DespachoIntervalo.sinControl();
+            case "retencion":
+                return DespachoIntervalo.retencion(umbral);
+            case "salto":
+                return DespachoIntervalo.saltoParadas(umbral);
+            case "retorno":
+                return DespachoIntervalo.retornoCorto(umbral);
+            case "completo":
+                return DespachoIntervalo.completo(umbral);
+            default:
+                throw new IllegalArgumentException("Política desconocida: " + politica);
+        }
+    }
+
+    /**
+     * Crea un simulador nuevo, detenido en el tick 0, con todo lo que indica el escenario.
+     */
+    public Simulador crearSimulador() {
+        return crearSimulador(crearDemanda());
+    }
+
+    private Simulador crearSimulador(ModeloDemanda modeloDemanda) {
+        Simulador sim = new Simulador(red, rutaPorAutobus, capacidad, semilla);
+        sim.setDemanda(modeloDemanda);
+        sim.setPolitica(crearPolitica());
+        sim.setModo(modo);
+        sim.setParalelismo(hilos);
+        return sim;
+    }
+
+    /**
+     * Corre el escenario completo en el hilo actual y devuelve sus indicadores.
+     */
+    public BarridoEscenarios.Resultado ejecutar() {
+        long inicio = System.nanoTime();
+        ModeloDemanda modeloDemanda = crearDemanda();
+        Simulador sim = crearSimulador(modeloDemanda);
+        try {
+            return BarridoEscenarios.correr(new BarridoEscenarios.Escenario(red.getNumeroEstaciones(),
+                    rutaPorAutobus.length, capacidad, semilla), sim, ticks, inicio);
+        } finally {
+            sim.setParalelismo(1); // libera los hilos del tick en paralelo
+            // Con miles de corridas en la misma JVM no deben quedar archivos de demanda abiertos
+            if (modeloDemanda instanceof DemandaHistorica) ((DemandaHistorica) modeloDemanda).close();
+        }
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public RedTransporte getRed() {
+        return red;
+    }
+
+    public int getNumeroAutobuses() {
+        return rutaPorAutobus.length;
+    }
+
+    public int getCapacidad() {
+        return capacidad;
+    }
+
+    public long getSemilla() {
+        return semilla;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+}
@@ -1,21 +1,19 @@
 package modelo;
 
 import java.util.List;
-import java.util.Random;
 
 /**
  * Representa un autobús que recorre una ruta de estaciones.
  * Realiza acciones de mover, recoger y dejar pasajeros.
+ * <p>
+ * Es una vista sobre un {@link EstadoRed}: ocupación, posición y retraso viven en los
+ * arreglos del almacén.
  */
 public class Autobus {
     private final int id;
-    private final int capacidadMaxima;
-    private int pasajerosActuales;
+    private final EstadoRed estado;
+    private final int indice;
     private final List<Estacion> ruta; // lista de estaciones que conforman la ruta (circular)
-    private int posicionActual; // índice en la ruta
-    private int tiempoSiguienteEstacion; // ticks de espera (simulación de retraso)
-
-    private final Random random = new Random();
 
     /**
      * Constructor.
@@ -25,15 +23,22 @@ public class Autobus {
      * @param posicionInicial índice inicial en la ruta
      */
     public Autobus(int id, int capacidadMaxima, List<Estacion> ruta, int posicionInicial) {
+        this(id, new EstadoRed(0, 1), 0, ruta);
+        estado.capacidad[0] = Math.max(0, capacidadMaxima);
+        setPosicionActual(posicionInicial);
+    }
+
+    /**
+     * Crea una vista sobre el autobús {@code indice} de un almacén existente.
+     */
+    Autobus(int id, EstadoRed estado, int indice, List<Estacion> ruta) {
         if (ruta == null || ruta.isEmpty()) {
             throw new IllegalArgumentException("La ruta no puede ser nula ni vacía");
         }
         this.id = id;
-        this.capacidadMaxima = Math.max(0, capacidadMaxima);
+        this.estado = estado;
+        this.indice = indice;
         this.ruta = ruta;
-        this.posicionActual = Math.floorMod(posicionInicial, ruta.size());
-        this.pasajerosActuales = 0;
-        this.tiempoSiguienteEstacion = 0;
     }
 
     /**
@@ -42,41 +47,36 @@ public class Autobus {
      * @return true si se movió, false si permaneció esperando
      */
     public boolean mover() {
-        if (tiempoSiguienteEstacion > 0) {
-            tiempoSiguienteEstacion--;
-            return false;
-        }
-        posicionActual = (posicionActual + 1) % ruta.size();
-        return true;
+        return estado.moverAutobus(indice, ruta.size());
     }
 
     /**
      * Recoge pasajeros en la estación actual hasta completar la capacidad.
+     * Dentro de una red sube a los que esperan esta ruta, cada uno con su destino.
      * @return cantidad recogida
      */
     public int recogerPasajeros() {
+        if (estado.getRed() != null) {
+            return estado.recogerPasajeros(indice, estado.getEstacionAutobus(indice));
+        }
         Estacion est = getEstacionActual();                             // estación actual donde recoger pasajeros
-        int espacioDisponible = capacidadMaxima - pasajerosActuales;    // espacio disponible en el autobús
+        int espacioDisponible = estado.getEspacioDisponible(indice);    // espacio disponible en el autobús
         if (espacioDisponible <= 0) return 0;                           // si no hay espacio, no recoge pasajeros
 
         int tomados = est.retirarPasajeros(espacioDisponible);          // pasajeros que se pueden tomar
-        pasajerosActuales += tomados;
+        estado.pasajerosAutobus[indice] += tomados;
         return tomados;
     }
 
     /**
-     * Deja pasajeros en la estación actual.
-     * Para simplificar, se simula que algunos pasajeros han llegado a su destino y bajan.
+     * Baja a los pasajeros cuyo destino es la parada actual: cada uno subió con su destino
+     * (origen-destino) y baja exactamente ahí; no se suman a la estación porque llegaron.
+     * Solo un almacén sin red (sin estaciones) no tiene destinos y baja un número al azar
+     * entre 0 y el 30% de los que van a bordo (ver {@link EstadoRed#dejarPasajeros(int)}).
      * @return cantidad que bajó
      */
     public int dejarPasajeros() {
-        if (pasajerosActuales <= 0) return 0;
-        // Deja entre 0 y hasta el 30% de los pasajeros en promedio (al menos 0, a lo sumo todos).
-        int maxBajan = Math.max(1, (int)Math.ceil(pasajerosActuales * 0.3));        // máximo que pueden bajar
-        int bajan = Math.min(pasajerosActuales, random.nextInt(maxBajan + 1));        // cantidad que baja
-        pasajerosActuales -= bajan;
-        // Nota: No se suman a la estación ya que se asume que llegaron a destino.
-        return bajan;
+        return estado.dejarPasajeros(indice);
     }
 
     /**
@@ -84,17 +84,15 @@ public class Autobus {
      * @param segundos segundos a retrasar
      */
     public void retrasar(int segundos) {
-        if (segundos > 0) {
-            tiempoSiguienteEstacion += segundos;
-        }
+        estado.retrasar(indice, segundos);
     }
 
     public Estacion getEstacionActual() {
-        return ruta.get(posicionActual);
+        return ruta.get(estado.posicion[indice]);
     }
 
     public Estacion getSiguienteEstacion() {
-        return ruta.get((posicionActual + 1) % ruta.size());
+        return ruta.get((estado.posicion[indice] + 1) % ruta.size());
     }
 
     public int getId() {
@@ -102,15 +100,15 @@ public class Autobus {
     }
 
     public int getCapacidadMaxima() {
-        return capacidadMaxima;
+        return estado.getCapacidad(indice);
     }
 
     public int getPasajerosActuales() {
-        return pasajerosActuales;
+        return estado.getPasajerosAutobus(indice);
     }
 
     public void setPasajerosActuales(int pasajerosActuales) {
-        this.pasajerosActuales = Math.max(0, Math.min(pasajerosActuales, capacidadMaxima));
+        estado.setPasajerosAutobus(indice, pasajerosActuales);
     }
 
     public List<Estacion> getRuta() {
@@ -118,29 +116,29 @@ public class Autobus {
     }
 
     public int getPosicionActual() {
-        return posicionActual;
+        return estado.getPosicion(indice);
     }
 
     public void setPosicionActual(int posicionActual) {
-        this.posicionActual = Math.floorMod(posicionActual, ruta.size());
+        estado.colocarAutobus(indice, Math.floorMod(posicionActual, ruta.size()));
     }
 
     public int getTiempoSiguienteEstacion() {
-        return tiempoSiguienteEstacion;
+        return estado.getRetraso(indice);
     }
 
     public void setTiempoSiguienteEstacion(int tiempoSiguienteEstacion) {
-        this.tiempoSiguienteEstacion = Math.max(0, tiempoSiguienteEstacion);
+        estado.setRetraso(indice, tiempoSiguienteEstacion);
     }
 
     @Override
     public String toString() {
         return "Autobus{" +
                 "id=" + id +
-                ", capacidadMaxima=" + capacidadMaxima +
-                ", pasajerosActuales=" + pasajerosActuales +
+                ", capacidadMaxima=" + getCapacidadMaxima() +
+                ", pasajerosActuales=" + getPasajerosActuales() +
                 ", estacionActual=" + getEstacionActual().getNombre() +
-                ", tiempoSiguienteEstacion=" + tiempoSiguienteEstacion +
+                ", tiempoSiguienteEstacion=" + getTiempoSiguienteEstacion() +
                 '}';
     }
 }
\ No newline at end of file
@@ -0,0 +1,338 @@
+package modelo;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+
+/**
+ * Corre muchos escenarios independientes (estaciones × autobuses × capacidad × semilla) sin
+ * interfaz, varios a la vez en un {@link ForkJoinPool}, y junta sus indicadores en una tabla.
+ * <p>
+ * Cada escenario es un {@link Simulador} propio con tick secuencial y un {@link AgregadorKpi};
+ * el paralelismo está entre escenarios, así que con la misma semilla cada fila da lo mismo
+ * sin importar la cantidad de hilos. Los escenarios se lanzan de mayor a menor tamaño para
+ * que los grandes no queden para el final, y los resultados vuelven en el orden de la grilla.
+ */
+public final class BarridoEscenarios {
+
+    /**
+     * Un punto de la grilla.
+     */
+    public static final class Escenario {
+        private final int estaciones;
+        private final int autobuses;
+        private final int capacidad;
+        private final long semilla;
+
+        public Escenario(int estaciones, int autobuses, int capacidad, long semilla) {
+            if (estaciones < 1) throw new IllegalArgumentException("Debe haber al menos 1 estación");
+            if (autobuses < 1) throw new IllegalArgumentException("Debe haber al menos 1 autobús");
+            if (capacidad < 1) throw new IllegalArgumentException("La capacidad debe ser mayor que 0");
+            this.estaciones = estaciones;
+            this.autobuses = autobuses;
+            this.capacidad = capacidad;
+            this.semilla = semilla;
+        }
+
+        public int getEstaciones() {
+            return estaciones;
+        }
+
+        public int getAutobuses() {
+            return autobuses;
+        }
+
+        public int getCapacidad() {
+            return capacidad;
+        }
+
+        public long getSemilla() {
+            return semilla;
+        }
+
+        @Override
+        public String toString() {
+            return estaciones + " estaciones, " + autobuses + " autobuses, capacidad " + capacidad + ", semilla " + semilla;
+        }
+    }
+
+    /**
+     * Indicadores de un escenario al terminar la corrida.
+     */
+    public static final class Resultado {
+        private final Escenario escenario;
+        private final String politica;
+        private final long ticks;
+        private final long viajesCompletados;
+        private final double esperaPromedio;
+        private final double viajePromedio;
+        private final double esperandoMedia;
+        private final double esperandoP90;
+        private final double cargaMedia;
+        private final double cargaP90;
+        private final double intervaloMedio;
+        private final double coeficienteVariacionIntervalo;
+        private final double fraccionPerdida;
+        private final long milisegundos;
+
+        Resultado(Escenario escenario, long ticks, Simulador sim, AgregadorKpi kpi, long milisegundos) {
+            EstadoRed estado = sim.getEstado();
+            long completados = 0;
+            for (int b = 0; b < estado.getNumeroAutobuses(); b++) {
+                completados += estado.getViajesCompletados(b);
+            }
+            double intervalo = 0;
+            double cv = 0;
+            int rutas = kpi.getNumeroRutas();
+            for (int r = 0; r < rutas; r++) {
+                intervalo += kpi.getIntervaloMedio(r);
+                cv += kpi.getCoeficienteVariacionIntervalo(r);
+            }
+            this.escenario = escenario;
+            this.politica = sim.getPolitica().getNombre();
+            this.ticks = ticks;
+            this.viajesCompletados = completados;
+            this.esperaPromedio = estado.getEsperaPromedio();
+            this.viajePromedio = estado.getViajePromedio();
+            this.esperandoMedia = kpi.getEsperaMediaRed();
+            this.esperandoP90 = kpi.getEsperaP90Red();
+            this.cargaMedia = kpi.getCargaMediaRed();
+            this.cargaP90 = kpi.getCargaP90Red();
+            this.intervaloMedio = intervalo / rutas;
+            this.coeficienteVariacionIntervalo = cv / rutas;
+            this.fraccionPerdida = kpi.getFraccionPerdidaRed();
+            this.milisegundos = milisegundos;
+        }
+
+        public Escenario getEscenario() {
+            return escenario;
+        }
+
+        /**
+         * @return nombre de la política de despacho usada
+         */
+        public String getPolitica() {
+            return politica;
+        }
+
+        public long getTicks() {
+            return ticks;
+        }
+
+        public long getViajesCompletados() {
+            return viajesCompletados;
+        }
+
+        /**
+         * @return ticks de espera promedio de los pasajeros que subieron
+         */
+        public double getEsperaPromedio() {
+            return esperaPromedio;
+        }
+
+        public double getViajePromedio() {
+            return viajePromedio;
+        }
+
+        /**
+         * @return pasajeros esperando por estación, promedio de todos los ticks
+         */
+        public double getEsperandoMedia() {
+            return esperandoMedia;
+        }
+
+        public double getEsperandoP90() {
+            return esperandoP90;
+        }
+
+        public double getCargaMedia() {
+            return cargaMedia;
+        }
+
+        public double getCargaP90() {
+            return cargaP90;
+        }
+
+        /**
+         * @return intervalo medio entre autobuses, promedio de las rutas
+         */
+        public double getIntervaloMedio() {
+            return intervaloMedio;
+        }
+
+        public double getCoeficienteVariacionIntervalo() {
+            return coeficienteVariacionIntervalo;
+        }
+
+        public double getFraccionPerdida() {
+            return fraccionPerdida;
+        }
+
+        /**
+         * @return duración de la corrida en milisegundos
+         */
+        public long getMilisegundos() {
+            return milisegundos;
+        }
+    }
+
+    private final long ticks;
+    private Supplier<? extends ModeloDemanda> demanda;
+    private Supplier<? extends PoliticaDespacho> politica;
+    private Simulador.Modo modo = Simulador.Modo.TICKS;
+
+    /**
+     * @param ticks duración de cada corrida (86400 = 24 h)
+     */
+    public BarridoEscenarios(long ticks) {
+        if (ticks < 1) throw new IllegalArgumentException("Cada corrida debe durar al menos 1 tick");
+        this.ticks = ticks;
+    }
+
+    /**
+     * Arma la grilla completa, con las semillas variando más rápido.
+     */
+    public static List<Escenario> grilla(int[] estaciones, int[] autobuses, int[] capacidades, long[] semillas) {
+        List<Escenario> escenarios = new ArrayList<>(estaciones.length * autobuses.length * capacidades.length * semillas.length);
+        for (int e : estaciones) {
+            for (int a : autobuses) {
+                for (int c : capacidades) {
+                    for (long s : semillas) {
+                        escenarios.add(new Escenario(e, a, c, s));
+                    }
+                }
+            }
+        }
+        return escenarios;
+    }
+
+    /**
+     * @return {@code desde, desde + paso, ...} hasta {@code hasta} inclusive
+     */
+    public static int[] rango(int desde, int hasta, int paso) {
+        if (paso < 1) throw new IllegalArgumentException("El paso debe ser mayor que 0");
+        if (hasta < desde) throw new IllegalArgumentException("El rango está vacío");
+        int[] valores = new int[(hasta - desde) / paso + 1];
+        for (int i = 0; i < valores.length; i++) {
+            valores[i] = desde + i * paso;
+        }
+        return valores;
+    }
+
+    /**
+     * Define el modelo de demanda de cada escenario (uno nuevo por simulador).
+     * Sin definir se usa la demanda por defecto del simulador.
+     */
+    public void setDemanda(Supplier<? extends ModeloDemanda> demanda) {
+        this.demanda = demanda;
+    }
+
+    /**
+     * Define la política de despacho de cada escenario (una nueva por simulador), para comparar
+     * políticas con la misma grilla. Sin definir se usa {@link DespachoCongestion}.
+     */
+    public void setPolitica(Supplier<? extends PoliticaDespacho> politica) {
+        this.politica = politica;
+    }
+
+    public void setModo(Simulador.Modo modo) {
+        if (modo == null) throw new IllegalArgumentException("El modo no puede ser nulo");
+        this.modo = modo;
+    }
+
+    /**
+     * Corre un escenario en el hilo llamante.
+     */
+    public Resultado ejecutar(Escenario escenario) {
+        long inicio = System.nanoTime();
+        Simulador sim = new Simulador(escenario.getEstaciones(), escenario.getAutobuses(),
+                escenario.getCapacidad(), escenario.getSemilla());
+        if (demanda != null) sim.setDemanda(demanda.get());
+        if (politica != null) sim.setPolitica(politica.get());
+        sim.setModo(modo);
+        return correr(escenario, sim, ticks, inicio);
+    }
+
+    /**
+     * Corre {@code ticks} ticks con un {@link AgregadorKpi} y junta los indicadores.
+     * @param inicio instante ({@link System#nanoTime()}) desde el que se mide la duración
+     */
+    static Resultado correr(Escenario escenario, Simulador sim, long ticks, long inicio) {
+        AgregadorKpi kpi = new AgregadorKpi(sim.getEstado());
+        sim.addFotoListener(kpi);
+        if (sim.getModo() == Simulador.Modo.EVENTOS) {
+            // Avanzar de a un tick para que el agregador vea todos los ticks
+            for (long i = 0; i < ticks; i++) {
+                sim.actualizarSimulacion();
+            }
+        } else {
+            sim.ejecutarTicks(ticks);
+        }
+        return new Resultado(escenario, ticks, sim, kpi, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    /**
+     * Corre todos los escenarios repartidos en {@code hilos} hilos.
+     * @return resultados en el mismo orden que {@code escenarios}
+     */
+    public List<Resultado> ejecutar(List<Escenario> escenarios, int hilos) {
+        if (hilos < 1) throw new IllegalArgumentException("Debe haber al menos 1 hilo");
+        Integer[] orden = new Integer[escenarios.size()];
+        for (int i = 0; i < orden.length; i++) {
+            orden[i] = i;
+        }
+        // Los más costosos primero: el final de la corrida queda con tareas cortas
+        Arrays.sort(orden, (a, b) -> Long.compare(costo(escenarios.get(b)), costo(escenarios.get(a))));
+
+        ForkJoinPool pool = new ForkJoinPool(hilos);
+        try {
+            List<ForkJoinTask<Resultado>> tareas = new ArrayList<>(Collections.nCopies(orden.length, null));
+            for (int i : orden) {
+                Escenario escenario = escenarios.get(i);
+                tareas.set(i, pool.submit(() -> ejecutar(escenario)));
+            }
+            List<Resultado> resultados = new ArrayList<>(tareas.size());
+            for (ForkJoinTask<Resultado> tarea : tareas) {
+                resultados.add(tarea.get());
+            }
+            return resultados;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Barrido interrumpido", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Falló un escenario del barrido", ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static long costo(Escenario escenario) {
+        return (long) escenario.getEstaciones() + escenario.getAutobuses();
+    }
+
+    /**
+     * Escribe los resultados como CSV (separado por comas, punto decimal), con encabezado.
+     */
+    public static void escribirCsv(List<Resultado> resultados, Writer salida) throws IOException {
+        salida.write("estaciones,autobuses,capacidad,semilla,politica,ticks,viajes_completados,espera_promedio,"
+                + "viaje_promedio,esperando_media,esperando_p90,carga_media,carga_p90,intervalo_medio,"
+                + "cv_intervalo,fraccion_perdida,milisegundos\n");
+        for (Resultado r : resultados) {
+            Escenario e = r.getEscenario();
+            salida.write(String.format(Locale.ROOT, "%d,%d,%d,%d,%s,%d,%d,%.4f,%.4f,%.4f,%.1f,%.4f,%.4f,%.4f,%.4f,%.4f,%d\n",
+                    e.getEstaciones(), e.getAutobuses(), e.getCapacidad(), e.getSemilla(), r.getPolitica(), r.getTicks(),
+                    r.getViajesCompletados(), r.getEsperaPromedio(), r.getViajePromedio(), r.getEsperandoMedia(),
+                    r.getEsperandoP90(), r.getCargaMedia(), r.getCargaP90(), r.getIntervaloMedio(),
+                    r.getCoeficienteVariacionIntervalo(), r.getFraccionPerdida(), r.getMilisegundos()));
+        }
+        salida.flush();
+    }
+}
@@ -0,0 +1,54 @@
+package modelo;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Triple buffer sin bloqueos entre el motor (productor) y un único consumidor.
+ * Solo existen tres {@link FotoSimulacion} que se reciclan: una la escribe el motor,
+ * otra la lee el consumidor y la tercera queda publicada en el medio. Publicar y tomar
+ * son un intercambio atómico, así que el estado estable no genera basura y el consumidor
+ * siempre lee una foto completa y consistente, aunque se salte ticks intermedios.
+ */
+public final class BufferFotos {
+
+    private final AtomicReference<FotoSimulacion> medio;
+    private FotoSimulacion escritura; // solo la toca el motor
+    private FotoSimulacion lectura;   // solo la toca el consumidor
+    private boolean hayLectura;       // el consumidor ya tomó al menos una foto
+
+    BufferFotos(int numeroEstaciones, int numeroAutobuses) {
+        this.escritura = new FotoSimulacion(numeroEstaciones, numeroAutobuses);
+        this.medio = new AtomicReference<>(new FotoSimulacion(numeroEstaciones, numeroAutobuses));
+        this.lectura = new FotoSimulacion(numeroEstaciones, numeroAutobuses);
+    }
+
+    /**
+     * Foto que el motor debe llenar antes de {@link #publicar()}.
+     */
+    FotoSimulacion getEscritura() {
+        return escritura;
+    }
+
+    /**
+     * Publica la foto de escritura; si el consumidor no tomó la anterior, esta la reemplaza.
+     */
+    void publicar() {
+        escritura.fresca = true;
+        escritura = medio.getAndSet(escritura);
+    }
+
+    /**
+     * Toma la foto publicada más reciente. La foto devuelta pertenece al consumidor hasta
+     * su siguiente llamada; si no hay una nueva se devuelve la misma que la vez anterior.
+     * Debe llamarse siempre desde el mismo hilo consumidor.
+     * @return última foto publicada, o null si aún no se publicó ninguna
+     */
+    public FotoSimulacion tomarUltima() {
+        if (medio.get().fresca) {
+            lectura.fresca = false;
+            lectura = medio.getAndSet(lectura);
+            hayLectura = true;
+        }
+        return hayLectura ? lectura : null;
+    }
+}
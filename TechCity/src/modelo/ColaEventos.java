@@ -0,0 +1,114 @@
+package modelo;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Montículo binario de mínimos sobre arreglos primitivos: tiempo del evento y código de la
+ * entidad que lo genera. A igual tiempo sale primero el código menor, así el orden de
+ * procesamiento es siempre el mismo.
+ */
+final class ColaEventos {
+
+    private double[] tiempos;
+    private int[] codigos;
+    private int tamano;
+
+    ColaEventos(int capacidadInicial) {
+        int capacidad = Math.max(16, capacidadInicial);
+        this.tiempos = new double[capacidad];
+        this.codigos = new int[capacidad];
+    }
+
+    int tamano() {
+        return tamano;
+    }
+
+    boolean estaVacia() {
+        return tamano == 0;
+    }
+
+    void vaciar() {
+        tamano = 0;
+    }
+
+    void insertar(double tiempo, int codigo) {
+        if (tamano == tiempos.length) {
+            tiempos = Arrays.copyOf(tiempos, tamano * 2);
+            codigos = Arrays.copyOf(codigos, tamano * 2);
+        }
+        // Subir el hueco hasta la posición del nuevo evento
+        int i = tamano++;
+        while (i > 0) {
+            int padre = (i - 1) >>> 1;
+            if (!menor(tiempo, codigo, tiempos[padre], codigos[padre])) break;
+            tiempos[i] = tiempos[padre];
+            codigos[i] = codigos[padre];
+            i = padre;
+        }
+        tiempos[i] = tiempo;
+        codigos[i] = codigo;
+    }
+
+    /**
+     * @return tiempo del próximo evento; la cola no debe estar vacía
+     */
+    double tiempoMinimo() {
+        return tiempos[0];
+    }
+
+    /**
+     * Saca el próximo evento. La cola no debe estar vacía.
+     * @return código de la entidad del evento
+     */
+    int extraerMinimo() {
+        int codigo = codigos[0];
+        int n = --tamano;
+        if (n > 0) {
+            double tiempo = tiempos[n];
+            int ultimo = codigos[n];
+            // Bajar el hueco de la raíz hasta la posición del último elemento
+            int i = 0;
+            int hijo;
+            while ((hijo = 2 * i + 1) < n) {
+                if (hijo + 1 < n && menor(tiempos[hijo + 1], codigos[hijo + 1], tiempos[hijo], codigos[hijo])) {
+                    hijo++;
+                }
+                if (!menor(tiempos[hijo], codigos[hijo], tiempo, ultimo)) break;
+                tiempos[i] = tiempos[hijo];
+                codigos[i] = codigos[hijo];
+                i = hijo;
+            }
+            tiempos[i] = tiempo;
+            codigos[i] = ultimo;
+        }
+        return codigo;
+    }
+
+    /**
+     * Escribe los eventos tal como están en el montículo.
+     */
+    void escribir(SalidaMapeada salida) throws IOException {
+        salida.escribirInt(tamano);
+        salida.escribirDoubles(tiempos, 0, tamano);
+        salida.escribirInts(codigos, 0, tamano);
+    }
+
+    /**
+     * Reemplaza los eventos por los escritos con {@link #escribir(SalidaMapeada)}.
+     */
+    void leer(EntradaMapeada entrada) throws IOException {
+        int n = entrada.leerCantidad(Integer.MAX_VALUE);
+        if (n > tiempos.length) {
+            tiempos = new double[n];
+            codigos = new int[n];
+        }
+        entrada.leerDoubles(tiempos, 0, n);
+        entrada.leerInts(codigos, 0, n);
+        tamano = n;
+    }
+
+    private static boolean menor(double t1, int c1, double t2, int c2) {
+        return t1 < t2 || (t1 == t2 && c1 < c2);
+    }
+}
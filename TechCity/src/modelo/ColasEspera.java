@@ -0,0 +1,116 @@
+package modelo;
+
+import java.io.IOException;
+
+/**
+ * Colas FIFO de pasajeros esperando, una por parada de ruta, en búferes circulares {@code long[]}.
+ * Cada pasajero ocupa un {@code long}: tick de llegada en los bits altos y paradas hasta su
+ * destino en los 8 bits bajos. Con la duplicación de capacidad al crecer, el costo queda
+ * entre 8 y 16 bytes por pasajero esperando.
+ * <p>
+ * No es segura para hilos: cada cola debe tocarla un solo hilo a la vez (en el tick en
+ * paralelo, las colas de una estación solo las usa la tarea de esa estación).
+ */
+final class ColasEspera {
+
+    private static final int CAPACIDAD_INICIAL = 8;
+
+    private final long[][] datos; // por cola: búfer circular (null hasta el primer pasajero)
+    private final int[] cabeza;   // por cola: índice del primer pasajero
+    private final int[] tamano;   // por cola: pasajeros en la cola
+
+    ColasEspera(int colas) {
+        this.datos = new long[colas][];
+        this.cabeza = new int[colas];
+        this.tamano = new int[colas];
+    }
+
+    static long pasajero(int llegada, int distancia) {
+        return ((long) llegada << 8) | distancia;
+    }
+
+    static int llegada(long pasajero) {
+        return (int) (pasajero >> 8);
+    }
+
+    static int distancia(long pasajero) {
+        return (int) (pasajero & 0xFF);
+    }
+
+    int tamano(int cola) {
+        return tamano[cola];
+    }
+
+    void encolar(int cola, long pasajero) {
+        long[] buf = datos[cola];
+        int n = tamano[cola];
+        if (buf == null || n == buf.length) {
+            buf = crecer(cola, n);
+        }
+        int i = cabeza[cola] + n;
+        if (i >= buf.length) i -= buf.length;
+        buf[i] = pasajero;
+        tamano[cola] = n + 1;
+    }
+
+    /**
+     * Saca el primer pasajero. La cola no debe estar vacía.
+     */
+    long desencolar(int cola) {
+        long[] buf = datos[cola];
+        int c = cabeza[cola];
+        long pasajero = buf[c];
+        cabeza[cola] = c + 1 == buf.length ? 0 : c + 1;
+        tamano[cola]--;
+        return pasajero;
+    }
+
+    /**
+     * Duplica el búfer dejando los pasajeros contiguos desde el índice 0.
+     */
+    private long[] crecer(int cola, int n) {
+        long[] viejo = datos[cola];
+        long[] nuevo = new long[viejo == null ? CAPACIDAD_INICIAL : viejo.length * 2];
+        if (n > 0) {
+            int c = cabeza[cola];
+            int primerTramo = Math.min(n, viejo.length - c);
+            System.arraycopy(viejo, c, nuevo, 0, primerTramo);
+            System.arraycopy(viejo, 0, nuevo, primerTramo, n - primerTramo);
+        }
+        datos[cola] = nuevo;
+        cabeza[cola] = 0;
+        return nuevo;
+    }
+
+    /**
+     * Escribe el tamaño de cada cola y luego sus pasajeros en orden de llegada.
+     */
+    void escribir(SalidaMapeada salida) throws IOException {
+        salida.escribirInts(tamano);
+        for (int c = 0; c < tamano.length; c++) {
+            int n = tamano[c];
+            if (n == 0) continue;
+            long[] buf = datos[c];
+            int primerTramo = Math.min(n, buf.length - cabeza[c]);
+            salida.escribirLongs(buf, cabeza[c], primerTramo);
+            salida.escribirLongs(buf, 0, n - primerTramo);
+        }
+    }
+
+    /**
+     * Reemplaza el contenido de todas las colas por lo escrito con {@link #escribir(SalidaMapeada)}.
+     */
+    void leer(EntradaMapeada entrada) throws IOException {
+        entrada.leerInts(tamano);
+        for (int c = 0; c < tamano.length; c++) {
+            int n = tamano[c];
+            if (n < 0) throw new IOException("Tamaño de cola inválido: " + n);
+            cabeza[c] = 0;
+            if (n == 0) continue;
+            if (datos[c] == null || datos[c].length < n) {
+                datos[c] = new long[Math.max(CAPACIDAD_INICIAL, n)];
+            }
+            entrada.leerLongs(datos[c], 0, n);
+        }
+    }
+}
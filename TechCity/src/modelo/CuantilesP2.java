@@ -0,0 +1,107 @@
+package modelo;
+
+import java.util.Arrays;
+
+/**
+ * Estimación de un cuantil en varias series a la vez con el algoritmo P² de Jain y Chlamtac:
+ * cinco marcadores por serie que se ajustan con interpolación parabólica en cada observación.
+ * Memoria y costo O(1) por serie y observación, sin guardar el historial. Con menos de cinco
+ * observaciones el resultado es exacto.
+ * No es seguro para hilos.
+ */
+final class CuantilesP2 {
+
+    private static final int MARCADORES = 5;
+
+    private final double cuantil;
+    private final double[] fraccion;  // posición deseada de cada marcador, relativa a (cantidad - 1)
+    private final int[] cantidad;
+    private final double[] alturas;   // MARCADORES por serie
+    private final int[] posiciones;   // MARCADORES por serie, desde 1
+
+    /**
+     * @param cuantil entre 0 y 1 (por ejemplo 0.9)
+     */
+    CuantilesP2(int series, double cuantil) {
+        if (cuantil <= 0 || cuantil >= 1) throw new IllegalArgumentException("El cuantil debe estar entre 0 y 1 (exclusivo)");
+        this.cuantil = cuantil;
+        this.fraccion = new double[]{0, cuantil / 2, cuantil, (1 + cuantil) / 2, 1};
+        this.cantidad = new int[series];
+        this.alturas = new double[series * MARCADORES];
+        this.posiciones = new int[series * MARCADORES];
+    }
+
+    void registrar(int serie, double valor) {
+        final double[] q = alturas;
+        final int[] n = posiciones;
+        final int base = serie * MARCADORES;
+        final int c = cantidad[serie];
+        if (c < MARCADORES) {
+            q[base + c] = valor;
+            cantidad[serie] = c + 1;
+            if (c + 1 == MARCADORES) {
+                Arrays.sort(q, base, base + MARCADORES);
+                for (int i = 0; i < MARCADORES; i++) {
+                    n[base + i] = i + 1;
+                }
+            }
+            return;
+        }
+
+        // Celda del valor; los extremos se corren si hace falta
+        int k;
+        if (valor < q[base]) {
+            q[base] = valor;
+            k = 0;
+        } else if (valor >= q[base + 4]) {
+            q[base + 4] = valor;
+            k = 3;
+        } else {
+            k = 0;
+            while (valor >= q[base + k + 1]) k++;
+        }
+        for (int i = k + 1; i < MARCADORES; i++) {
+            n[base + i]++;
+        }
+        cantidad[serie] = c + 1;
+
+        // Ajustar los marcadores centrales que se alejaron de su posición deseada
+        for (int i = 1; i <= 3; i++) {
+            int j = base + i;
+            double d = 1 + (double) c * fraccion[i] - n[j];
+            if ((d >= 1 && n[j + 1] - n[j] > 1) || (d <= -1 && n[j - 1] - n[j] < -1)) {
+                int s = d > 0 ? 1 : -1;
+                double parabolica = q[j] + (double) s / (n[j + 1] - n[j - 1])
+                        * ((n[j] - n[j - 1] + s) * (q[j + 1] - q[j]) / (n[j + 1] - n[j])
+                        + (n[j + 1] - n[j] - s) * (q[j] - q[j - 1]) / (n[j] - n[j - 1]));
+                if (q[j - 1] < parabolica && parabolica < q[j + 1]) {
+                    q[j] = parabolica;
+                } else {
+                    q[j] += s * (q[j + s] - q[j]) / (n[j + s] - n[j]);
+                }
+                n[j] += s;
+            }
+        }
+    }
+
+    /**
+     * @return cuantil estimado de la serie, o 0 sin observaciones
+     */
+    double getValor(int serie) {
+        int c = cantidad[serie];
+        int base = serie * MARCADORES;
+        if (c >= MARCADORES) return alturas[base + 2];
+        if (c == 0) return 0;
+        double[] primeros = Arrays.copyOfRange(alturas, base, base + c);
+        Arrays.sort(primeros);
+        return primeros[Math.min(c - 1, (int) Math.ceil(cuantil * c) - 1)];
+    }
+
+    int getSeries() {
+        return cantidad.length;
+    }
+
+    void reiniciar() {
+        Arrays.fill(cantidad, 0);
+    }
+}
@@ -0,0 +1,287 @@
+package modelo;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Reproduce conteos históricos de llegadas leídos de un archivo, sin cargarlo en memoria:
+ * se lee a medida que avanzan los ticks, así que solo ocupa un registro de anticipo.
+ * <p>
+ * Cada registro es {@code tick, estacion, cantidad}, ordenados por tick (varios registros
+ * del mismo tick y estación se suman). Hay dos formatos:
+ * <ul>
+ * <li>CSV: una línea {@code tick,estacion,cantidad} por registro. Se ignoran las líneas vacías,
+ * las que empiezan con {@code #} y una primera línea de encabezado.</li>
+ * <li>Binario: registros de 16 bytes ({@code long} tick, {@code int} estación,
+ * {@code int} cantidad, big-endian). Se genera con {@link #convertirCsvABinario(Path, Path)}
+ * y se lee varias veces más rápido que el CSV.</li>
+ * </ul>
+ * Los registros de ticks anteriores al primero simulado se saltean; al terminar el archivo
+ * no llegan más pasajeros. Es dispersa: solo se consultan las estaciones con registros en el tick.
+ */
+public class DemandaHistorica implements ModeloDemanda, Closeable {
+
+    private final Path archivo;
+    private final boolean binario;
+
+    private Lector lector;
+    private int numeroEstaciones;
+    private int[] cuenta;
+    private long[] marca;
+    private long tickPreparado = Long.MIN_VALUE;
+
+    // Registro leído por adelantado
+    private final long[] registro = new long[3];
+    private boolean hayRegistro;
+    private long tickRegistro;
+    private int estacionRegistro;
+    private int cantidadRegistro;
+
+    private DemandaHistorica(Path archivo, boolean binario) {
+        if (archivo == null) throw new IllegalArgumentException("El archivo no puede ser nulo");
+        this.archivo = archivo;
+        this.binario = binario;
+    }
+
+    /**
+     * Demanda leída de un CSV {@code tick,estacion,cantidad}.
+     */
+    public static DemandaHistorica desdeCsv(Path archivo) {
+        return new DemandaHistorica(archivo, false);
+    }
+
+    /**
+     * Demanda leída del formato binario de {@link #convertirCsvABinario(Path, Path)}.
+     */
+    public static DemandaHistorica desdeBinario(Path archivo) {
+        return new DemandaHistorica(archivo, true);
+    }
+
+    /**
+     * Convierte un CSV de conteos al formato binario, en streaming.
+     * @return cantidad de registros escritos
+     */
+    public static long convertirCsvABinario(Path csv, Path destino) throws IOException {
+        long registros = 0;
+        try (LectorCsv entrada = new LectorCsv(csv);
+             DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(destino), 1 << 16))) {
+            long[] registro = new long[3];
+            while (entrada.leer(registro)) {
+                salida.writeLong(registro[0]);
+                salida.writeInt((int) registro[1]);
+                salida.writeInt((int) registro[2]);
+                registros++;
+            }
+        }
+        return registros;
+    }
+
+    /**
+     * Abre (o vuelve a abrir desde el principio) el archivo. La semilla no se usa.
+     */
+    @Override
+    public void iniciar(int numeroEstaciones, long semilla) {
+        close();
+        this.numeroEstaciones = numeroEstaciones;
+        this.cuenta = new int[numeroEstaciones];
+        this.marca = new long[numeroEstaciones];
+        Arrays.fill(marca, Long.MIN_VALUE);
+        this.tickPreparado = Long.MIN_VALUE;
+        // El primer registro del archivo no se compara con el último leído antes de reiniciar
+        this.hayRegistro = false;
+        try {
+            lector = binario ? new LectorBinario(archivo) : new LectorCsv(archivo);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("No se pudo abrir la demanda histórica " + archivo, ex);
+        }
+        leerSiguiente();
+    }
+
+    @Override
+    public int prepararTick(long tick, int[] activas) {
+        if (cuenta == null) throw new IllegalStateException("El modelo de demanda no fue iniciado");
+        tickPreparado = tick;
+        while (hayRegistro && tickRegistro < tick) {
+            leerSiguiente();
+        }
+        int n = 0;
+        while (hayRegistro && tickRegistro == tick) {
+            int e = estacionRegistro;
+            if (marca[e] == tick) {
+                cuenta[e] += cantidadRegistro;
+            } else {
+                marca[e] = tick;
+                cuenta[e] = cantidadRegistro;
+                activas[n++] = e;
+            }
+            leerSiguiente();
+        }
+        return n;
+    }
+
+    @Override
+    public int llegadas(int estacion) {
+        return marca[estacion] == tickPreparado ? cuenta[estacion] : 0;
+    }
+
+    private void leerSiguiente() {
+        long anterior = tickRegistro;
+        boolean habiaRegistro = hayRegistro;
+        try {
+            hayRegistro = lector != null && lector.leer(registro);
+        } catch (IOException ex) {
+            close();
+            throw new UncheckedIOException("Error leyendo la demanda histórica " + archivo, ex);
+        }
+        if (!hayRegistro) {
+            close();
+            return;
+        }
+        tickRegistro = registro[0];
+        estacionRegistro = (int) registro[1];
+        cantidadRegistro = (int) registro[2];
+        if (habiaRegistro && tickRegistro < anterior) {
+            throw new IllegalArgumentException("La demanda histórica no está ordenada por tick: "
+                    + tickRegistro + " después de " + anterior);
+        }
+        if (estacionRegistro < 0 || estacionRegistro >= numeroEstaciones) {
+            throw new IllegalArgumentException("Estación inexistente en la demanda histórica: " + estacionRegistro);
+        }
+        if (cantidadRegistro < 0) {
+            throw new IllegalArgumentException("Cantidad negativa en la demanda histórica (tick " + tickRegistro + ")");
+        }
+    }
+
+    /**
+     * Cierra el archivo antes de terminarlo. También se cierra solo al llegar al final
+     * o al volver a iniciar.
+     */
+    @Override
+    public void close() {
+        Lector actual = lector;
+        lector = null;
+        if (actual == null) return;
+        try {
+            actual.close();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("No se pudo cerrar la demanda histórica " + archivo, ex);
+        }
+    }
+
+    public Path getArchivo() {
+        return archivo;
+    }
+
+    /**
+     * Escribe la ruta del archivo: al restaurar se vuelve a abrir y se saltean los ticks ya simulados.
+     */
+    void escribir(SalidaMapeada salida) throws IOException {
+        salida.escribirTexto(archivo.toString());
+        salida.escribirInt(binario ? 1 : 0);
+    }
+
+    static DemandaHistorica leer(EntradaMapeada entrada, int numeroEstaciones) throws IOException {
+        Path archivo = Paths.get(entrada.leerTexto());
+        DemandaHistorica demanda = new DemandaHistorica(archivo, entrada.leerInt() != 0);
+        try {
+            demanda.iniciar(numeroEstaciones, 0);
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        return demanda;
+    }
+
+    /**
+     * Fuente de registros {tick, estación, cantidad}.
+     */
+    private interface Lector extends Closeable {
+        /**
+         * @return false al final del archivo
+         */
+        boolean leer(long[] registro) throws IOException;
+    }
+
+    private static final class LectorCsv implements Lector {
+        private final BufferedReader entrada;
+        private long numeroLinea;
+
+        LectorCsv(Path archivo) throws IOException {
+            this.entrada = Files.newBufferedReader(archivo, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public boolean leer(long[] registro) throws IOException {
+            String linea;
+            while ((linea = entrada.readLine()) != null) {
+                numeroLinea++;
+                linea = linea.trim();
+                if (linea.isEmpty() || linea.charAt(0) == '#') continue;
+                int c1 = linea.indexOf(',');
+                // Encabezado opcional: la primera línea, si su primer campo no es un número
+                if (numeroLinea == 1 && !esNumero(c1 < 0 ? linea : linea.substring(0, c1).trim())) continue;
+                int c2 = c1 < 0 ? -1 : linea.indexOf(',', c1 + 1);
+                if (c2 < 0) throw new IllegalArgumentException("Línea " + numeroLinea + ": se esperaba tick,estacion,cantidad");
+                try {
+                    registro[0] = Long.parseLong(linea.substring(0, c1).trim());
+                    registro[1] = Integer.parseInt(linea.substring(c1 + 1, c2).trim());
+                    registro[2] = Integer.parseInt(linea.substring(c2 + 1).trim());
+                } catch (NumberFormatException ex) {
+                    throw new IllegalArgumentException("Línea " + numeroLinea + ": número inválido", ex);
+                }
+                return true;
+            }
+            return false;
+        }
+
+        private static boolean esNumero(String campo) {
+            try {
+                Long.parseLong(campo);
+                return true;
+            } catch (NumberFormatException ex) {
+                return false;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            entrada.close();
+        }
+    }
+
+    private static final class LectorBinario implements Lector {
+        private final DataInputStream entrada;
+
+        LectorBinario(Path archivo) throws IOException {
+            this.entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(archivo), 1 << 16));
+        }
+
+        @Override
+        public boolean leer(long[] registro) throws IOException {
+            try {
+                registro[0] = entrada.readLong();
+            } catch (EOFException fin) {
+                return false;
+            }
+            registro[1] = entrada.readInt();
+            registro[2] = entrada.readInt();
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            entrada.close();
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package modelo;
+
+import java.io.IOException;
+
+/**
+ * Llegadas de Poisson con tasas por franja horaria y estación (perfil del día).
+ * <p>
+ * El día se divide en franjas de {@code ticksPorFranja} ticks que se repiten cíclicamente.
+ * En cada franja, las estaciones con tasa de al menos {@link #UMBRAL_DENSO} pasajeros por
+ * tick sortean su cantidad de llegadas en cada tick (un sorteo de Poisson). Las demás son
+ * dispersas: se sortea el momento de su próxima llegada y se guardan en una cola de eventos,
+ * así que una estación con poca demanda no cuesta nada en los ticks sin llegadas.
+ * Al cambiar de franja se vuelven a sortear las próximas llegadas con las tasas nuevas
+ * (el proceso de Poisson no tiene memoria, por lo que la distribución no cambia).
+ */
+public class DemandaPoisson implements ModeloDemanda {
+
+    /** Tasa (pasajeros por tick) desde la cual una estación se sortea en cada tick. */
+    public static final double UMBRAL_DENSO = 1.0;
+
+    private final int numeroEstaciones;
+    private final int ticksPorFranja;
+    private final int franjas;
+    private final double[] tasas; // tasas[franja * numeroEstaciones + estacion]
+
+    private long[] flujos;
+    private ColaEventos proximas;   // estaciones dispersas por tiempo de su próxima llegada
+    private int[] cuenta;           // llegadas dispersas de la estación en el tick marcado
+    private long[] marca;           // tick al que corresponde cuenta[estacion]
+    private boolean[] densa;
+    private boolean hayDensas;
+    private int franjaActual = -1;
+    private long tickPreparado = Long.MIN_VALUE;
+
+    /**
+     * @param ticksPorFranja duración de cada franja en ticks (>=1)
+     * @param tasas por franja, la tasa de llegadas de cada estación (pasajeros por tick, >=0)
+     */
+    public DemandaPoisson(int ticksPorFranja, double[][] tasas) {
+        if (ticksPorFranja < 1) throw new IllegalArgumentException("Cada franja debe durar al menos 1 tick");
+        if (tasas == null || tasas.length == 0 || tasas[0] == null) {
+            throw new IllegalArgumentException("Debe haber al menos una franja");
+        }
+        this.ticksPorFranja = ticksPorFranja;
+        this.franjas = tasas.length;
+        this.numeroEstaciones = tasas[0].length;
+        this.tasas = new double[franjas * numeroEstaciones];
+        for (int f = 0; f < franjas; f++) {
+            if (tasas[f] == null || tasas[f].length != numeroEstaciones) {
+                throw new IllegalArgumentException("Todas las franjas deben tener una tasa por estación");
+            }
+            for (int e = 0; e < numeroEstaciones; e++) {
+                double tasa = tasas[f][e];
+                if (!(tasa >= 0) || Double.isInfinite(tasa)) {
+                    throw new IllegalArgumentException("Tasa inválida en la franja " + f + ", estación " + e);
+                }
+                this.tasas[f * numeroEstaciones + e] = tasa;
+            }
+        }
+    }
+
+    /**
+     * Misma tasa en todas las estaciones y a toda hora.
+     */
+    public static DemandaPoisson constante(int numeroEstaciones, double tasa) {
+        return conPerfil(numeroEstaciones, tasa, new double[]{1}, 1);
+    }
+
+    /**
+     * Misma tasa media en todas las estaciones, multiplicada por un factor por franja
+     * (por ejemplo, 24 factores con {@code ticksPorFranja = 3600} para un perfil horario).
+     */
+    public static DemandaPoisson conPerfil(int numeroEstaciones, double tasaMedia, double[] factores, int ticksPorFranja) {
+        double[][] tasas = new double[factores.length][numeroEstaciones];
+        for (int f = 0; f < factores.length; f++) {
+            java.util.Arrays.fill(tasas[f], tasaMedia * factores[f]);
+        }
+        return new DemandaPoisson(ticksPorFranja, tasas);
+    }
+
+    @Override
+    public void iniciar(int numeroEstaciones, long semilla) {
+        if (numeroEstaciones != this.numeroEstaciones) {
+            throw new IllegalArgumentException("El modelo de demanda tiene " + this.numeroEstaciones
+                    + " estaciones y la red " + numeroEstaciones);
+        }
+        flujos = new long[numeroEstaciones];
+        Aleatorio.sembrar(flujos, semilla);
+        proximas = new ColaEventos(numeroEstaciones);
+        cuenta = new int[numeroEstaciones];
+        marca = new long[numeroEstaciones];
+        java.util.Arrays.fill(marca, Long.MIN_VALUE);
+        densa = new boolean[numeroEstaciones];
+        franjaActual = -1;
+        tickPreparado = Long.MIN_VALUE;
+    }
+
+    private double tasa(int franja, int estacion) {
+        return tasas[franja * numeroEstaciones + estacion];
+    }
+
+    @Override
+    public int prepararTick(long tick, int[] activas) {
+        if (flujos == null) throw new IllegalStateException("El modelo de demanda no fue iniciado");
+        int franja = (int) (Math.floorMod(tick, (long) franjas * ticksPorFranja) / ticksPorFranja);
+        if (franja != franjaActual || tick < tickPreparado) {
+            cambiarFranja(franja, tick);
+        }
+        tickPreparado = tick;
+
+        // El tick k cubre el intervalo (k - 1, k]
+        int n = 0;
+        while (!proximas.estaVacia() && proximas.tiempoMinimo() <= tick) {
+            double t = proximas.tiempoMinimo();
+            int e = proximas.extraerMinimo();
+            double tasa = tasa(franja, e);
+            int llegan = 0;
+            while (t <= tick) {
+                llegan++;
+                t += Aleatorio.siguienteExponencial(flujos, e, tasa);
+            }
+            cuenta[e] = llegan;
+            marca[e] = tick;
+            activas[n++] = e;
+            proximas.insertar(t, e);
+        }
+        return hayDensas ? -1 : n;
+    }
+
+    /**
+     * Clasifica las estaciones de la franja en densas y dispersas y sortea la próxima
+     * llegada de las dispersas desde el inicio del tick.
+     */
+    private void cambiarFranja(int franja, long tick) {
+        franjaActual = franja;
+        hayDensas = false;
+        proximas.vaciar();
+        for (int e = 0; e < numeroEstaciones; e++) {
+            double tasa = tasa(franja, e);
+            densa[e] = tasa >= UMBRAL_DENSO;
+            if (densa[e]) {
+                hayDensas = true;
+            } else if (tasa > 0) {
+                proximas.insertar(tick - 1 + Aleatorio.siguienteExponencial(flujos, e, tasa), e);
+            }
+        }
+    }
+
+    @Override
+    public int llegadas(int estacion) {
+        if (marca[estacion] == tickPreparado) return cuenta[estacion];
+        if (densa[estacion]) return Aleatorio.siguientePoisson(flujos, estacion, tasa(franjaActual, estacion));
+        return 0;
+    }
+
+    public int getNumeroEstaciones() {
+        return numeroEstaciones;
+    }
+
+    public int getTicksPorFranja() {
+        return ticksPorFranja;
+    }
+
+    public int getFranjas() {
+        return franjas;
+    }
+
+    /**
+     * Escribe las tasas y el estado de los sorteos (ver {@link PuntoControl}).
+     */
+    void escribir(SalidaMapeada salida) throws IOException {
+        salida.escribirInt(ticksPorFranja);
+        salida.escribirInt(franjas);
+        salida.escribirInt(numeroEstaciones);
+        salida.escribirDoubles(tasas);
+        salida.escribirLongs(flujos);
+        proximas.escribir(salida);
+        salida.escribirInts(cuenta);
+        salida.escribirLongs(marca);
+        salida.escribirInt(franjaActual);
+        salida.escribirLong(tickPreparado);
+    }
+
+    static DemandaPoisson leer(EntradaMapeada entrada, int numeroEstaciones) throws IOException {
+        int ticksPorFranja = entrada.leerInt();
+        int franjas = entrada.leerCantidad(Integer.MAX_VALUE);
+        if (entrada.leerInt() != numeroEstaciones) throw new IOException("La demanda no coincide con la red");
+        double[][] tasas = new double[franjas][numeroEstaciones];
+        for (double[] franja : tasas) {
+            entrada.leerDoubles(franja);
+        }
+        DemandaPoisson demanda;
+        try {
+            demanda = new DemandaPoisson(ticksPorFranja, tasas);
+        } catch (IllegalArgumentException ex) {
+            throw new IOException("Demanda inválida en el archivo: " + ex.getMessage(), ex);
+        }
+        demanda.iniciar(numeroEstaciones, 0);
+        entrada.leerLongs(demanda.flujos);
+        demanda.proximas.leer(entrada);
+        entrada.leerInts(demanda.cuenta);
+        entrada.leerLongs(demanda.marca);
+        demanda.franjaActual = entrada.leerInt();
+        demanda.tickPreparado = entrada.leerLong();
+        if (demanda.franjaActual >= franjas) throw new IOException("Franja inválida en el archivo");
+        if (demanda.franjaActual >= 0) {
+            for (int e = 0; e < numeroEstaciones; e++) {
+                demanda.densa[e] = demanda.tasa(demanda.franjaActual, e) >= UMBRAL_DENSO;
+                demanda.hayDensas |= demanda.densa[e];
+            }
+        }
+        return demanda;
+    }
+}
@@ -0,0 +1,60 @@
+package modelo;
+
+import java.io.IOException;
+
+/**
+ * Demanda por defecto: en cada tick llegan de 0 a {@code maximo} pasajeros a cada estación,
+ * con la misma probabilidad. Es densa: sortea una vez por estación y tick.
+ */
+public class DemandaUniforme implements ModeloDemanda {
+
+    private final int maximo;
+    private long[] flujos;
+
+    /**
+     * @param maximo pasajeros que pueden llegar como máximo por tick y estación (>=0)
+     */
+    public DemandaUniforme(int maximo) {
+        if (maximo < 0) throw new IllegalArgumentException("El máximo de llegadas no puede ser negativo");
+        this.maximo = maximo;
+    }
+
+    @Override
+    public void iniciar(int numeroEstaciones, long semilla) {
+        flujos = new long[numeroEstaciones];
+        Aleatorio.sembrar(flujos, semilla);
+    }
+
+    @Override
+    public int prepararTick(long tick, int[] activas) {
+        return -1;
+    }
+
+    @Override
+    public int llegadas(int estacion) {
+        return Aleatorio.siguienteEntero(flujos, estacion, maximo + 1);
+    }
+
+    public int getMaximo() {
+        return maximo;
+    }
+
+    /**
+     * Flujos por estación, para sortear en bloque con {@link LlegadasEnBloque}.
+     */
+    long[] getFlujos() {
+        return flujos;
+    }
+
+    void escribir(SalidaMapeada salida) throws IOException {
+        salida.escribirInt(maximo);
+        salida.escribirLongs(flujos);
+    }
+
+    static DemandaUniforme leer(EntradaMapeada entrada, int numeroEstaciones) throws IOException {
+        DemandaUniforme demanda = new DemandaUniforme(entrada.leerCantidad(Integer.MAX_VALUE - 1));
+        demanda.flujos = new long[numeroEstaciones];
+        entrada.leerLongs(demanda.flujos);
+        return demanda;
+    }
+}
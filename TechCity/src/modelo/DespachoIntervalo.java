@@ -0,0 +1,203 @@
+package modelo;
+
+import java.util.Arrays;
+
+/**
+ * Control por intervalo entre autobuses de una misma ruta, para evitar que se amontonen.
+ * <p>
+ * La demora por congestión se cobra una sola vez por parada: un autobús cuya siguiente
+ * estación tiene más de {@link DespachoCongestion#UMBRAL} esperando suma un tick de parada
+ * extra, en vez de quedarse quieto mientras siga llena como en {@link DespachoCongestion}.
+ * Así el que va atrasado pierde tiempo en estaciones más llenas y el que lo sigue lo alcanza,
+ * que es lo que corrigen las acciones de control ({@link #sinControl()} deja solo la demora).
+ * <p>
+ * El intervalo objetivo de cada ruta arranca en su longitud dividida por la cantidad de
+ * autobuses que la recorren (un autobús avanza una parada por tick) y se ajusta con un promedio
+ * móvil exponencial de los intervalos observados, para seguir la velocidad real de la ruta
+ * cuando las demoras la frenan. Cada vez que un autobús llega a una
+ * parada se compara el tiempo desde la llegada anterior de su ruta a esa parada (el intervalo
+ * con el autobús de adelante) con el objetivo, y según las acciones habilitadas:
+ * <ul>
+ * <li><b>Retención</b>: si el intervalo es menor que {@code umbral × objetivo}, el autobús
+ * espera en la parada lo que falta para llegar a ese valor.</li>
+ * <li><b>Salto de parada</b>: si el intervalo es mayor que {@code (2 - umbral) × objetivo}
+ * (va atrasado), su siguiente estación tiene más de {@link DespachoCongestion#UMBRAL} esperando
+ * y nadie a bordo baja en ella, pasa de largo por esa parada: no sube pasajeros ni sufre la
+ * demora por congestión, y esos pasajeros quedan para el autobús de atrás.</li>
+ * <li><b>Retorno corto</b>: si el intervalo es menor que {@code (1 - umbral) × objetivo} y el
+ * autobús va vacío, se reubica hacia atrás en la ruta, a mitad del hueco que lo separa del
+ * autobús que lo sigue, cuando ese hueco es mayor que el objetivo.</li>
+ * </ul>
+ * Los intervalos salen de la última llegada por parada de ruta y del contador de paradas
+ * avanzadas de cada autobús, así que cada tick cuesta O(autobuses) sin recorrer las rutas
+ * (el retorno corto revisa hacia atrás solo cuando se aplica). Se aplica a toda la flota en
+ * orden de id, en un solo hilo.
+ */
+public final class DespachoIntervalo implements PoliticaDespacho {
+
+    /** Peso de cada intervalo observado en el promedio móvil del objetivo. */
+    static final double PESO_OBJETIVO = 0.02;
+
+    private final double umbral;
+    private final boolean retener;
+    private final boolean saltar;
+    private final boolean retornar;
+
+    private RedTransporte red;
+    private double[] objetivo;      // por ruta: intervalo objetivo en ticks
+    private long[] ultimaLlegada;   // por parada de ruta: tick de la última llegada, o -1
+    private int[] recorridoVisto;   // por autobús: paradas avanzadas en la revisión anterior
+    private int[] recorridoDemorado; // por autobús: paradas avanzadas cuando pagó la última demora
+
+    /**
+     * @param umbral fracción del intervalo objetivo, entre 0 y 1 (por ejemplo 0.8)
+     * @param retener retener autobuses demasiado cerca del de adelante
+     * @param saltar saltar paradas con autobuses atrasados
+     * @param retornar reubicar autobuses vacíos amontonados
+     */
+    public DespachoIntervalo(double umbral, boolean retener, boolean saltar, boolean retornar) {
+        if (!(umbral > 0 && umbral < 1)) throw new IllegalArgumentException("El umbral debe estar entre 0 y 1");
+        this.umbral = umbral;
+        this.retener = retener;
+        this.saltar = saltar;
+        this.retornar = retornar;
+    }
+
+    /**
+     * Solo la demora por congestión una vez por parada, sin acciones de control: la base para
+     * comparar las demás variantes.
+     */
+    public static DespachoIntervalo sinControl() {
+        return new DespachoIntervalo(0.5, false, false, false);
+    }
+
+    public static DespachoIntervalo retencion(double umbral) {
+        return new DespachoIntervalo(umbral, true, false, false);
+    }
+
+    public static DespachoIntervalo saltoParadas(double umbral) {
+        return new DespachoIntervalo(umbral, false, true, false);
+    }
+
+    public static DespachoIntervalo retornoCorto(double umbral) {
+        return new DespachoIntervalo(umbral, false, false, true);
+    }
+
+    /**
+     * Retención, salto de parada y retorno corto juntos.
+     */
+    public static DespachoIntervalo completo(double umbral) {
+        return new DespachoIntervalo(umbral, true, true, true);
+    }
+
+    @Override
+    public void iniciar(EstadoRed estado) {
+        red = estado.getRed();
+        if (red == null) throw new IllegalArgumentException("El estado debe tener una red de rutas");
+        int[] porRuta = new int[red.getNumeroRutas()];
+        for (int b = 0; b < estado.getNumeroAutobuses(); b++) {
+            porRuta[estado.ruta[b]]++;
+        }
+        objetivo = new double[porRuta.length];
+        for (int r = 0; r < porRuta.length; r++) {
+            objetivo[r] = porRuta[r] == 0 ? 0 : (double) red.getLongitudRuta(r) / porRuta[r];
+        }
+        ultimaLlegada = new long[red.getNumeroParadas()];
+        Arrays.fill(ultimaLlegada, -1);
+        recorridoVisto = estado.recorrido.clone();
+        recorridoDemorado = new int[recorridoVisto.length];
+        Arrays.fill(recorridoDemorado, -1);
+    }
+
+    @Override
+    public int aplicar(EstadoRed estado, long tick, int desde, int hasta) {
+        final int[] recorrido = estado.recorrido;
+        final int[] ruta = estado.ruta;
+        final long llegada = tick - 1; // las llegadas que se ven ahora ocurrieron en el tick anterior
+        int agregados = 0;
+        for (int b = desde; b < hasta; b++) {
+            if (recorrido[b] != recorridoVisto[b]) {
+                // Llegó a una parada nueva
+                recorridoVisto[b] = recorrido[b];
+                agregados += controlarIntervalo(estado, b, ruta[b], llegada);
+            }
+            if (recorridoDemorado[b] != recorrido[b] && !estado.isOmitiendoParada(b)
+                    && DespachoCongestion.siguienteCongestionada(estado, red, b)) {
+                recorridoDemorado[b] = recorrido[b];
+                estado.retrasar(b, 1);
+                agregados++;
+            }
+        }
+        return agregados;
+    }
+
+    /**
+     * Registra la llegada del autobús a su parada y decide según el intervalo con el de adelante.
+     * @return ticks de retención agregados
+     */
+    private int controlarIntervalo(EstadoRed estado, int bus, int r, long llegada) {
+        int parada = red.getIndiceParada(r, estado.posicion[bus]);
+        long anterior = ultimaLlegada[parada];
+        ultimaLlegada[parada] = llegada;
+        if (anterior < 0) return 0;
+
+        double intervalo = llegada - anterior;
+        double meta = objetivo[r];
+        objetivo[r] = meta + PESO_OBJETIVO * (intervalo - meta);
+        if (retornar && intervalo < (1 - umbral) * meta && estado.pasajerosAutobus[bus] == 0
+                && retornoCorto(estado, bus, r, llegada, meta)) {
+            return 0;
+        }
+        if (retener && intervalo < umbral * meta) {
+            int espera = (int) Math.ceil(umbral * meta - intervalo);
+            estado.retrasar(bus, espera);
+            return espera;
+        }
+        if (saltar && intervalo > (2 - umbral) * meta && estado.getBajanEnSiguienteParada(bus) == 0
+                && DespachoCongestion.siguienteCongestionada(estado, red, bus)) {
+            estado.omitirSiguienteParada(bus);
+        }
+        return 0;
+    }
+
+    /**
+     * Busca hacia atrás el autobús que sigue (la primera parada visitada después de que pasó
+     * este) y, si el hueco supera el objetivo, reubica el autobús a mitad del hueco.
+     * @return true si lo reubicó
+     */
+    private boolean retornoCorto(EstadoRed estado, int bus, int r, long llegada, double meta) {
+        int longitud = red.getLongitudRuta(r);
+        int posicion = estado.posicion[bus];
+        int hueco = longitud;
+        for (int d = 1; d < longitud; d++) {
+            int q = posicion - d < 0 ? posicion - d + longitud : posicion - d;
+            long ultima = ultimaLlegada[red.getIndiceParada(r, q)];
+            // Este autobús pasó por q hace al menos d ticks: una llegada más reciente es del que sigue
+            if (ultima >= 0 && llegada - ultima < d) {
+                hueco = d;
+                break;
+            }
+        }
+        if (hueco <= meta || hueco / 2 < 1) return false;
+        int destino = posicion - hueco / 2;
+        if (destino < 0) destino += longitud;
+        estado.colocarAutobus(bus, destino);
+        ultimaLlegada[red.getIndiceParada(r, destino)] = llegada;
+        return true;
+    }
+
+    @Override
+    public boolean isPorAutobus() {
+        return false;
+    }
+
+    @Override
+    public String getNombre() {
+        if (!retener && !saltar && !retornar) return "sin-control";
+        StringBuilder nombre = new StringBuilder("intervalo");
+        if (retener) nombre.append("+retencion");
+        if (saltar) nombre.append("+salto");
+        if (retornar) nombre.append("+retorno");
+        return nombre.toString();
+    }
+}
@@ -0,0 +1,71 @@
+package modelo;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Reparte un rango de índices [0, n) entre los hilos de un {@link ForkJoinPool}.
+ * Los rangos se dividen por la mitad hasta un tamaño mínimo, y el robo de trabajo
+ * equilibra la carga cuando unos tramos cuestan más que otros.
+ */
+final class EjecutorParalelo {
+
+    /**
+     * Trabajo sobre un tramo contiguo de índices.
+     */
+    interface TareaRango {
+        void ejecutar(int desde, int hasta);
+    }
+
+    private static final int TRAMO_MINIMO = 1024;
+
+    private final ForkJoinPool pool;
+
+    EjecutorParalelo(int hilos) {
+        this.pool = new ForkJoinPool(hilos);
+    }
+
+    /**
+     * Ejecuta la tarea sobre [0, n) y espera a que terminen todos los tramos.
+     */
+    void ejecutar(int n, TareaRango tarea) {
+        int tramo = Math.max(TRAMO_MINIMO, n / (pool.getParallelism() * 8));
+        if (n <= tramo) {
+            tarea.ejecutar(0, n);
+        } else {
+            pool.invoke(new Division(tarea, 0, n, tramo));
+        }
+    }
+
+    int getHilos() {
+        return pool.getParallelism();
+    }
+
+    void cerrar() {
+        pool.shutdown();
+    }
+
+    private static final class Division extends RecursiveAction {
+        private final TareaRango tarea;
+        private final int desde;
+        private final int hasta;
+        private final int tramo;
+
+        Division(TareaRango tarea, int desde, int hasta, int tramo) {
+            this.tarea = tarea;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.tramo = tramo;
+        }
+
+        @Override
+        protected void compute() {
+            if (hasta - desde <= tramo) {
+                tarea.ejecutar(desde, hasta);
+                return;
+            }
+            int medio = (desde + hasta) >>> 1;
+            invokeAll(new Division(tarea, desde, medio, tramo), new Division(tarea, medio, hasta, tramo));
+        }
+    }
+}
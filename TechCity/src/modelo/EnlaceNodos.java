@@ -0,0 +1,180 @@
+package modelo;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Conexiones TCP por loopback entre todos los nodos de una simulación particionada (una malla).
+ * <p>
+ * Cada mensaje es una trama: su largo en bytes y luego el contenido. Un hilo por vecino lee
+ * las tramas y las deja en una cola, así que {@link #enviar(int, ByteBuffer)} nunca queda
+ * bloqueado porque el otro nodo también esté enviando. Las tramas de un mismo vecino llegan
+ * en el orden en que se enviaron.
+ */
+final class EnlaceNodos implements Closeable {
+
+    /** Tramas recibidas que se pueden acumular por vecino antes de frenar su lectura. */
+    private static final int TRAMAS_EN_ESPERA = 4;
+    private static final byte[] FIN = new byte[0];
+
+    private final int indice;
+    private final Socket[] sockets;
+    private final DataOutputStream[] salidas;
+    private final BlockingQueue<byte[]>[] recibidas;
+
+    private EnlaceNodos(int indice, int nodos) {
+        this.indice = indice;
+        this.sockets = new Socket[nodos];
+        this.salidas = new DataOutputStream[nodos];
+        @SuppressWarnings({"unchecked", "rawtypes"}) // no hay arreglos de tipos genéricos
+        BlockingQueue<byte[]>[] colas = new BlockingQueue[nodos];
+        this.recibidas = colas;
+    }
+
+    /**
+     * Conecta este nodo con los demás: escucha en {@code puertos[indice]}, se conecta a los
+     * nodos de índice menor y acepta a los de índice mayor.
+     * @param esperaMs tiempo máximo para que los demás nodos aparezcan
+     */
+    static EnlaceNodos conectar(int indice, int[] puertos, int esperaMs) throws IOException {
+        int nodos = puertos.length;
+        EnlaceNodos enlace = new EnlaceNodos(indice, nodos);
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        long limite = System.currentTimeMillis() + esperaMs;
+        try (ServerSocket servidor = new ServerSocket(puertos[indice], nodos, loopback)) {
+            for (int j = 0; j < indice; j++) {
+                Socket s = conectarConReintentos(new InetSocketAddress(loopback, puertos[j]), limite);
+                new DataOutputStream(s.getOutputStream()).writeInt(indice);
+                enlace.agregar(j, s);
+            }
+            for (int k = indice + 1; k < nodos; k++) {
+                servidor.setSoTimeout((int) Math.max(1, limite - System.currentTimeMillis()));
+                Socket s = servidor.accept();
+                int j = new DataInputStream(s.getInputStream()).readInt();
+                if (j <= indice || j >= nodos || enlace.sockets[j] != null) {
+                    s.close();
+                    throw new IOException("Nodo inesperado en la conexión: " + j);
+                }
+                enlace.agregar(j, s);
+            }
+        } catch (IOException ex) {
+            enlace.close();
+            throw ex;
+        }
+        return enlace;
+    }
+
+    private static Socket conectarConReintentos(InetSocketAddress direccion, long limite) throws IOException {
+        while (true) {
+            Socket s = new Socket();
+            try {
+                s.connect(direccion, (int) Math.max(1, limite - System.currentTimeMillis()));
+                return s;
+            } catch (ConnectException ex) {
+                s.close();
+                // El otro nodo todavía no abrió su puerto
+                if (System.currentTimeMillis() >= limite) throw ex;
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Conexión interrumpida", ie);
+                }
+            }
+        }
+    }
+
+    private void agregar(int j, Socket s) throws IOException {
+        s.setTcpNoDelay(true);
+        sockets[j] = s;
+        salidas[j] = new DataOutputStream(new BufferedOutputStream(s.getOutputStream(), 1 << 16));
+        BlockingQueue<byte[]> cola = new ArrayBlockingQueue<>(TRAMAS_EN_ESPERA);
+        recibidas[j] = cola;
+        DataInputStream entrada = new DataInputStream(new BufferedInputStream(s.getInputStream(), 1 << 16));
+        Thread lector = new Thread(() -> leer(entrada, cola), "TechCity-Enlace-" + indice + "-" + j);
+        lector.setDaemon(true);
+        lector.start();
+    }
+
+    private static void leer(DataInputStream entrada, BlockingQueue<byte[]> cola) {
+        try {
+            while (true) {
+                int largo = entrada.readInt();
+                if (largo < 0) break;
+                byte[] trama = new byte[largo];
+                entrada.readFully(trama);
+                cola.put(trama);
+            }
+        } catch (EOFException | InterruptedException ex) {
+            // Fin normal: el otro nodo cerró o se cerró este enlace
+        } catch (IOException ex) {
+            // Conexión cortada: recibir() lo informa
+        }
+        try {
+            cola.put(FIN);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Envía los bytes entre la posición y el límite de la trama.
+     */
+    void enviar(int nodo, ByteBuffer trama) throws IOException {
+        DataOutputStream salida = salidas[nodo];
+        salida.writeInt(trama.remaining());
+        salida.write(trama.array(), trama.arrayOffset() + trama.position(), trama.remaining());
+        salida.flush();
+    }
+
+    /**
+     * Espera la próxima trama del nodo.
+     * @throws IOException si el nodo cerró la conexión
+     */
+    ByteBuffer recibir(int nodo) throws IOException {
+        byte[] trama;
+        try {
+            trama = recibidas[nodo].take();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Recepción interrumpida", ex);
+        }
+        if (trama == FIN) {
+            recibidas[nodo].offer(FIN); // las próximas llamadas fallan igual
+            throw new IOException("El nodo " + nodo + " cerró la conexión");
+        }
+        return ByteBuffer.wrap(trama).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    int getNumeroNodos() {
+        return sockets.length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException primera = null;
+        for (int j = 0; j < sockets.length; j++) {
+            if (sockets[j] == null) continue;
+            try {
+                sockets[j].close();
+            } catch (IOException ex) {
+                if (primera == null) primera = ex;
+            }
+        }
+        if (primera != null) throw primera;
+    }
+}
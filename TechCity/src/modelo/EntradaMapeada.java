@@ -0,0 +1,136 @@
+package modelo;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lectura secuencial de lo escrito con {@link SalidaMapeada}: mapea el archivo en modo
+ * solo lectura por ventanas y copia los arreglos en bloque.
+ */
+final class EntradaMapeada {
+
+    private final FileChannel canal;
+    private final long tamano;
+    private MappedByteBuffer ventana;
+    private long posicion;
+
+    EntradaMapeada(FileChannel canal) throws IOException {
+        this(canal, 0);
+    }
+
+    /**
+     * @param posicion byte del archivo desde el que se empieza a leer
+     */
+    EntradaMapeada(FileChannel canal, long posicion) throws IOException {
+        this.canal = canal;
+        this.tamano = canal.size();
+        this.posicion = posicion;
+    }
+
+    long getPosicion() {
+        return posicion;
+    }
+
+    long getTamano() {
+        return tamano;
+    }
+
+    /**
+     * Garantiza que la ventana actual tenga {@code bytes} bytes por leer.
+     */
+    private void asegurar(int bytes) throws IOException {
+        if (ventana != null && ventana.remaining() >= bytes) return;
+        if (posicion + bytes > tamano) throw new IOException("El archivo está truncado");
+        ventana = canal.map(FileChannel.MapMode.READ_ONLY, posicion, Math.min(SalidaMapeada.VENTANA, tamano - posicion));
+        ventana.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    int leerInt() throws IOException {
+        asegurar(4);
+        posicion += 4;
+        return ventana.getInt();
+    }
+
+    long leerLong() throws IOException {
+        asegurar(8);
+        posicion += 8;
+        return ventana.getLong();
+    }
+
+    double leerDouble() throws IOException {
+        asegurar(8);
+        posicion += 8;
+        return ventana.getDouble();
+    }
+
+    void leerInts(int[] destino, int desde, int cantidad) throws IOException {
+        while (cantidad > 0) {
+            asegurar(4);
+            int n = Math.min(cantidad, ventana.remaining() / 4);
+            ventana.asIntBuffer().get(destino, desde, n);
+            ventana.position(ventana.position() + n * 4);
+            desde += n;
+            cantidad -= n;
+            posicion += 4L * n;
+        }
+    }
+
+    void leerLongs(long[] destino, int desde, int cantidad) throws IOException {
+        while (cantidad > 0) {
+            asegurar(8);
+            int n = Math.min(cantidad, ventana.remaining() / 8);
+            ventana.asLongBuffer().get(destino, desde, n);
+            ventana.position(ventana.position() + n * 8);
+            desde += n;
+            cantidad -= n;
+            posicion += 8L * n;
+        }
+    }
+
+    void leerDoubles(double[] destino, int desde, int cantidad) throws IOException {
+        while (cantidad > 0) {
+            asegurar(8);
+            int n = Math.min(cantidad, ventana.remaining() / 8);
+            ventana.asDoubleBuffer().get(destino, desde, n);
+            ventana.position(ventana.position() + n * 8);
+            desde += n;
+            cantidad -= n;
+            posicion += 8L * n;
+        }
+    }
+
+    void leerInts(int[] destino) throws IOException {
+        leerInts(destino, 0, destino.length);
+    }
+
+    void leerLongs(long[] destino) throws IOException {
+        leerLongs(destino, 0, destino.length);
+    }
+
+    void leerDoubles(double[] destino) throws IOException {
+        leerDoubles(destino, 0, destino.length);
+    }
+
+    /**
+     * Lee una cantidad escrita con {@code escribirInt} y verifica que esté en [0, maximo].
+     */
+    int leerCantidad(int maximo) throws IOException {
+        int n = leerInt();
+        if (n < 0 || n > maximo) throw new IOException("Cantidad fuera de rango en el archivo: " + n);
+        return n;
+    }
+
+    String leerTexto() throws IOException {
+        int n = leerCantidad(1 << 20);
+        byte[] bytes = new byte[n];
+        for (int i = 0; i < n; i++) {
+            asegurar(1);
+            bytes[i] = ventana.get();
+            posicion++;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -3,13 +3,16 @@ package modelo;
 /**
  * Representa una estación dentro de la red de transporte.
  * Mantiene un conteo de pasajeros esperando.
+ * <p>
+ * Es una vista sobre un {@link EstadoRed}: el conteo vive en el arreglo del almacén.
  *
  * @author
  */
 public class Estacion {
     private final int id;
     private String nombre;
-    private int pasajerosEsperando;
+    private final EstadoRed estado;
+    private final int indice;
 
     /**
      * Constructor.
@@ -17,9 +20,17 @@ public class Estacion {
      * @param nombre Nombre de la estación
      */
     public Estacion(int id, String nombre) {
+        this(id, nombre, new EstadoRed(1, 0), 0);
+    }
+
+    /**
+     * Crea una vista sobre la estación {@code indice} de un almacén existente.
+     */
+    Estacion(int id, String nombre, EstadoRed estado, int indice) {
         this.id = id;
         this.nombre = nombre;
-        this.pasajerosEsperando = 0;
+        this.estado = estado;
+        this.indice = indice;
     }
 
     /**
@@ -27,8 +38,7 @@ public class Estacion {
      * @param cantidad cantidad de pasajeros a agregar (>=0)
      */
     public void agregarPasajeros(int cantidad) {
-        if (cantidad < 0) return;
-        this.pasajerosEsperando += cantidad;
+        estado.agregarPasajeros(indice, cantidad);
     }
 
     /**
@@ -37,10 +47,7 @@ public class Estacion {
      * @return cantidad realmente retirada
      */
     public int retirarPasajeros(int cantidad) {
-        if (cantidad <= 0) return 0;
-        int retirados = Math.min(cantidad, this.pasajerosEsperando);
-        this.pasajerosEsperando -= retirados;
-        return retirados;
+        return estado.retirarPasajeros(indice, cantidad);
     }
 
     public int getId() {
@@ -52,7 +59,14 @@ public class Estacion {
     }
 
     public int getPasajerosEsperando() {
-        return pasajerosEsperando;
+        return estado.getPasajerosEsperando(indice);
+    }
+
+    /**
+     * @return cantidad de autobuses presentes en la estación (O(1), sin recorrer la flota)
+     */
+    public int getCantidadAutobuses() {
+        return estado.getCantidadAutobuses(indice);
     }
 
     public void setNombre(String nombre) {
@@ -60,7 +74,7 @@ public class Estacion {
     }
 
     public void setPasajerosEsperando(int pasajerosEsperando) {
-        this.pasajerosEsperando = Math.max(0, pasajerosEsperando);
+        estado.setPasajerosEsperando(indice, pasajerosEsperando);
     }
 
     @Override
@@ -68,7 +82,7 @@ public class Estacion {
         return "Estacion{" +
                 "id=" + id +
                 ", nombre='" + nombre + '\'' +
-                ", pasajerosEsperando=" + pasajerosEsperando +
+                ", pasajerosEsperando=" + getPasajerosEsperando() +
                 '}';
     }
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package modelo;
+
+import java.util.Arrays;
+
+/**
+ * Media, varianza y máximo de varias series a la vez con el método de Welford: cada
+ * observación cuesta O(1) y no se guarda el historial. Los datos van en arreglos primitivos,
+ * una posición por serie (por ejemplo, una por estación).
+ * No es seguro para hilos.
+ */
+final class EstadisticasEnLinea {
+
+    private final long[] cantidad;
+    private final double[] media;
+    private final double[] m2;      // suma de cuadrados de las diferencias con la media
+    private final double[] maximo;
+
+    EstadisticasEnLinea(int series) {
+        this.cantidad = new long[series];
+        this.media = new double[series];
+        this.m2 = new double[series];
+        this.maximo = new double[series];
+        Arrays.fill(maximo, Double.NEGATIVE_INFINITY);
+    }
+
+    void registrar(int serie, double valor) {
+        long n = ++cantidad[serie];
+        double delta = valor - media[serie];
+        media[serie] += delta / n;
+        m2[serie] += delta * (valor - media[serie]);
+        if (valor > maximo[serie]) maximo[serie] = valor;
+    }
+
+    int getSeries() {
+        return cantidad.length;
+    }
+
+    long getCantidad(int serie) {
+        return cantidad[serie];
+    }
+
+    double getMedia(int serie) {
+        return media[serie];
+    }
+
+    /**
+     * @return varianza poblacional, o 0 con menos de dos observaciones
+     */
+    double getVarianza(int serie) {
+        long n = cantidad[serie];
+        return n < 2 ? 0 : m2[serie] / n;
+    }
+
+    double getDesviacion(int serie) {
+        return Math.sqrt(getVarianza(serie));
+    }
+
+    /**
+     * @return desviación sobre media, o 0 si la media es 0
+     */
+    double getCoeficienteVariacion(int serie) {
+        double m = media[serie];
+        return m == 0 ? 0 : getDesviacion(serie) / m;
+    }
+
+    /**
+     * @return máximo observado, o 0 sin observaciones
+     */
+    double getMaximo(int serie) {
+        return cantidad[serie] == 0 ? 0 : maximo[serie];
+    }
+
+    void reiniciar() {
+        Arrays.fill(cantidad, 0);
+        Arrays.fill(media, 0);
+        Arrays.fill(m2, 0);
+        Arrays.fill(maximo, Double.NEGATIVE_INFINITY);
+    }
+}
@@ -0,0 +1,851 @@
+package modelo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Almacén del estado de la red en arreglos primitivos (estructura de arreglos).
+ * Cada estación y cada autobús es un índice; sus datos viven en arreglos {@code int[]}
+ * contiguos, lo que evita un objeto por entidad y recorre la memoria de forma secuencial.
+ * <p>
+ * {@link Estacion} y {@link Autobus} son vistas ligeras sobre este almacén, de modo que
+ * la interfaz sigue usando la misma API mientras el bucle del simulador trabaja por índice.
+ * <p>
+ * Cada autobús recorre una ruta de una {@link RedTransporte}; su posición es el índice
+ * dentro de esa ruta y la estación se obtiene de las paradas de la ruta.
+ * <p>
+ * También mantiene un índice de qué autobuses hay en cada estación: una lista doblemente
+ * enlazada por estación sobre arreglos {@code int[]}, que se actualiza en O(1) cuando un
+ * autobús se mueve y permite consultar la ocupación sin recorrer la flota.
+ * <p>
+ * Los pasajeros tienen origen y destino: al llegar a una estación eligen una de las rutas
+ * que pasan por ella y cuántas paradas viajarán (1 a {@link #VIAJE_MAXIMO} - 1), y esperan en
+ * la cola FIFO de esa parada de ruta ({@link ColasEspera}). A bordo se agrupan por autobús
+ * en cubetas según la parada en que bajan, de modo que la bajada es exacta y cuesta O(1);
+ * cada cubeta guarda también la suma de los ticks de subida, con lo que se acumulan los
+ * tiempos de espera y de viaje exactos sin guardar un registro por pasajero.
+ */
+public class EstadoRed {
+
+    /** Cubetas de destino por autobús (potencia de 2): un viaje dura a lo sumo VIAJE_MAXIMO - 1 paradas. */
+    public static final int VIAJE_MAXIMO = 16;
+    private static final int MASCARA_VIAJE = VIAJE_MAXIMO - 1;
+
+    private final int numeroEstaciones;
+    private final int numeroAutobuses;
+
+    private final long semilla;
+    private final RedTransporte red; // null en almacenes sin estaciones (vistas sueltas)
+    private final int[] idAutobus;   // id en la red completa de cada autobús, creciente (null: el índice es el id)
+    int tick; // tick en curso, para medir esperas (lo avanza el simulador)
+
+    // Por estación
+    final int[] pasajerosEsperando;
+    final long[] rngEstacion; // un flujo aleatorio por estación (ver Aleatorio)
+    final long[] abordajes;        // pasajeros que subieron en la estación
+    final long[] esperaAcumulada;  // suma de ticks esperados por esos pasajeros
+    final long[] congestionadas;   // un bit por estación: más de DespachoCongestion.UMBRAL esperando (ver LlegadasEnBloque)
+    boolean congestionVigente;     // true si congestionadas refleja los conteos actuales (solo durante el despacho)
+
+    // Por parada de ruta: pasajeros esperando con su destino
+    private final ColasEspera colas;
+
+    // Por autobús
+    final int[] capacidad;
+    final int[] pasajerosAutobus;
+    final int[] ruta;      // ruta de la red que recorre el autobús
+    final int[] posicion;  // índice en la ruta del autobús
+    final int[] retraso;   // ticks de espera pendientes
+    final long[] rngAutobus; // un flujo aleatorio por autobús (ver Aleatorio)
+    final int[] recorrido;   // paradas avanzadas (contador cíclico que indexa las cubetas)
+    final int[] aBordo;      // por autobús, VIAJE_MAXIMO cubetas: pasajeros que bajan en cada parada próxima
+    final long[] sumaSubida; // por cubeta: suma de los ticks de subida
+    final long[] viajesCompletados;
+    final long[] tiempoViaje; // suma de la duración de los viajes completados
+    final byte[] omitirParada; // 1 si pasa de largo por su próxima parada (política de despacho; no se guarda)
+    final int[] ultimoAvance;  // tick de su último avance, -1 si no avanzó (para animar la vista; no se guarda)
+
+    // Índice estación -> autobuses presentes (listas enlazadas por índice, -1 = ninguno)
+    final int[] primerAutobus;      // por estación: primer autobús de su lista
+    final int[] conteoAutobuses;    // por estación: autobuses presentes
+    final int[] siguienteAutobus;   // por autobús: siguiente en la lista de su estación
+    final int[] anteriorAutobus;    // por autobús: anterior en la lista de su estación
+    final int[] estacionRegistrada; // por autobús: estación en cuya lista está (-1 = fuera de la red)
+
+    // Vistas creadas bajo demanda (carrera benigna: dos vistas del mismo índice son equivalentes)
+    private Estacion[] vistasEstaciones;
+    private Autobus[] vistasAutobuses;
+    private List<Estacion>[] vistasRutas;
+
+    /**
+     * Crea un almacén con todos los contadores en cero y una semilla aleatoria.
+     * @param numeroEstaciones cantidad de estaciones (>=0)
+     * @param numeroAutobuses cantidad de autobuses (>=0)
+     */
+    public EstadoRed(int numeroEstaciones, int numeroAutobuses) {
+        this(numeroEstaciones, numeroAutobuses, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Crea un almacén con todos los contadores en cero, con una única ruta circular que pasa
+     * por todas las estaciones en orden de índice.
+     * Los flujos aleatorios de cada estación y autobús se derivan de {@code semilla}.
+     * @param numeroEstaciones cantidad de estaciones (>=0)
+     * @param numeroAutobuses cantidad de autobuses (>=0)
+     * @param semilla semilla global de la corrida
+     */
+    public EstadoRed(int numeroEstaciones, int numeroAutobuses, long semilla) {
+        this(numeroEstaciones, numeroEstaciones > 0 ? RedTransporte.circular(numeroEstaciones) : null,
+                numeroAutobuses, semilla, 0, null);
+    }
+
+    /**
+     * Crea un almacén sobre una red de varias rutas. Todos los autobuses empiezan en la
+     * posición 0 de la ruta 0; se asignan con {@link #asignarRuta(int, int, int)}.
+     * @param red red de estaciones y rutas
+     * @param numeroAutobuses cantidad de autobuses (>=0)
+     * @param semilla semilla global de la corrida
+     */
+    public EstadoRed(RedTransporte red, int numeroAutobuses, long semilla) {
+        this(red.getNumeroEstaciones(), red, numeroAutobuses, semilla, 0, null);
+    }
+
+    /**
+     * Crea el almacén de una parte de la red (ver {@link NodoParticion}): la estación
+     * {@code i} de {@code red} es la {@code primeraEstacion + i} de la red completa y el
+     * autobús {@code b} es el {@code idAutobus[b]}. Los flujos aleatorios se siembran con
+     * esos índices, así que coinciden con los del almacén de la red completa, y los
+     * traspasos escriben y leen el id.
+     * @param idAutobus ids de los autobuses reservados, en orden creciente
+     */
+    EstadoRed(RedTransporte red, long semilla, int primeraEstacion, int[] idAutobus) {
+        this(red.getNumeroEstaciones(), red, idAutobus.length, semilla, primeraEstacion, idAutobus);
+    }
+
+    private EstadoRed(int numeroEstaciones, RedTransporte red, int numeroAutobuses, long semilla,
+                      int primeraEstacion, int[] idAutobus) {
+        if (numeroEstaciones < 0 || numeroAutobuses < 0) {
+            throw new IllegalArgumentException("Las cantidades no pueden ser negativas");
+        }
+        this.red = red;
+        this.numeroEstaciones = numeroEstaciones;
+        this.numeroAutobuses = numeroAutobuses;
+        this.semilla = semilla;
+        this.idAutobus = idAutobus;
+        this.pasajerosEsperando = new int[numeroEstaciones];
+        this.rngEstacion = new long[numeroEstaciones];
+        this.abordajes = new long[numeroEstaciones];
+        this.esperaAcumulada = new long[numeroEstaciones];
+        this.congestionadas = new long[(numeroEstaciones + 63) >>> 6];
+        this.colas = new ColasEspera(red != null ? red.getNumeroParadas() : 0);
+        this.capacidad = new int[numeroAutobuses];
+        this.pasajerosAutobus = new int[numeroAutobuses];
+        this.ruta = new int[numeroAutobuses];
+        this.posicion = new int[numeroAutobuses];
+        this.retraso = new int[numeroAutobuses];
+        this.rngAutobus = new long[numeroAutobuses];
+        this.recorrido = new int[numeroAutobuses];
+        this.aBordo = new int[numeroAutobuses * VIAJE_MAXIMO];
+        this.sumaSubida = new long[numeroAutobuses * VIAJE_MAXIMO];
+        this.viajesCompletados = new long[numeroAutobuses];
+        this.tiempoViaje = new long[numeroAutobuses];
+        this.omitirParada = new byte[numeroAutobuses];
+        this.ultimoAvance = new int[numeroAutobuses];
+        Arrays.fill(ultimoAvance, -1);
+        long semillaEstaciones = Aleatorio.derivar(semilla, Aleatorio.DOMINIO_ESTACIONES);
+        for (int e = 0; e < numeroEstaciones; e++) {
+            rngEstacion[e] = Aleatorio.flujo(semillaEstaciones, primeraEstacion + e);
+        }
+        long semillaAutobuses = Aleatorio.derivar(semilla, Aleatorio.DOMINIO_AUTOBUSES);
+        for (int b = 0; b < numeroAutobuses; b++) {
+            rngAutobus[b] = Aleatorio.flujo(semillaAutobuses, idAutobus != null ? idAutobus[b] : b);
+        }
+
+        this.primerAutobus = new int[numeroEstaciones];
+        this.conteoAutobuses = new int[numeroEstaciones];
+        this.siguienteAutobus = new int[numeroAutobuses];
+        this.anteriorAutobus = new int[numeroAutobuses];
+        this.estacionRegistrada = new int[numeroAutobuses];
+        Arrays.fill(primerAutobus, -1);
+        Arrays.fill(estacionRegistrada, -1);
+        for (int b = 0; b < numeroAutobuses; b++) {
+            reubicarAutobus(b); // todos empiezan en la posición 0
+        }
+    }
+
+    // ---- Estaciones ----
+
+    /**
+     * Agrega pasajeros a una estación, cada uno con una ruta y un destino al azar.
+     * Una estación por la que no pasa ninguna ruta no acumula pasajeros.
+     * @param estacion índice de la estación
+     * @param cantidad cantidad a agregar (>=0)
+     */
+    public void agregarPasajeros(int estacion, int cantidad) {
+        if (cantidad <= 0) return;
+        encolarLlegadas(estacion, cantidad);
+    }
+
+    /**
+     * Retira pasajeros de una estación (sin quedar negativo), empezando por los que llegaron
+     * primero a cada parada. Los retirados abandonan la red sin viajar.
+     * @return cantidad realmente retirada
+     */
+    public int retirarPasajeros(int estacion, int cantidad) {
+        if (cantidad <= 0 || red == null) return 0;
+        int retirados = 0;
+        for (int k = 0, n = red.getCantidadApariciones(estacion); k < n && retirados < cantidad; k++) {
+            int parada = red.getIndiceParada(red.getRutaAparicion(estacion, k), red.getPosicionAparicion(estacion, k));
+            while (retirados < cantidad && colas.tamano(parada) > 0) {
+                colas.desencolar(parada);
+                retirados++;
+            }
+        }
+        pasajerosEsperando[estacion] -= retirados;
+        return retirados;
+    }
+
+    /**
+     * Encola pasajeros en la estación: cada uno elige al azar una de las rutas que pasan por
+     * ella y cuántas paradas viajará, con el flujo aleatorio de la estación.
+     */
+    private void encolarLlegadas(int estacion, int cantidad) {
+        int apariciones = red != null ? red.getCantidadApariciones(estacion) : 0;
+        if (apariciones == 0) return;
+        encolar(estacion, apariciones, cantidad);
+        pasajerosEsperando[estacion] += cantidad;
+    }
+
+    /**
+     * Encola llegadas que ya se sumaron a los pasajeros esperando ({@link LlegadasEnBloque}).
+     * La estación debe tener alguna ruta.
+     */
+    void encolarLlegadasContadas(int estacion, int cantidad) {
+        encolar(estacion, red.getCantidadApariciones(estacion), cantidad);
+    }
+
+    private void encolar(int estacion, int apariciones, int cantidad) {
+        for (int i = 0; i < cantidad; i++) {
+            int k = apariciones == 1 ? 0 : Aleatorio.siguienteEntero(rngEstacion, estacion, apariciones);
+            int r = red.getRutaAparicion(estacion, k);
+            int distanciaMaxima = Math.max(1, Math.min(MASCARA_VIAJE, red.getLongitudRuta(r) - 1));
+            int distancia = 1 + Aleatorio.siguienteEntero(rngEstacion, estacion, distanciaMaxima);
+            colas.encolar(red.getIndiceParada(r, red.getPosicionAparicion(estacion, k)),
+                    ColasEspera.pasajero(tick, distancia));
+        }
+    }
+
+    public int getPasajerosEsperando(int estacion) {
+        return pasajerosEsperando[estacion];
+    }
+
+    /**
+     * Ajusta los pasajeros esperando agregando o retirando la diferencia.
+     */
+    public void setPasajerosEsperando(int estacion, int cantidad) {
+        int diferencia = Math.max(0, cantidad) - pasajerosEsperando[estacion];
+        if (diferencia > 0) agregarPasajeros(estacion, diferencia);
+        else retirarPasajeros(estacion, -diferencia);
+    }
+
+    /**
+     * @return pasajeros esperando en una parada de ruta (ver {@link RedTransporte#getIndiceParada(int, int)})
+     */
+    public int getPasajerosEnParada(int parada) {
+        return colas.tamano(parada);
+    }
+
+    // ---- Autobuses ----
+
+    /**
+     * Avanza el autobús una posición en su ruta circular si no está retrasado;
+     * si lo está, consume un tick de retraso.
+     * @param bus índice del autobús
+     * @param longitudRuta cantidad de paradas de su ruta
+     * @return true si se movió
+     */
+    public boolean moverAutobus(int bus, int longitudRuta) {
+        if (!avanzarAutobus(bus, longitudRuta)) return false;
+        reubicarAutobus(bus);
+        return true;
+    }
+
+    /**
+     * Como {@link #moverAutobus(int, int)} pero sin tocar el índice de estaciones, que es
+     * compartido: permite mover autobuses distintos en paralelo. Luego debe llamarse
+     * {@link #reubicarAutobus(int)} desde un solo hilo por cada autobús que avanzó.
+     */
+    boolean avanzarAutobus(int bus, int longitudRuta) {
+        if (retraso[bus] > 0) {
+            retraso[bus]--;
+            return false;
+        }
+        int siguiente = posicion[bus] + 1;
+        posicion[bus] = siguiente == longitudRuta ? 0 : siguiente;
+        recorrido[bus]++;
+        ultimoAvance[bus] = tick;
+        return true;
+    }
+
+    /**
+     * Coloca el autobús en una posición de su ruta y actualiza el índice de estaciones.
+     */
+    public void colocarAutobus(int bus, int posicionRuta) {
+        if (red != null && (posicionRuta < 0 || posicionRuta >= red.getLongitudRuta(ruta[bus]))) {
+            throw new IllegalArgumentException("Posición fuera de la ruta: " + posicionRuta);
+        }
+        posicion[bus] = posicionRuta;
+        reubicarAutobus(bus);
+    }
+
+    /**
+     * Asigna el autobús a una ruta de la red y lo coloca en una de sus posiciones.
+     * Debe hacerse antes de pedir las vistas {@link Autobus}, que guardan su ruta al crearse.
+     */
+    public void asignarRuta(int bus, int rutaBus, int posicionRuta) {
+        if (red == null || rutaBus < 0 || rutaBus >= red.getNumeroRutas()) {
+            throw new IllegalArgumentException("Ruta inexistente: " + rutaBus);
+        }
+        ruta[bus] = rutaBus;
+        colocarAutobus(bus, posicionRuta);
+    }
+
+    /**
+     * Lleva el autobús a la lista de la estación de su posición actual, en O(1).
+     * Sin red (autobús suelto con ruta propia) queda sin estación en el índice.
+     */
+    void reubicarAutobus(int bus) {
+        registrarAutobus(bus, red != null ? red.getParada(ruta[bus], posicion[bus]) : -1);
+    }
+
+    /**
+     * Saca el autobús del índice de estaciones, en O(1): queda fuera de la red hasta que se
+     * reubique. Lo usa {@link NodoParticion} al traspasar el autobús a otro nodo.
+     */
+    void soltarAutobus(int bus) {
+        registrarAutobus(bus, -1);
+    }
+
+    private void registrarAutobus(int bus, int estacion) {
+        int actual = estacionRegistrada[bus];
+        if (actual == estacion) return;
+
+        // Sacar de la lista anterior
+        if (actual >= 0) {
+            int ant = anteriorAutobus[bus];
+            int sig = siguienteAutobus[bus];
+            if (ant >= 0) siguienteAutobus[ant] = sig;
+            else primerAutobus[actual] = sig;
+            if (sig >= 0) anteriorAutobus[sig] = ant;
+            conteoAutobuses[actual]--;
+        }
+
+        // Insertar al inicio de la nueva
+        estacionRegistrada[bus] = estacion;
+        anteriorAutobus[bus] = -1;
+        if (estacion >= 0) {
+            int primero = primerAutobus[estacion];
+            siguienteAutobus[bus] = primero;
+            if (primero >= 0) anteriorAutobus[primero] = bus;
+            primerAutobus[estacion] = bus;
+            conteoAutobuses[estacion]++;
+        } else {
+            siguienteAutobus[bus] = -1;
+        }
+    }
+
+    /**
+     * Baja a los pasajeros cuyo destino es la parada actual del autobús (su cubeta), en O(1):
+     * exactamente los que subieron para esta parada, ni uno más.
+     * Sin red (almacén creado sin estaciones) no hay destinos: bajan entre 0 y
+     * {@code max(1, ceil(30% de a bordo))}, sin pasar de los que van, con el flujo aleatorio
+     * propio del autobús.
+     * Solo toca datos del autobús, por lo que puede llamarse en paralelo para autobuses distintos.
+     * @return cantidad que bajó
+     */
+    public int dejarPasajeros(int bus) {
+        int actuales = pasajerosAutobus[bus];
+        if (actuales <= 0) return 0;
+        int bajan;
+        if (red != null) {
+            int cubeta = bus * VIAJE_MAXIMO + (recorrido[bus] & MASCARA_VIAJE);
+            bajan = aBordo[cubeta];
+            tiempoViaje[bus] += (long) bajan * tick - sumaSubida[cubeta];
+            aBordo[cubeta] = 0;
+            sumaSubida[cubeta] = 0;
+        } else {
+            int maxBajan = Math.max(1, (int) Math.ceil(actuales * 0.3));
+            bajan = Math.min(actuales, Aleatorio.siguienteEntero(rngAutobus, bus, maxBajan + 1));
+        }
+        pasajerosAutobus[bus] = actuales - bajan;
+        viajesCompletados[bus] += bajan;
+        return bajan;
+    }
+
+    /**
+     * Sube al autobús, hasta completar su capacidad, los pasajeros que esperan en su parada de
+     * ruta actual, en orden de llegada. Cada uno va a la cubeta de la parada en que bajará.
+     * @param estacion estación donde está el autobús
+     * @return cantidad recogida
+     */
+    public int recogerPasajeros(int bus, int estacion) {
+        if (red == null) return 0;
+        if (estacionRegistrada[bus] != estacion) {
+            throw new IllegalArgumentException("El autobús no está en la estación " + estacion);
+        }
+        int parada = red.getIndiceParada(ruta[bus], posicion[bus]);
+        int tomados = Math.min(getEspacioDisponible(bus), colas.tamano(parada));
+        if (tomados <= 0) return 0;
+        int base = bus * VIAJE_MAXIMO;
+        int actual = recorrido[bus];
+        long espera = 0;
+        for (int i = 0; i < tomados; i++) {
+            long p = colas.desencolar(parada);
+            espera += tick - ColasEspera.llegada(p);
+            int cubeta = base + ((actual + ColasEspera.distancia(p)) & MASCARA_VIAJE);
+            aBordo[cubeta]++;
+            sumaSubida[cubeta] += tick;
+        }
+        pasajerosEsperando[estacion] -= tomados;
+        pasajerosAutobus[bus] += tomados;
+        abordajes[estacion] += tomados;
+        esperaAcumulada[estacion] += espera;
+        return tomados;
+    }
+
+    public void retrasar(int bus, int ticks) {
+        if (ticks > 0) retraso[bus] += ticks;
+    }
+
+    /**
+     * El autobús no subirá pasajeros en la próxima parada a la que llegue (la bajada no cambia).
+     */
+    public void omitirSiguienteParada(int bus) {
+        omitirParada[bus] = 1;
+    }
+
+    public boolean isOmitiendoParada(int bus) {
+        return omitirParada[bus] != 0;
+    }
+
+    /**
+     * Al llegar a una parada: indica si hay que pasarla de largo y borra la marca.
+     */
+    boolean consumirOmision(int bus) {
+        if (omitirParada[bus] == 0) return false;
+        omitirParada[bus] = 0;
+        return true;
+    }
+
+    /**
+     * @return pasajeros a bordo que bajan en la próxima parada del autobús
+     */
+    public int getBajanEnSiguienteParada(int bus) {
+        if (red == null) return 0;
+        return aBordo[bus * VIAJE_MAXIMO + ((recorrido[bus] + 1) & MASCARA_VIAJE)];
+    }
+
+    public int getEspacioDisponible(int bus) {
+        return capacidad[bus] - pasajerosAutobus[bus];
+    }
+
+    public int getCapacidad(int bus) {
+        return capacidad[bus];
+    }
+
+    public int getPasajerosAutobus(int bus) {
+        return pasajerosAutobus[bus];
+    }
+
+    /**
+     * Ajusta los pasajeros a bordo. Los que se agregan bajan en la próxima parada; si se quitan,
+     * se empieza por los que bajarían antes.
+     */
+    public void setPasajerosAutobus(int bus, int cantidad) {
+        int nuevo = Math.max(0, Math.min(cantidad, capacidad[bus]));
+        if (red != null) {
+            int base = bus * VIAJE_MAXIMO;
+            int diferencia = nuevo - pasajerosAutobus[bus];
+            if (diferencia > 0) {
+                int cubeta = base + ((recorrido[bus] + 1) & MASCARA_VIAJE);
+                aBordo[cubeta] += diferencia;
+                sumaSubida[cubeta] += (long) diferencia * tick;
+            }
+            for (int d = 1; diferencia < 0 && d < VIAJE_MAXIMO; d++) {
+                int cubeta = base + ((recorrido[bus] + d) & MASCARA_VIAJE);
+                int quitados = Math.min(-diferencia, aBordo[cubeta]);
+                if (quitados == 0) continue;
+                sumaSubida[cubeta] -= sumaSubida[cubeta] / aBordo[cubeta] * quitados;
+                aBordo[cubeta] -= quitados;
+                diferencia += quitados;
+            }
+        }
+        pasajerosAutobus[bus] = nuevo;
+    }
+
+    public int getRuta(int bus) {
+        return ruta[bus];
+    }
+
+    public int getPosicion(int bus) {
+        return posicion[bus];
+    }
+
+    /**
+     * @return estación donde está el autobús según el índice, o -1 si está fuera de la red
+     */
+    public int getEstacionAutobus(int bus) {
+        return estacionRegistrada[bus];
+    }
+
+    // ---- Estadísticas de viajes ----
+
+    /**
+     * @return pasajeros que subieron en la estación desde el inicio
+     */
+    public long getAbordajes(int estacion) {
+        return abordajes[estacion];
+    }
+
+    /**
+     * @return suma de los ticks que esperaron los pasajeros que subieron en la estación
+     */
+    public long getEsperaAcumulada(int estacion) {
+        return esperaAcumulada[estacion];
+    }
+
+    /**
+     * @return pasajeros que bajaron del autobús al llegar a su destino
+     */
+    public long getViajesCompletados(int bus) {
+        return viajesCompletados[bus];
+    }
+
+    /**
+     * @return suma de la duración en ticks de los viajes completados en el autobús
+     */
+    public long getTiempoViaje(int bus) {
+        return tiempoViaje[bus];
+    }
+
+    /**
+     * @return espera media en ticks de los pasajeros que ya subieron (0 si ninguno)
+     */
+    public double getEsperaPromedio() {
+        long total = 0;
+        long suben = 0;
+        for (int e = 0; e < numeroEstaciones; e++) {
+            total += esperaAcumulada[e];
+            suben += abordajes[e];
+        }
+        return suben == 0 ? 0 : (double) total / suben;
+    }
+
+    /**
+     * @return duración media en ticks de los viajes completados (0 si ninguno)
+     */
+    public double getViajePromedio() {
+        long total = 0;
+        long completados = 0;
+        for (int b = 0; b < numeroAutobuses; b++) {
+            total += tiempoViaje[b];
+            completados += viajesCompletados[b];
+        }
+        return completados == 0 ? 0 : (double) total / completados;
+    }
+
+    // ---- Índice estación -> autobuses ----
+
+    /**
+     * @return cantidad de autobuses presentes en la estación, en O(1)
+     */
+    public int getCantidadAutobuses(int estacion) {
+        return conteoAutobuses[estacion];
+    }
+
+    /**
+     * Primer autobús de la estación; los demás se recorren con {@link #getSiguienteAutobus(int)}.
+     * @return índice del autobús o -1 si no hay ninguno
+     */
+    public int getPrimerAutobus(int estacion) {
+        return primerAutobus[estacion];
+    }
+
+    /**
+     * @return siguiente autobús en la misma estación o -1 si es el último
+     */
+    public int getSiguienteAutobus(int bus) {
+        return siguienteAutobus[bus];
+    }
+
+    /**
+     * Copia los índices de los autobuses presentes en la estación.
+     * @param destino arreglo con capacidad para {@link #getCantidadAutobuses(int)} elementos
+     * @return cantidad de autobuses copiados
+     */
+    public int autobusesEn(int estacion, int[] destino) {
+        int n = 0;
+        for (int b = primerAutobus[estacion]; b >= 0; b = siguienteAutobus[b]) {
+            destino[n++] = b;
+        }
+        return n;
+    }
+
+    public int getRetraso(int bus) {
+        return retraso[bus];
+    }
+
+    public void setRetraso(int bus, int ticks) {
+        retraso[bus] = Math.max(0, ticks);
+    }
+
+    /**
+     * @return semilla de la que se derivan todos los flujos aleatorios
+     */
+    public long getSemilla() {
+        return semilla;
+    }
+
+    /**
+     * @return red de estaciones y rutas, o null si el almacén no tiene estaciones
+     */
+    public RedTransporte getRed() {
+        return red;
+    }
+
+    public int getNumeroEstaciones() {
+        return numeroEstaciones;
+    }
+
+    public int getNumeroAutobuses() {
+        return numeroAutobuses;
+    }
+
+    // ---- Puntos de control ----
+
+    /**
+     * Escribe todos los contadores, colas, flujos aleatorios e índices (ver {@link PuntoControl}).
+     * La red y la semilla se escriben aparte.
+     */
+    void escribir(SalidaMapeada salida) throws IOException {
+        salida.escribirInt(tick);
+        salida.escribirInts(pasajerosEsperando);
+        salida.escribirLongs(rngEstacion);
+        salida.escribirLongs(abordajes);
+        salida.escribirLongs(esperaAcumulada);
+        colas.escribir(salida);
+
+        salida.escribirInts(capacidad);
+        salida.escribirInts(pasajerosAutobus);
+        salida.escribirInts(ruta);
+        salida.escribirInts(posicion);
+        salida.escribirInts(retraso);
+        salida.escribirLongs(rngAutobus);
+        salida.escribirInts(recorrido);
+        salida.escribirInts(aBordo);
+        salida.escribirLongs(sumaSubida);
+        salida.escribirLongs(viajesCompletados);
+        salida.escribirLongs(tiempoViaje);
+
+        salida.escribirInts(primerAutobus);
+        salida.escribirInts(conteoAutobuses);
+        salida.escribirInts(siguienteAutobus);
+        salida.escribirInts(anteriorAutobus);
+        salida.escribirInts(estacionRegistrada);
+    }
+
+    /**
+     * Reemplaza el estado por el escrito con {@link #escribir(SalidaMapeada)} en un almacén
+     * con la misma red y cantidad de autobuses.
+     */
+    void leer(EntradaMapeada entrada) throws IOException {
+        tick = entrada.leerInt();
+        entrada.leerInts(pasajerosEsperando);
+        entrada.leerLongs(rngEstacion);
+        entrada.leerLongs(abordajes);
+        entrada.leerLongs(esperaAcumulada);
+        colas.leer(entrada);
+
+        entrada.leerInts(capacidad);
+        entrada.leerInts(pasajerosAutobus);
+        entrada.leerInts(ruta);
+        entrada.leerInts(posicion);
+        entrada.leerInts(retraso);
+        entrada.leerLongs(rngAutobus);
+        entrada.leerInts(recorrido);
+        entrada.leerInts(aBordo);
+        entrada.leerLongs(sumaSubida);
+        entrada.leerLongs(viajesCompletados);
+        entrada.leerLongs(tiempoViaje);
+
+        entrada.leerInts(primerAutobus);
+        entrada.leerInts(conteoAutobuses);
+        entrada.leerInts(siguienteAutobus);
+        entrada.leerInts(anteriorAutobus);
+        entrada.leerInts(estacionRegistrada);
+
+        for (int b = 0; b < numeroAutobuses; b++) {
+            int r = ruta[b];
+            if (r < 0 || r >= red.getNumeroRutas() || posicion[b] < 0 || posicion[b] >= red.getLongitudRuta(r)
+                    || estacionRegistrada[b] < -1 || estacionRegistrada[b] >= numeroEstaciones) {
+                throw new IOException("Autobús " + b + " fuera de la red en el archivo");
+            }
+        }
+        vistasAutobuses = null; // cada vista guarda la lista de su ruta
+    }
+
+    // ---- Traspaso entre nodos ----
+
+    /** Bytes que ocupa un autobús escrito con {@link #escribirAutobus(int, ByteBuffer)}. */
+    static final int BYTES_AUTOBUS = 4 * 6 + 8 * 3 + VIAJE_MAXIMO * (4 + 8);
+
+    /**
+     * Escribe todo lo que viaja con el autobús (posición, retraso, pasajeros a bordo por
+     * cubeta, contadores y flujo aleatorio), para continuarlo en otro almacén con la misma red.
+     * La ruta no se escribe: es la misma en todos los nodos.
+     */
+    void escribirAutobus(int bus, ByteBuffer destino) {
+        destino.putInt(idAutobus != null ? idAutobus[bus] : bus);
+        destino.putInt(posicion[bus]);
+        destino.putInt(retraso[bus]);
+        destino.putInt(recorrido[bus]);
+        destino.putInt(pasajerosAutobus[bus]);
+        destino.putInt(capacidad[bus]);
+        destino.putLong(rngAutobus[bus]);
+        destino.putLong(viajesCompletados[bus]);
+        destino.putLong(tiempoViaje[bus]);
+        int base = bus * VIAJE_MAXIMO;
+        for (int i = 0; i < VIAJE_MAXIMO; i++) {
+            destino.putInt(aBordo[base + i]);
+        }
+        for (int i = 0; i < VIAJE_MAXIMO; i++) {
+            destino.putLong(sumaSubida[base + i]);
+        }
+    }
+
+    /**
+     * Lee un autobús escrito con {@link #escribirAutobus(int, ByteBuffer)} y lo ubica en el
+     * índice de estaciones.
+     * @return índice del autobús leído
+     */
+    int leerAutobus(ByteBuffer origen) {
+        int id = origen.getInt();
+        int bus = indiceAutobus(id);
+        if (bus < 0) throw new IllegalArgumentException("Autobús inexistente: " + id);
+        int pos = origen.getInt();
+        if (pos < 0 || pos >= red.getLongitudRuta(ruta[bus])) {
+            throw new IllegalArgumentException("Posición fuera de la ruta: " + pos);
+        }
+        posicion[bus] = pos;
+        retraso[bus] = origen.getInt();
+        recorrido[bus] = origen.getInt();
+        pasajerosAutobus[bus] = origen.getInt();
+        capacidad[bus] = origen.getInt();
+        rngAutobus[bus] = origen.getLong();
+        viajesCompletados[bus] = origen.getLong();
+        tiempoViaje[bus] = origen.getLong();
+        int base = bus * VIAJE_MAXIMO;
+        for (int i = 0; i < VIAJE_MAXIMO; i++) {
+            aBordo[base + i] = origen.getInt();
+        }
+        for (int i = 0; i < VIAJE_MAXIMO; i++) {
+            sumaSubida[base + i] = origen.getLong();
+        }
+        reubicarAutobus(bus);
+        return bus;
+    }
+
+    /**
+     * @return índice del autobús con ese id en la red completa, o -1 si este almacén no lo reserva
+     */
+    int indiceAutobus(int id) {
+        if (idAutobus != null) return Math.max(Arrays.binarySearch(idAutobus, id), -1);
+        return id >= 0 && id < numeroAutobuses ? id : -1;
+    }
+
+    // ---- Vistas para la interfaz ----
+
+    /**
+     * Lista inmutable de vistas {@link Estacion} sobre este almacén, creadas bajo demanda.
+     * El id de cada estación es su índice.
+     */
+    List<Estacion> vistaEstaciones() {
+        return new ListaVistas<Estacion>(numeroEstaciones) {
+            @Override
+            public Estacion get(int i) {
+                Estacion[] cache = vistasEstaciones;
+                if (cache == null) {
+                    cache = vistasEstaciones = new Estacion[numeroEstaciones];
+                }
+                Estacion e = cache[i];
+                if (e == null) {
+                    e = cache[i] = new Estacion(i, "Estación " + (i + 1), EstadoRed.this, i);
+                }
+                return e;
+            }
+        };
+    }
+
+    /**
+     * Lista inmutable con las estaciones de una ruta, en orden de recorrido.
+     * @param estaciones vistas de todas las estaciones (ver {@link #vistaEstaciones()})
+     */
+    List<Estacion> vistaRuta(int r, List<Estacion> estaciones) {
+        List<Estacion>[] cache = vistasRutas;
+        if (cache == null) {
+            @SuppressWarnings({"unchecked", "rawtypes"}) // no hay arreglos de tipos genéricos
+            List<Estacion>[] nuevo = new List[red.getNumeroRutas()];
+            cache = vistasRutas = nuevo;
+        }
+        List<Estacion> lista = cache[r];
+        if (lista == null) {
+            lista = cache[r] = new ListaVistas<Estacion>(red.getLongitudRuta(r)) {
+                @Override
+                public Estacion get(int i) {
+                    return estaciones.get(red.getParada(r, i));
+                }
+            };
+        }
+        return lista;
+    }
+
+    /**
+     * Lista inmutable de vistas {@link Autobus} sobre este almacén, creadas bajo demanda.
+     * El id de cada autobús es su índice + 1 y su ruta es la vista de la ruta asignada.
+     * @param estaciones vistas de todas las estaciones (ver {@link #vistaEstaciones()})
+     */
+    List<Autobus> vistaAutobuses(List<Estacion> estaciones) {
+        return new ListaVistas<Autobus>(numeroAutobuses) {
+            @Override
+            public Autobus get(int i) {
+                Autobus[] cache = vistasAutobuses;
+                if (cache == null) {
+                    cache = vistasAutobuses = new Autobus[numeroAutobuses];
+                }
+                Autobus b = cache[i];
+                if (b == null) {
+                    b = cache[i] = new Autobus(i + 1, EstadoRed.this, i, vistaRuta(ruta[i], estaciones));
+                }
+                return b;
+            }
+        };
+    }
+
+    private abstract static class ListaVistas<T> extends AbstractList<T> implements RandomAccess {
+        private final int tamano;
+
+        ListaVistas(int tamano) {
+            this.tamano = tamano;
+        }
+
+        @Override
+        public int size() {
+            return tamano;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package modelo;
+
+import java.util.Arrays;
+
+/**
+ * Constantes y codificación compartidas por {@link GrabadorHistorial} y {@link ReproductorHistorial}.
+ * <p>
+ * Archivo: cabecera (mapeada con {@link SalidaMapeada}) con la red, la ruta de cada autobús
+ * y el valor inicial de cada columna, seguida de bloques comprimidos con {@link java.util.zip.Deflater}.
+ * Cada bloque guarda hasta {@link #FOTOS_POR_BLOQUE} fotos consecutivas:
+ * <pre>
+ * long tickBase, int fotos, int bytesCrudos, int bytesComprimidos, datos comprimidos
+ * </pre>
+ * donde {@code tickBase} es el tick de la foto anterior al bloque.
+ * Los datos crudos son columnares: primero el avance de tick de cada foto y luego, por
+ * columna, la cantidad de cambios de cada foto seguida de los cambios (distancia al índice
+ * anterior de la misma foto y diferencia con el valor anterior), todo en varint.
+ */
+final class FormatoHistorial {
+
+    /** Primeros 4 bytes del archivo ("TCHL"). */
+    static final int MAGIA = 0x4C484354;
+    static final int VERSION = 1;
+
+    static final int FOTOS_POR_BLOQUE = 256;
+    static final int CABECERA_BLOQUE = 20;
+
+    // Columnas, en el orden en que se guardan. Todas son diferencias de un contador por entidad
+    static final int ESPERANDO = 0;  // por estación: pasajeros esperando
+    static final int SUBIDAS = 1;    // por estación: abordajes acumulados
+    static final int POSICION = 2;   // por autobús: posición en su ruta
+    static final int CARGA = 3;      // por autobús: pasajeros a bordo
+    static final int RETRASO = 4;    // por autobús: ticks de espera pendientes
+    static final int BAJADAS = 5;    // por autobús: viajes completados acumulados
+    static final int CAPACIDAD = 6;  // por autobús: capacidad
+    static final int COLUMNAS = 7;
+
+    private FormatoHistorial() {
+    }
+
+    static boolean esDeEstacion(int columna) {
+        return columna <= SUBIDAS;
+    }
+
+    static long zigzag(long valor) {
+        return (valor << 1) ^ (valor >> 63);
+    }
+
+    static long desZigzag(long valor) {
+        return (valor >>> 1) ^ -(valor & 1);
+    }
+
+    /**
+     * Arreglo de bytes que crece al escribir varints.
+     */
+    static final class Bytes {
+        byte[] datos = new byte[256];
+        int largo;
+
+        void varint(long valor) {
+            if (largo + 10 > datos.length) {
+                datos = Arrays.copyOf(datos, datos.length * 2);
+            }
+            while ((valor & ~0x7FL) != 0) {
+                datos[largo++] = (byte) ((valor & 0x7F) | 0x80);
+                valor >>>= 7;
+            }
+            datos[largo++] = (byte) valor;
+        }
+
+        void agregar(Bytes otro) {
+            if (largo + otro.largo > datos.length) {
+                datos = Arrays.copyOf(datos, Math.max(datos.length * 2, largo + otro.largo));
+            }
+            System.arraycopy(otro.datos, 0, datos, largo, otro.largo);
+            largo += otro.largo;
+        }
+    }
+
+    /**
+     * Lector de varints sobre un arreglo de bytes.
+     */
+    static final class LectorBytes {
+        private final byte[] datos;
+        private final int fin;
+        private int posicion;
+
+        LectorBytes(byte[] datos, int largo) {
+            this.datos = datos;
+            this.fin = largo;
+        }
+
+        long varint() {
+            long valor = 0;
+            for (int desplazamiento = 0; ; desplazamiento += 7) {
+                if (posicion >= fin || desplazamiento > 63) {
+                    throw new IllegalStateException("Bloque del historial dañado");
+                }
+                byte b = datos[posicion++];
+                valor |= (long) (b & 0x7F) << desplazamiento;
+                if (b >= 0) return valor;
+            }
+        }
+
+        boolean terminado() {
+            return posicion == fin;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package modelo;
+
+/**
+ * Foto inmutable (de cara al receptor) del estado de la red al final de un tick.
+ * Guarda copias compactas en arreglos primitivos, de modo que un consumidor puede leerla
+ * completa mientras el motor ya avanza al siguiente tick.
+ * <p>
+ * Las fotos se reciclan: las entrega {@link BufferFotos} y solo son válidas mientras el
+ * consumidor no pida la siguiente (o, en {@link Simulador.FotoListener}, durante la llamada).
+ */
+public final class FotoSimulacion {
+
+    private long tick;
+    private long nanosCaptura;
+
+    // Por estación
+    final int[] pasajerosEsperando;
+    final int[] primerAutobus;
+    final int[] conteoAutobuses;
+
+    // Por autobús
+    final int[] estacionAutobus;
+    final int[] estacionAnterior;
+    final int[] pasajerosAutobus;
+    final int[] capacidad;
+    final int[] retraso;
+    final int[] siguienteAutobus;
+
+    // Publicada por el motor y aún no tomada por el consumidor (ver BufferFotos)
+    boolean fresca;
+
+    FotoSimulacion(int numeroEstaciones, int numeroAutobuses) {
+        this.pasajerosEsperando = new int[numeroEstaciones];
+        this.primerAutobus = new int[numeroEstaciones];
+        this.conteoAutobuses = new int[numeroEstaciones];
+        this.estacionAutobus = new int[numeroAutobuses];
+        this.estacionAnterior = new int[numeroAutobuses];
+        this.pasajerosAutobus = new int[numeroAutobuses];
+        this.capacidad = new int[numeroAutobuses];
+        this.retraso = new int[numeroAutobuses];
+        this.siguienteAutobus = new int[numeroAutobuses];
+    }
+
+    /**
+     * Copia el estado actual sin asignar memoria.
+     */
+    void capturar(EstadoRed estado, long tick) {
+        this.tick = tick;
+        this.nanosCaptura = System.nanoTime();
+        System.arraycopy(estado.pasajerosEsperando, 0, pasajerosEsperando, 0, pasajerosEsperando.length);
+        System.arraycopy(estado.estacionRegistrada, 0, estacionAutobus, 0, estacionAutobus.length);
+        capturarAnteriores(estado, (int) tick);
+        System.arraycopy(estado.pasajerosAutobus, 0, pasajerosAutobus, 0, pasajerosAutobus.length);
+        System.arraycopy(estado.capacidad, 0, capacidad, 0, capacidad.length);
+        System.arraycopy(estado.retraso, 0, retraso, 0, retraso.length);
+        // Índice estación -> autobuses
+        System.arraycopy(estado.primerAutobus, 0, primerAutobus, 0, primerAutobus.length);
+        System.arraycopy(estado.conteoAutobuses, 0, conteoAutobuses, 0, conteoAutobuses.length);
+        System.arraycopy(estado.siguienteAutobus, 0, siguienteAutobus, 0, siguienteAutobus.length);
+    }
+
+    /**
+     * Estación de cada autobús al final del tick anterior: la misma, salvo los que avanzaron
+     * en este tick, que vienen de la parada previa de su ruta.
+     */
+    private void capturarAnteriores(EstadoRed estado, int tickFoto) {
+        System.arraycopy(estacionAutobus, 0, estacionAnterior, 0, estacionAnterior.length);
+        final RedTransporte red = estado.getRed();
+        if (red == null) return;
+        final int[] ultimoAvance = estado.ultimoAvance;
+        for (int b = 0; b < estacionAnterior.length; b++) {
+            if (ultimoAvance[b] != tickFoto) continue;
+            int r = estado.ruta[b];
+            int p = estado.posicion[b];
+            estacionAnterior[b] = red.getParada(r, p == 0 ? red.getLongitudRuta(r) - 1 : p - 1);
+        }
+    }
+
+    /**
+     * @return tick al final del cual se tomó la foto
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    public int getNumeroEstaciones() {
+        return pasajerosEsperando.length;
+    }
+
+    public int getNumeroAutobuses() {
+        return estacionAutobus.length;
+    }
+
+    public int getPasajerosEsperando(int estacion) {
+        return pasajerosEsperando[estacion];
+    }
+
+    /**
+     * @return índice de la estación donde está el autobús
+     */
+    public int getEstacionAutobus(int bus) {
+        return estacionAutobus[bus];
+    }
+
+    /**
+     * @return índice de la estación donde estaba el autobús al final del tick anterior
+     *         (distinta de la actual solo si avanzó en este tick)
+     */
+    public int getEstacionAnterior(int bus) {
+        return estacionAnterior[bus];
+    }
+
+    /**
+     * @return instante ({@link System#nanoTime()}) en que se tomó la foto
+     */
+    public long getNanosCaptura() {
+        return nanosCaptura;
+    }
+
+    /**
+     * @return cantidad de autobuses en la estación
+     */
+    public int getCantidadAutobuses(int estacion) {
+        return conteoAutobuses[estacion];
+    }
+
+    /**
+     * Primer autobús de la estación; los demás se recorren con {@link #getSiguienteAutobus(int)}.
+     * @return índice del autobús o -1 si no hay ninguno
+     */
+    public int getPrimerAutobus(int estacion) {
+        return primerAutobus[estacion];
+    }
+
+    /**
+     * @return siguiente autobús en la misma estación o -1 si es el último
+     */
+    public int getSiguienteAutobus(int bus) {
+        return siguienteAutobus[bus];
+    }
+
+    public int getPasajerosAutobus(int bus) {
+        return pasajerosAutobus[bus];
+    }
+
+    public int getCapacidad(int bus) {
+        return capacidad[bus];
+    }
+
+    public int getRetraso(int bus) {
+        return retraso[bus];
+    }
+}
@@ -0,0 +1,335 @@
+package modelo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.Deflater;
+
+import static modelo.FormatoHistorial.*;
+
+/**
+ * Graba la historia de una simulación en un archivo de solo agregado: por cada foto publicada,
+ * solo lo que cambió (autobuses que se movieron, pasajeros que subieron y bajaron, retrasos,
+ * pasajeros esperando). Se reproduce con {@link ReproductorHistorial}.
+ * <p>
+ * En el hilo del motor solo se comparan las columnas con la foto anterior y se codifican los
+ * cambios; cada {@link FormatoHistorial#FOTOS_POR_BLOQUE} fotos el bloque pasa a un hilo
+ * escritor que lo comprime y lo agrega al archivo junto con los demás bloques pendientes, en
+ * una sola escritura con varios búferes. El motor nunca espera al disco.
+ * <p>
+ * Si una escritura falla, la grabación se detiene: los bloques siguientes se descartan en vez
+ * de acumularse en memoria, {@link #getError()} devuelve el error y {@link #close()} lo lanza.
+ * <p>
+ * En modo eventos, con {@link Simulador#ejecutarTicks(long)} se graba una foto por lote.
+ */
+public final class GrabadorHistorial implements Simulador.FotoListener, Closeable {
+
+    private static final Bloque FIN = new Bloque(0, 0, null, 0);
+
+    private final Simulador simulador;
+    private final EstadoRed estado;
+    private final FileChannel canal;
+    private final Thread escritor;
+    private final LinkedBlockingQueue<Bloque> pendientes = new LinkedBlockingQueue<>();
+    private volatile IOException error; // lo fija el hilo escritor al fallar; detiene la grabación
+
+    // Último valor grabado de cada columna
+    private final long[][] anterior = new long[COLUMNAS][];
+
+    // Bloque en curso
+    private final Bytes avances = new Bytes();
+    private final Bytes[] conteos = new Bytes[COLUMNAS];
+    private final Bytes[] cambios = new Bytes[COLUMNAS];
+    private long tickBase; // tick anterior a la primera foto del bloque
+    private long ultimoTick;
+    private int fotos;
+    private boolean cerrado;
+    // Columna que se está registrando: índice del último cambio y cantidad de cambios
+    private int ultimoCambio;
+    private int cambiosColumna;
+
+    private GrabadorHistorial(Simulador simulador, FileChannel canal) {
+        this.simulador = simulador;
+        this.estado = simulador.getEstado();
+        this.canal = canal;
+        for (int c = 0; c < COLUMNAS; c++) {
+            anterior[c] = new long[esDeEstacion(c) ? estado.getNumeroEstaciones() : estado.getNumeroAutobuses()];
+            conteos[c] = new Bytes();
+            cambios[c] = new Bytes();
+        }
+        this.escritor = new Thread(this::escribirBloques, "grabador-historial");
+        this.escritor.setDaemon(true);
+    }
+
+    /**
+     * Empieza a grabar el simulador (detenido) desde su estado actual.
+     * Si el archivo existe se reemplaza. Hay que cerrar el grabador para completar el archivo.
+     */
+    public static GrabadorHistorial grabar(Simulador simulador, Path archivo) throws IOException {
+        if (simulador.isEnEjecucion()) {
+            throw new IllegalStateException("Detenga la simulación antes de empezar a grabar");
+        }
+        FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        GrabadorHistorial grabador;
+        try {
+            grabador = new GrabadorHistorial(simulador, canal);
+            grabador.escribirCabecera();
+        } catch (IOException | RuntimeException ex) {
+            canal.close();
+            throw ex;
+        }
+        grabador.escritor.start();
+        simulador.addFotoListener(grabador);
+        return grabador;
+    }
+
+    /**
+     * Cabecera con la red y el estado inicial de todas las columnas, escrita con un mapeo.
+     */
+    private void escribirCabecera() throws IOException {
+        FotoSimulacion foto = new FotoSimulacion(estado.getNumeroEstaciones(), estado.getNumeroAutobuses());
+        simulador.capturarFoto(foto);
+        ultimoTick = foto.getTick();
+        for (int c = 0; c < COLUMNAS; c++) {
+            long[] valores = anterior[c];
+            for (int i = 0; i < valores.length; i++) {
+                valores[i] = valor(c, i, foto);
+            }
+        }
+        SalidaMapeada contador = new SalidaMapeada();
+        escribirCabecera(contador);
+        long tamano = contador.getPosicion();
+        escribirCabecera(new SalidaMapeada(canal, tamano));
+        canal.position(tamano);
+    }
+
+    private void escribirCabecera(SalidaMapeada salida) throws IOException {
+        salida.escribirInt(MAGIA);
+        salida.escribirInt(VERSION);
+        estado.getRed().escribir(salida);
+        salida.escribirInt(estado.getNumeroAutobuses());
+        salida.escribirInts(estado.ruta);
+        salida.escribirLong(ultimoTick);
+        for (long[] valores : anterior) {
+            salida.escribirLongs(valores);
+        }
+    }
+
+    private long valor(int columna, int i, FotoSimulacion foto) {
+        switch (columna) {
+            case ESPERANDO: return foto.pasajerosEsperando[i];
+            case SUBIDAS: return estado.abordajes[i];
+            case POSICION: return estado.posicion[i];
+            case CARGA: return foto.pasajerosAutobus[i];
+            case RETRASO: return foto.retraso[i];
+            case BAJADAS: return estado.viajesCompletados[i];
+            default: return foto.capacidad[i];
+        }
+    }
+
+    /**
+     * Agrega al bloque en curso los cambios desde la foto anterior. Se llama en el hilo del motor.
+     */
+    @Override
+    public synchronized void onFoto(FotoSimulacion foto) {
+        long tick = foto.getTick();
+        if (cerrado || error != null || tick <= ultimoTick) return; // publicarEstado repite el tick
+        if (fotos == 0) tickBase = ultimoTick;
+        avances.varint(tick - ultimoTick);
+        ultimoTick = tick;
+        registrar(ESPERANDO, foto.pasajerosEsperando);
+        registrar(SUBIDAS, estado.abordajes);
+        registrar(POSICION, estado.posicion);
+        registrar(CARGA, foto.pasajerosAutobus);
+        registrar(RETRASO, foto.retraso);
+        registrar(BAJADAS, estado.viajesCompletados);
+        registrar(CAPACIDAD, foto.capacidad);
+        if (++fotos == FOTOS_POR_BLOQUE) cerrarBloque();
+    }
+
+    private void registrar(int columna, int[] actual) {
+        long[] previo = anterior[columna];
+        ultimoCambio = 0;
+        cambiosColumna = 0;
+        for (int i = 0; i < actual.length; i++) {
+            if (actual[i] != previo[i]) cambio(columna, i, actual[i]);
+        }
+        conteos[columna].varint(cambiosColumna);
+    }
+
+    private void registrar(int columna, long[] actual) {
+        long[] previo = anterior[columna];
+        ultimoCambio = 0;
+        cambiosColumna = 0;
+        for (int i = 0; i < actual.length; i++) {
+            if (actual[i] != previo[i]) cambio(columna, i, actual[i]);
+        }
+        conteos[columna].varint(cambiosColumna);
+    }
+
+    /**
+     * Codifica un cambio de la columna: distancia al cambio anterior y diferencia con el valor
+     * grabado en zigzag, las dos en varint. Único codificador para columnas int y long.
+     */
+    private void cambio(int columna, int i, long valor) {
+        long[] previo = anterior[columna];
+        Bytes salida = cambios[columna];
+        salida.varint(i - ultimoCambio);
+        salida.varint(zigzag(valor - previo[i]));
+        previo[i] = valor;
+        ultimoCambio = i;
+        cambiosColumna++;
+    }
+
+    /**
+     * Junta las columnas del bloque en curso y lo pasa al hilo escritor, o lo descarta si el
+     * escritor ya falló.
+     */
+    private void cerrarBloque() {
+        if (error != null) {
+            avances.largo = 0;
+            for (int c = 0; c < COLUMNAS; c++) {
+                conteos[c].largo = 0;
+                cambios[c].largo = 0;
+            }
+            fotos = 0;
+            return;
+        }
+        Bytes crudo = new Bytes();
+        crudo.agregar(avances);
+        avances.largo = 0;
+        for (int c = 0; c < COLUMNAS; c++) {
+            crudo.agregar(conteos[c]);
+            crudo.agregar(cambios[c]);
+            conteos[c].largo = 0;
+            cambios[c].largo = 0;
+        }
+        pendientes.add(new Bloque(tickBase, fotos, crudo.datos, crudo.largo));
+        fotos = 0;
+    }
+
+    /**
+     * Hilo escritor: comprime los bloques y agrega al archivo todos los que estén listos
+     * en una escritura por lotes.
+     */
+    private void escribirBloques() {
+        Deflater compresor = new Deflater(Deflater.BEST_SPEED);
+        List<Bloque> lote = new ArrayList<>();
+        boolean terminar = false;
+        try {
+            while (!terminar) {
+                lote.add(pendientes.take());
+                pendientes.drainTo(lote);
+                List<ByteBuffer> buffers = new ArrayList<>(lote.size() * 2);
+                for (Bloque bloque : lote) {
+                    if (bloque == FIN) {
+                        terminar = true;
+                        break;
+                    }
+                    comprimir(bloque, compresor, buffers);
+                }
+                lote.clear();
+                ByteBuffer[] arreglo = buffers.toArray(new ByteBuffer[0]);
+                long restante = 0;
+                for (ByteBuffer b : arreglo) restante += b.remaining();
+                while (restante > 0) {
+                    restante -= canal.write(arreglo);
+                }
+            }
+        } catch (IOException ex) {
+            error = ex;
+            pendientes.clear(); // ya no se van a escribir
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            compresor.end();
+        }
+    }
+
+    /**
+     * Comprime el bloque y agrega su cabecera y sus datos a {@code buffers}.
+     */
+    private static void comprimir(Bloque bloque, Deflater compresor, List<ByteBuffer> buffers) {
+        compresor.reset();
+        compresor.setInput(bloque.datos, 0, bloque.largo);
+        compresor.finish();
+        byte[] salida = new byte[bloque.largo + bloque.largo / 16 + 64];
+        int largo = 0;
+        while (!compresor.finished()) {
+            if (largo == salida.length) salida = Arrays.copyOf(salida, salida.length * 2);
+            largo += compresor.deflate(salida, largo, salida.length - largo);
+        }
+        ByteBuffer cabecera = ByteBuffer.allocate(CABECERA_BLOQUE).order(ByteOrder.LITTLE_ENDIAN);
+        cabecera.putLong(bloque.tickBase).putInt(bloque.fotos).putInt(bloque.largo).putInt(largo);
+        cabecera.flip();
+        buffers.add(cabecera);
+        buffers.add(ByteBuffer.wrap(salida, 0, largo));
+    }
+
+    /**
+     * Deja de grabar: escribe el último bloque, espera al hilo escritor y cierra el archivo.
+     * @throws IOException si falló alguna escritura
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (cerrado) return;
+            cerrado = true;
+            if (fotos > 0) cerrarBloque();
+            pendientes.add(FIN);
+        }
+        simulador.removeFotoListener(this);
+        try {
+            escritor.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            canal.close();
+        }
+        if (error != null) throw error;
+    }
+
+    /**
+     * @return error de escritura que detuvo la grabación, o null si no hubo
+     */
+    public IOException getError() {
+        return error;
+    }
+
+    /**
+     * @return bloques que el hilo escritor todavía no agregó al archivo
+     */
+    public int getBloquesPendientes() {
+        return pendientes.size();
+    }
+
+    /**
+     * @return tick de la última foto grabada
+     */
+    public synchronized long getUltimoTick() {
+        return ultimoTick;
+    }
+
+    private static final class Bloque {
+        final long tickBase;
+        final int fotos;
+        final byte[] datos;
+        final int largo;
+
+        Bloque(long tickBase, int fotos, byte[] datos, int largo) {
+            this.tickBase = tickBase;
+            this.fotos = fotos;
+            this.datos = datos;
+            this.largo = largo;
+        }
+    }
+}
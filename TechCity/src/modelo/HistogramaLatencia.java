@@ -0,0 +1,106 @@
+package modelo;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias en nanosegundos con cubetas logarítmicas-lineales (al estilo
+ * HdrHistogram): cada potencia de 2 se divide en {@link #SUBDIVISIONES} cubetas, así que el
+ * error relativo es de a lo sumo 1/16 en todo el rango, hasta unos 18 minutos.
+ * <p>
+ * Registrar no bloquea ni asigna memoria (un incremento atómico por cubeta), así que varios
+ * hilos pueden registrar a la vez. Los percentiles se calculan sobre una lectura de las
+ * cubetas que puede mezclar registros concurrentes, lo que basta para monitoreo.
+ */
+public final class HistogramaLatencia {
+
+    static final int SUBDIVISIONES = 16;
+    private static final int BITS_SUBDIVISION = 4;
+    private static final int EXPONENTE_MAXIMO = 40;
+    static final int CUBETAS = (EXPONENTE_MAXIMO - BITS_SUBDIVISION + 2) * SUBDIVISIONES;
+
+    private final AtomicLongArray conteos = new AtomicLongArray(CUBETAS);
+    private final LongAdder cantidad = new LongAdder();
+    private final LongAdder suma = new LongAdder();
+    private final LongAccumulator maximo = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param nanos duración a registrar (los negativos cuentan como 0)
+     */
+    public void registrar(long nanos) {
+        if (nanos < 0) nanos = 0;
+        conteos.incrementAndGet(indice(nanos));
+        cantidad.increment();
+        suma.add(nanos);
+        maximo.accumulate(nanos);
+    }
+
+    static int indice(long valor) {
+        if (valor < SUBDIVISIONES) return (int) valor;
+        int exponente = 63 - Long.numberOfLeadingZeros(valor);
+        if (exponente > EXPONENTE_MAXIMO) return CUBETAS - 1;
+        int sub = (int) (valor >>> (exponente - BITS_SUBDIVISION)) & (SUBDIVISIONES - 1);
+        return (exponente - BITS_SUBDIVISION + 1) * SUBDIVISIONES + sub;
+    }
+
+    /**
+     * @return valor central de la cubeta
+     */
+    static long valorCubeta(int indice) {
+        if (indice < SUBDIVISIONES) return indice;
+        int exponente = indice / SUBDIVISIONES + BITS_SUBDIVISION - 1;
+        int sub = indice % SUBDIVISIONES;
+        long ancho = 1L << (exponente - BITS_SUBDIVISION);
+        return ((long) (SUBDIVISIONES + sub) << (exponente - BITS_SUBDIVISION)) + ancho / 2;
+    }
+
+    public long getCantidad() {
+        return cantidad.sum();
+    }
+
+    public long getSumaNanos() {
+        return suma.sum();
+    }
+
+    public long getMaximoNanos() {
+        return maximo.get();
+    }
+
+    public double getPromedioNanos() {
+        long n = cantidad.sum();
+        return n == 0 ? 0 : (double) suma.sum() / n;
+    }
+
+    /**
+     * @param cuantil entre 0 y 1 (por ejemplo 0.99)
+     * @return valor aproximado del cuantil, o 0 si no hay registros
+     */
+    public long getPercentilNanos(double cuantil) {
+        if (cuantil < 0 || cuantil > 1) throw new IllegalArgumentException("El cuantil debe estar entre 0 y 1");
+        long total = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            total += conteos.get(i);
+        }
+        if (total == 0) return 0;
+        long objetivo = Math.max(1, (long) Math.ceil(cuantil * total));
+        long acumulado = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            acumulado += conteos.get(i);
+            if (acumulado >= objetivo) return Math.min(valorCubeta(i), maximo.get());
+        }
+        return maximo.get();
+    }
+
+    /**
+     * Vuelve a cero. Los registros concurrentes con el reinicio pueden perderse.
+     */
+    public void reiniciar() {
+        for (int i = 0; i < CUBETAS; i++) {
+            conteos.set(i, 0);
+        }
+        cantidad.reset();
+        suma.reset();
+        maximo.reset();
+    }
+}
@@ -0,0 +1,93 @@
+package modelo;
+
+/**
+ * Sorteo de llegadas uniformes para muchas estaciones de una vez: sortea con los flujos de la
+ * demanda, suma las llegadas a los pasajeros esperando y arma la máscara de congestión (un bit
+ * por estación con más de {@code umbral} esperando), todo en una pasada sobre arreglos.
+ * <p>
+ * Cada sorteo es el mismo que haría {@link Aleatorio#siguienteEntero(long[], int, int)} estación
+ * por estación, así que el resultado no depende de la implementación. Esta es la escalar; si la
+ * JVM tiene el módulo {@code jdk.incubator.vector} y se compiló con el perfil {@code vector},
+ * {@link #preferida()} devuelve una que usa instrucciones SIMD.
+ */
+class LlegadasEnBloque {
+
+    private static final String CLASE_VECTORIAL = "modelo.LlegadasVectoriales";
+
+    private static final LlegadasEnBloque ESCALAR = new LlegadasEnBloque();
+    private static final LlegadasEnBloque PREFERIDA = cargarVectorial();
+
+    LlegadasEnBloque() {
+    }
+
+    private static LlegadasEnBloque cargarVectorial() {
+        try {
+            return (LlegadasEnBloque) Class.forName(CLASE_VECTORIAL).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError ex) {
+            // Sin el perfil vector o sin --add-modules jdk.incubator.vector
+            return null;
+        }
+    }
+
+    static LlegadasEnBloque escalar() {
+        return ESCALAR;
+    }
+
+    /**
+     * @return la implementación con la Vector API, o null si no está disponible
+     */
+    static LlegadasEnBloque vectorial() {
+        return PREFERIDA;
+    }
+
+    /**
+     * @return la implementación con la Vector API si está disponible; si no, la escalar
+     */
+    static LlegadasEnBloque preferida() {
+        return PREFERIDA != null ? PREFERIDA : ESCALAR;
+    }
+
+    /**
+     * Sortea las llegadas de las estaciones [desde, hasta).
+     * @param flujos un flujo aleatorio por estación (se avanza uno por estación)
+     * @param limite llegadas en [0, limite) por estación
+     * @param atendidas -1 para las estaciones que reciben pasajeros y 0 para las que no, o null si todas
+     * @param llegadas donde se escriben las llegadas de cada estación
+     * @param esperando pasajeros esperando por estación, a los que se suman las llegadas
+     * @param umbral pasajeros esperando a partir de los cuales (exclusivo) se marca la estación
+     * @param congestion máscara de congestión: el bit {@code e % 64} de la palabra {@code e / 64}
+     * @param desde múltiplo de 64, para que cada llamada escriba palabras enteras de la máscara
+     * @param hasta múltiplo de 64, o la cantidad de estaciones
+     */
+    void sortear(long[] flujos, int limite, int[] atendidas, int[] llegadas, int[] esperando,
+                 int umbral, long[] congestion, int desde, int hasta) {
+        for (int base = desde; base < hasta; base += 64) {
+            int fin = Math.min(base + 64, hasta);
+            long bits = 0;
+            for (int e = base; e < fin; e++) {
+                int w = sortearEstacion(flujos, limite, atendidas, llegadas, esperando, e);
+                bits |= (long) ((umbral - w) >>> 31) << (e - base);
+            }
+            congestion[base >>> 6] = bits;
+        }
+    }
+
+    /**
+     * Sorteo de una sola estación (también para el resto que no llena un vector).
+     * @return pasajeros esperando en la estación después de las llegadas
+     */
+    static int sortearEstacion(long[] flujos, int limite, int[] atendidas, int[] llegadas, int[] esperando, int e) {
+        long z = Aleatorio.mezclar(flujos[e] += Aleatorio.PASO);
+        int n = (int) (((z >>> 32) * limite) >>> 32);
+        if (atendidas != null) n &= atendidas[e];
+        llegadas[e] = n;
+        return esperando[e] += n;
+    }
+
+    /**
+     * @return descripción para los informes de benchmarks
+     */
+    String getNombre() {
+        return "escalar";
+    }
+}
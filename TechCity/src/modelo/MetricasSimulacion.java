@@ -0,0 +1,227 @@
+package modelo;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Instrumentación del motor: contadores sin bloqueo ({@link LongAdder}) y un
+ * {@link HistogramaLatencia} por fase del tick.
+ * <p>
+ * Se activa con {@link Simulador#habilitarMetricas()}. Deshabilitada, el tick solo paga la
+ * lectura de un campo nulo. Las métricas se leen desde cualquier hilo, por JMX
+ * ({@link #registrarJmx(String)}) o en formato de texto de Prometheus
+ * ({@link #escribirPrometheus(StringBuilder)}, que sirve {@link ServidorMetricas}).
+ */
+public final class MetricasSimulacion implements MetricasSimulacionMXBean {
+
+    /**
+     * Fases medidas en cada tick.
+     */
+    public enum Fase {
+        /** Llegadas de pasajeros según el modelo de demanda. */
+        DEMANDA,
+        /** Retrasos, avance de autobuses y bajada de pasajeros. */
+        MOVIMIENTO,
+        /** Reubicación en el índice de estaciones y subida de pasajeros. */
+        ABORDAJE,
+        /** Foto del tick y llamadas a los listeners. */
+        NOTIFICACION,
+        /** Avance del modo eventos (llegadas y eventos de autobuses juntos). */
+        EVENTOS,
+        /** Tick completo. */
+        TICK,
+        /**
+         * Lote de varios ticks del modo eventos ({@link Simulador#ejecutarTicks(long)}), con su
+         * única notificación. Sus ticks se cuentan en {@code ticks_total} pero no en las demás fases.
+         */
+        LOTE
+    }
+
+    private final Map<Fase, HistogramaLatencia> fases = new EnumMap<>(Fase.class);
+    private final LongAdder ticks = new LongAdder();
+    private final LongAdder retrasos = new LongAdder();
+    private final LongAdder eventos = new LongAdder();
+    private ObjectName nombreJmx;
+
+    MetricasSimulacion() {
+        for (Fase fase : Fase.values()) {
+            fases.put(fase, new HistogramaLatencia());
+        }
+    }
+
+    /**
+     * Registra la duración de una fase que empezó en {@code inicio} ({@link System#nanoTime()}).
+     * @return el instante actual, para encadenar la fase siguiente
+     */
+    long registrar(Fase fase, long inicio) {
+        long ahora = System.nanoTime();
+        fases.get(fase).registrar(ahora - inicio);
+        return ahora;
+    }
+
+    void sumarTicks(long cantidad) {
+        ticks.add(cantidad);
+    }
+
+    void sumarRetrasos(long cantidad) {
+        if (cantidad > 0) retrasos.add(cantidad);
+    }
+
+    void sumarEventos(long cantidad) {
+        if (cantidad > 0) eventos.add(cantidad);
+    }
+
+    public HistogramaLatencia getHistograma(Fase fase) {
+        return fases.get(fase);
+    }
+
+    @Override
+    public long getTicks() {
+        return ticks.sum();
+    }
+
+    /**
+     * @return retrasos por congestión sumados a los autobuses (en modo eventos, reintentos)
+     */
+    @Override
+    public long getRetrasos() {
+        return retrasos.sum();
+    }
+
+    @Override
+    public long getEventosProcesados() {
+        return eventos.sum();
+    }
+
+    @Override
+    public double getTickPromedioMicros() {
+        return fases.get(Fase.TICK).getPromedioNanos() / 1e3;
+    }
+
+    @Override
+    public double getTickP50Micros() {
+        return percentilMicros(Fase.TICK, 0.5);
+    }
+
+    @Override
+    public double getTickP99Micros() {
+        return percentilMicros(Fase.TICK, 0.99);
+    }
+
+    @Override
+    public double getTickMaximoMicros() {
+        return fases.get(Fase.TICK).getMaximoNanos() / 1e3;
+    }
+
+    @Override
+    public double getDemandaP99Micros() {
+        return percentilMicros(Fase.DEMANDA, 0.99);
+    }
+
+    @Override
+    public double getMovimientoP99Micros() {
+        return percentilMicros(Fase.MOVIMIENTO, 0.99);
+    }
+
+    @Override
+    public double getAbordajeP99Micros() {
+        return percentilMicros(Fase.ABORDAJE, 0.99);
+    }
+
+    @Override
+    public double getNotificacionP99Micros() {
+        return percentilMicros(Fase.NOTIFICACION, 0.99);
+    }
+
+    @Override
+    public double getEventosP99Micros() {
+        return percentilMicros(Fase.EVENTOS, 0.99);
+    }
+
+    private double percentilMicros(Fase fase, double cuantil) {
+        return fases.get(fase).getPercentilNanos(cuantil) / 1e3;
+    }
+
+    @Override
+    public void reiniciar() {
+        for (HistogramaLatencia h : fases.values()) {
+            h.reiniciar();
+        }
+        ticks.reset();
+        retrasos.reset();
+        eventos.reset();
+    }
+
+    /**
+     * Publica las métricas en el servidor de MBeans de la plataforma como
+     * {@code techcity:type=Simulador,name=<nombre>}.
+     */
+    public synchronized void registrarJmx(String nombre) {
+        if (nombreJmx != null) throw new IllegalStateException("Las métricas ya están registradas en JMX");
+        try {
+            ObjectName objeto = new ObjectName("techcity:type=Simulador,name=" + ObjectName.quote(nombre));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objeto);
+            nombreJmx = objeto;
+        } catch (InstanceAlreadyExistsException ex) {
+            throw new IllegalArgumentException("Ya hay métricas registradas con el nombre " + nombre, ex);
+        } catch (JMException ex) {
+            throw new IllegalStateException("No se pudieron registrar las métricas en JMX", ex);
+        }
+    }
+
+    /**
+     * Quita las métricas del servidor de MBeans (si estaban registradas).
+     */
+    public synchronized void desregistrarJmx() {
+        if (nombreJmx == null) return;
+        MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (servidor.isRegistered(nombreJmx)) servidor.unregisterMBean(nombreJmx);
+        } catch (JMException ex) {
+            throw new IllegalStateException("No se pudieron quitar las métricas de JMX", ex);
+        } finally {
+            nombreJmx = null;
+        }
+    }
+
+    /**
+     * Agrega las métricas en el formato de texto de Prometheus (0.0.4): contadores y un
+     * resumen por fase con cuantiles 0.5, 0.9, 0.99 y 0.999 en segundos.
+     */
+    public void escribirPrometheus(StringBuilder salida) {
+        contador(salida, "techcity_ticks_total", "Ticks simulados", ticks.sum());
+        contador(salida, "techcity_retrasos_total", "Retrasos por congestion sumados a los autobuses", retrasos.sum());
+        contador(salida, "techcity_eventos_total", "Eventos de autobuses procesados en modo eventos", eventos.sum());
+        salida.append("# HELP techcity_fase_segundos Duracion de cada fase del tick\n");
+        salida.append("# TYPE techcity_fase_segundos summary\n");
+        for (Fase fase : Fase.values()) {
+            HistogramaLatencia h = fases.get(fase);
+            String etiqueta = fase.name().toLowerCase(Locale.ROOT);
+            for (double q : new double[]{0.5, 0.9, 0.99, 0.999}) {
+                salida.append("techcity_fase_segundos{fase=\"").append(etiqueta).append("\",quantile=\"")
+                        .append(q).append("\"} ").append(segundos(h.getPercentilNanos(q))).append('\n');
+            }
+            salida.append("techcity_fase_segundos_sum{fase=\"").append(etiqueta).append("\"} ")
+                    .append(segundos(h.getSumaNanos())).append('\n');
+            salida.append("techcity_fase_segundos_count{fase=\"").append(etiqueta).append("\"} ")
+                    .append(h.getCantidad()).append('\n');
+        }
+    }
+
+    private static void contador(StringBuilder salida, String nombre, String ayuda, long valor) {
+        salida.append("# HELP ").append(nombre).append(' ').append(ayuda).append('\n');
+        salida.append("# TYPE ").append(nombre).append(" counter\n");
+        salida.append(nombre).append(' ').append(valor).append('\n');
+    }
+
+    private static String segundos(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+}
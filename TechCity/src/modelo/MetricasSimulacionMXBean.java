@@ -0,0 +1,37 @@
+package modelo;
+
+/**
+ * Vista JMX de {@link MetricasSimulacion} (por ejemplo, para JConsole o VisualVM).
+ * Las duraciones están en microsegundos.
+ */
+public interface MetricasSimulacionMXBean {
+
+    long getTicks();
+
+    long getRetrasos();
+
+    long getEventosProcesados();
+
+    double getTickPromedioMicros();
+
+    double getTickP50Micros();
+
+    double getTickP99Micros();
+
+    double getTickMaximoMicros();
+
+    double getDemandaP99Micros();
+
+    double getMovimientoP99Micros();
+
+    double getAbordajeP99Micros();
+
+    double getNotificacionP99Micros();
+
+    double getEventosP99Micros();
+
+    /**
+     * Vuelve a cero contadores e histogramas.
+     */
+    void reiniciar();
+}
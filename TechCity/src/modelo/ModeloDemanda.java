@@ -0,0 +1,37 @@
+package modelo;
+
+/**
+ * Fuente de llegadas de pasajeros a las estaciones.
+ * <p>
+ * En cada tick el simulador llama primero a {@link #prepararTick(long, int[])} desde un solo
+ * hilo y luego a {@link #llegadas(int)} por estación, posiblemente en paralelo para estaciones
+ * distintas. Un modelo disperso informa en {@code prepararTick} qué estaciones reciben
+ * pasajeros, y el simulador solo consulta esas; uno denso devuelve -1 y se consultan todas.
+ *
+ * @see DemandaUniforme
+ * @see DemandaPoisson
+ * @see DemandaHistorica
+ */
+public interface ModeloDemanda {
+
+    /**
+     * Se llama una vez al asignar el modelo a un simulador.
+     * @param numeroEstaciones cantidad de estaciones de la red
+     * @param semilla semilla para los flujos aleatorios del modelo (derivada de la del simulador)
+     */
+    void iniciar(int numeroEstaciones, long semilla);
+
+    /**
+     * Prepara las llegadas del tick. Los ticks se preparan en orden creciente.
+     * @param tick tick que se va a simular
+     * @param activas arreglo (con lugar para todas las estaciones) donde un modelo disperso
+     *                escribe las estaciones que reciben pasajeros en este tick
+     * @return cantidad de estaciones escritas en {@code activas}, o -1 si hay que consultar todas
+     */
+    int prepararTick(long tick, int[] activas);
+
+    /**
+     * @return pasajeros que llegan a la estación en el tick preparado
+     */
+    int llegadas(int estacion);
+}
@@ -0,0 +1,261 @@
+package modelo;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Motor de eventos discretos: alternativa al recorrido de todos los autobuses en cada tick.
+ * <p>
+ * Cada autobús tiene programado su próximo intento de avanzar; los eventos se guardan en una
+ * {@link ColaEventos} y se procesan en orden de tiempo. El costo depende de la cantidad de
+ * eventos y no de autobuses × ticks: un autobús retrasado o detenido por congestión no cuesta
+ * nada mientras espera.
+ * Las llegadas de pasajeros las da el {@link ModeloDemanda} del simulador, tick a tick; con
+ * un modelo disperso (como {@link DemandaPoisson} con tasas bajas) las estaciones sin llegadas
+ * tampoco cuestan nada.
+ * <p>
+ * Diferencias con el modo por ticks:
+ * <ul>
+ * <li>El retraso de un autobús se consume de una vez: al intentar avanzar con retraso
+ * {@code d}, el próximo intento se programa {@code d} ticks después. Mientras tanto
+ * {@code retraso} queda en cero en el almacén y la espera pendiente se calcula con
+ * {@link #getEsperaPendiente(int, long)}.</li>
+ * <li>Si la siguiente estación tiene más de 20 pasajeros, el autobús queda detenido sin evento:
+ * las llegadas solo suben ese número, así que el intento fallaría en cada tick hasta que un
+ * abordaje allí lo baje. Ese abordaje lo vuelve a programar en el tick en que el modo por ticks
+ * lo habría dejado pasar (sin sumar retraso).</li>
+ * <li>Un autobús que avanza llega a su próxima parada en el tick siguiente, así que ese es su
+ * próximo intento.</li>
+ * <li>Cada autobús sube pasajeros al llegar, en orden de eventos (a igual tiempo, por id).</li>
+ * </ul>
+ * No es seguro para hilos: lo usa el simulador desde el hilo que avanza la simulación.
+ */
+final class MotorEventos {
+
+    private final EstadoRed estado;
+    private final RedTransporte red;
+    private final int numeroAutobuses;
+    private final ColaEventos eventos;
+    private final double[] programado; // por autobús: tiempo de su próximo intento de avanzar
+    private final int[] activas;       // estaciones con llegadas en el tick (demanda dispersa)
+    // Autobuses detenidos por congestión, sin evento, en una lista enlazada por estación
+    private final int[] primerDetenido;    // por estación: primer autobús detenido, o -1
+    private final int[] siguienteDetenido; // por autobús: siguiente detenido en la misma estación, o -1
+    private final int[] conDetenidos;      // estaciones con autobuses detenidos, sin orden
+    private final int[] lugarDetenidos;    // por estación: posición en conDetenidos, o -1
+    private int cantidadConDetenidos;
+    private int detenidos;
+    private ModeloDemanda demanda;
+    private long ultimoTick;
+    private long reintentos;           // intentos postergados por congestión (métricas)
+
+    /**
+     * Arma los eventos a partir del estado actual: cada autobús intenta avanzar en el tick
+     * siguiente (o al terminar su retraso).
+     * @param ahora último tick simulado
+     * @param demanda modelo de llegadas, ya iniciado
+     */
+    MotorEventos(EstadoRed estado, long ahora, ModeloDemanda demanda) {
+        this.estado = estado;
+        this.red = estado.getRed();
+        this.numeroAutobuses = estado.getNumeroAutobuses();
+        this.eventos = new ColaEventos(numeroAutobuses);
+        this.programado = new double[numeroAutobuses];
+        this.activas = new int[estado.getNumeroEstaciones()];
+        this.primerDetenido = new int[estado.getNumeroEstaciones()];
+        this.siguienteDetenido = new int[numeroAutobuses];
+        this.conDetenidos = new int[estado.getNumeroEstaciones()];
+        this.lugarDetenidos = new int[estado.getNumeroEstaciones()];
+        Arrays.fill(primerDetenido, -1);
+        Arrays.fill(lugarDetenidos, -1);
+        this.demanda = demanda;
+        this.ultimoTick = ahora;
+        for (int b = 0; b < numeroAutobuses; b++) {
+            programar(b, ahora + 1);
+        }
+    }
+
+    void setDemanda(ModeloDemanda demanda) {
+        this.demanda = demanda;
+    }
+
+    /**
+     * Procesa en orden las llegadas de pasajeros y los eventos de autobuses hasta
+     * {@code tickFinal} inclusive. En cada tick llegan primero los pasajeros, como en el modo por ticks.
+     * @return cantidad de eventos de autobuses procesados
+     */
+    long avanzarHasta(long tickFinal) {
+        long procesados = 0;
+        final int numeroEstaciones = estado.getNumeroEstaciones();
+        // Pasajeros retirados desde fuera del motor (Estacion) pueden haber descongestionado
+        // estaciones con autobuses detenidos; hacia atrás porque liberar mueve la última al hueco
+        for (int i = cantidadConDetenidos - 1; i >= 0; i--) {
+            int e = conDetenidos[i];
+            if (estado.pasajerosEsperando[e] <= DespachoCongestion.UMBRAL) liberar(e, -1, ultimoTick + 1);
+        }
+        for (long k = ultimoTick + 1; k <= tickFinal; k++) {
+            estado.tick = (int) k;
+            int n = demanda.prepararTick(k, activas);
+            if (n < 0) {
+                for (int e = 0; e < numeroEstaciones; e++) {
+                    estado.agregarPasajeros(e, demanda.llegadas(e));
+                }
+            } else {
+                for (int i = 0; i < n; i++) {
+                    estado.agregarPasajeros(activas[i], demanda.llegadas(activas[i]));
+                }
+            }
+            // Un evento en (k - 1, k] pertenece al tick k
+            while (!eventos.estaVacia() && eventos.tiempoMinimo() <= k) {
+                double t = eventos.tiempoMinimo();
+                intentarAvanzar(eventos.extraerMinimo(), t);
+                procesados++;
+            }
+            reintentos += detenidos; // cada detenido habría fallado su intento en este tick
+            ultimoTick = k;
+        }
+        return procesados;
+    }
+
+    private void intentarAvanzar(int bus, double t) {
+        int demora = estado.retraso[bus];
+        if (demora > 0) {
+            // Retraso consumido en bloque
+            estado.retraso[bus] = 0;
+            programar(bus, t + demora);
+            return;
+        }
+        int r = estado.ruta[bus];
+        int siguiente = red.getParada(r, red.getPosicionSiguiente(r, estado.posicion[bus]));
+        if (estado.pasajerosEsperando[siguiente] > DespachoCongestion.UMBRAL) {
+            detener(bus, siguiente, t);
+            return;
+        }
+        estado.moverAutobus(bus, red.getLongitudRuta(r));
+        estado.dejarPasajeros(bus);
+        int estacion = estado.estacionRegistrada[bus];
+        if (estado.recogerPasajeros(bus, estacion) > 0 && primerDetenido[estacion] >= 0
+                && estado.pasajerosEsperando[estacion] <= DespachoCongestion.UMBRAL) {
+            liberar(estacion, bus, estado.tick);
+        }
+        programar(bus, t + 1); // llega a la próxima parada en el tick siguiente
+    }
+
+    /**
+     * Deja el autobús sin evento en la lista de la estación congestionada. Su intento programado
+     * queda en el tick siguiente, como si fuera a reintentar, y sirve para saber desde cuándo espera.
+     */
+    private void detener(int bus, int estacion, double t) {
+        programado[bus] = t + 1;
+        if (primerDetenido[estacion] < 0) {
+            lugarDetenidos[estacion] = cantidadConDetenidos;
+            conDetenidos[cantidadConDetenidos++] = estacion;
+        }
+        siguienteDetenido[bus] = primerDetenido[estacion];
+        primerDetenido[estacion] = bus;
+        detenidos++;
+    }
+
+    /**
+     * Vuelve a programar los autobuses detenidos por la estación en el tick en que el modo por
+     * ticks habría aceptado su reintento: el actual si todavía no les tocaba (código mayor que el
+     * del autobús que la descongestionó y detenidos en un tick anterior), si no el siguiente.
+     * Los intentos fallidos de los detenidos se cuentan al final de cada tick; aquí solo falta
+     * el del tick actual si el reintento pasa al siguiente.
+     * @param autor autobús que abordó en la estación, o -1 si no fue un abordaje del motor
+     */
+    private void liberar(int estacion, int autor, long tick) {
+        for (int b = primerDetenido[estacion]; b >= 0; b = siguienteDetenido[b]) {
+            long detenido = (long) programado[b] - 1;
+            long reintento = b > autor && detenido < tick ? tick : tick + 1;
+            reintentos += reintento - tick;
+            programar(b, reintento);
+            detenidos--;
+        }
+        primerDetenido[estacion] = -1;
+        int lugar = lugarDetenidos[estacion];
+        int ultima = conDetenidos[--cantidadConDetenidos];
+        conDetenidos[lugar] = ultima;
+        lugarDetenidos[ultima] = lugar;
+        lugarDetenidos[estacion] = -1;
+    }
+
+    private void programar(int bus, double t) {
+        programado[bus] = t;
+        eventos.insertar(t, bus);
+    }
+
+    /**
+     * Ticks que el autobús seguirá sin avanzar después de {@code ahora}, como los contaría
+     * {@code retraso} en el modo por ticks.
+     */
+    int getEsperaPendiente(int bus, long ahora) {
+        return estado.retraso[bus] + (int) Math.max(0, programado[bus] - ahora - 1);
+    }
+
+    /**
+     * Completa el retraso de la foto con la espera pendiente de cada autobús.
+     */
+    void completarFoto(FotoSimulacion foto, long ahora) {
+        for (int b = 0; b < numeroAutobuses; b++) {
+            foto.retraso[b] = getEsperaPendiente(b, ahora);
+        }
+    }
+
+    /**
+     * Devuelve las esperas programadas al almacén como retraso, para seguir en el modo por ticks.
+     */
+    void volcarRetrasos(long ahora) {
+        for (int b = 0; b < numeroAutobuses; b++) {
+            estado.retraso[b] = getEsperaPendiente(b, ahora);
+        }
+    }
+
+    /**
+     * Escribe el próximo intento programado de cada autobús (ver {@link PuntoControl}).
+     */
+    void escribir(SalidaMapeada salida) throws IOException {
+        double[] intentos = programado;
+        if (cantidadConDetenidos > 0) {
+            // Los detenidos reintentarían en el tick siguiente; al leerlos vuelven a la cola
+            intentos = programado.clone();
+            for (int i = 0; i < cantidadConDetenidos; i++) {
+                for (int b = primerDetenido[conDetenidos[i]]; b >= 0; b = siguienteDetenido[b]) {
+                    intentos[b] = ultimoTick + 1;
+                }
+            }
+        }
+        salida.escribirDoubles(intentos);
+    }
+
+    /**
+     * Reemplaza los intentos programados por los escritos con {@link #escribir(SalidaMapeada)}.
+     */
+    void leer(EntradaMapeada entrada) throws IOException {
+        entrada.leerDoubles(programado);
+        eventos.vaciar();
+        for (int i = 0; i < cantidadConDetenidos; i++) {
+            primerDetenido[conDetenidos[i]] = -1;
+            lugarDetenidos[conDetenidos[i]] = -1;
+        }
+        cantidadConDetenidos = 0;
+        detenidos = 0;
+        for (int b = 0; b < numeroAutobuses; b++) {
+            eventos.insertar(programado[b], b);
+        }
+    }
+
+    /**
+     * @return intentos de avance postergados por congestión desde que se creó el motor
+     */
+    long getReintentos() {
+        return reintentos;
+    }
+
+    /**
+     * @return eventos en la cola; no cuenta los autobuses detenidos por congestión
+     */
+    int getEventosPendientes() {
+        return eventos.tamano();
+    }
+}
@@ -0,0 +1,440 @@
+package modelo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Una parte de una simulación repartida entre varios procesos: el nodo {@code i} simula las
+ * estaciones del rango {@code [limites[i], limites[i + 1])} y los autobuses que van hacia
+ * ellas.
+ * <p>
+ * Un autobús pertenece al nodo dueño de su <i>siguiente</i> estación: así la regla de
+ * congestión, el movimiento, la bajada y el abordaje de un tick se resuelven con datos
+ * locales. Al terminar el abordaje, los autobuses cuya nueva siguiente estación es de otro
+ * nodo se traspasan con sus pasajeros a bordo. Cada tick termina con una trama por vecino
+ * (vacía si no hay traspasos) y ningún nodo empieza el tick siguiente hasta recibir las de
+ * todos, lo que hace de barrera.
+ * <p>
+ * Con la misma red, flota, capacidad, semilla y demanda, la unión de los nodos evoluciona
+ * exactamente igual que un {@link Simulador} con la política por defecto: los flujos
+ * aleatorios son por estación y el abordaje de cada estación sigue el orden de id.
+ * <p>
+ * El almacén de cada nodo cubre solo su parte: una estación local por estación propia más
+ * una que agrupa a todas las ajenas, y un lugar por autobús de las rutas que pasan por el
+ * nodo (los únicos que pueden llegar a ser propios). El resto de las rutas queda reducido a
+ * una parada en la estación ajena. La red completa se consulta solo para saber a qué nodo
+ * va cada autobús.
+ */
+public final class NodoParticion implements AutoCloseable {
+
+    private static final int BYTES_CABECERA = 8 + 4;
+
+    private final RedTransporte red;      // red completa
+    private final RedTransporte redLocal; // estaciones propias desde 0 y una ajena al final
+    private final EstadoRed estado;       // sobre redLocal, con los autobuses de las rutas del nodo
+    private final int[] limites;
+    private final int indice;
+    private final int desde;
+    private final int hasta;
+    private final int ajena;       // estación local que agrupa a las de otros nodos
+    private final byte[] propio;   // por autobús local: 1 si lo simula este nodo
+    private final byte[] seMovio;
+    private final int[] estacionesActivas;
+    private final ByteBuffer[] salientes; // por nodo: autobuses a traspasar en este tick
+    private final int[] cantidadSalientes;
+
+    private ModeloDemanda demanda;
+    private EnlaceNodos enlace;
+    private long tickActual;
+    private long traspasos;
+    private long retrasos;
+
+    /**
+     * @param red red de estaciones y rutas (la misma en todos los nodos)
+     * @param rutaPorAutobus ruta de cada autobús, como en {@link Simulador}
+     * @param capacidadMaximaPorAutobus capacidad de cada autobús
+     * @param semilla semilla de la corrida (la misma en todos los nodos)
+     * @param limites límites de los rangos de estaciones: empieza en 0, termina en la cantidad
+     *                de estaciones y es creciente (ver {@link #particionar(int, int)})
+     * @param indice nodo que se simula en este proceso
+     */
+    public NodoParticion(RedTransporte red, int[] rutaPorAutobus, int capacidadMaximaPorAutobus, long semilla,
+                         int[] limites, int indice) {
+        if (red == null) throw new IllegalArgumentException("La red no puede ser nula");
+        if (rutaPorAutobus == null || rutaPorAutobus.length == 0) throw new IllegalArgumentException("Debe haber al menos 1 autobús");
+        if (capacidadMaximaPorAutobus <= 0) throw new IllegalArgumentException("La capacidad debe ser positiva");
+        validarLimites(limites, red.getNumeroEstaciones());
+        if (indice < 0 || indice >= limites.length - 1) throw new IllegalArgumentException("Nodo inexistente: " + indice);
+
+        this.red = red;
+        this.limites = limites.clone();
+        this.indice = indice;
+        this.desde = limites[indice];
+        this.hasta = limites[indice + 1];
+        this.ajena = hasta - desde;
+
+        // Rutas que pasan por el nodo; las demás quedan como una parada en la estación ajena
+        boolean[] pasa = new boolean[red.getNumeroRutas()];
+        for (int e = desde; e < hasta; e++) {
+            for (int k = 0, n = red.getCantidadApariciones(e); k < n; k++) {
+                pasa[red.getRutaAparicion(e, k)] = true;
+            }
+        }
+        int[][] rutasLocales = new int[pasa.length][];
+        for (int r = 0; r < pasa.length; r++) {
+            if (!pasa[r]) {
+                rutasLocales[r] = new int[]{ajena};
+                continue;
+            }
+            int[] paradas = new int[red.getLongitudRuta(r)];
+            for (int i = 0; i < paradas.length; i++) {
+                paradas[i] = estacionLocal(red.getParada(r, i));
+            }
+            rutasLocales[r] = paradas;
+        }
+        this.redLocal = new RedTransporte(ajena + 1, rutasLocales);
+
+        int[] posiciones = Simulador.posicionesIniciales(red, rutaPorAutobus);
+        int reservados = 0;
+        for (int r : rutaPorAutobus) {
+            if (pasa[r]) reservados++;
+        }
+        int[] idAutobus = new int[reservados];
+        for (int b = 0, k = 0; b < rutaPorAutobus.length; b++) {
+            if (pasa[rutaPorAutobus[b]]) idAutobus[k++] = b;
+        }
+        this.estado = new EstadoRed(redLocal, semilla, desde, idAutobus);
+        this.propio = new byte[reservados];
+        this.seMovio = new byte[reservados];
+        for (int b = 0; b < reservados; b++) {
+            estado.capacidad[b] = capacidadMaximaPorAutobus;
+            estado.asignarRuta(b, rutaPorAutobus[idAutobus[b]], posiciones[idAutobus[b]]);
+            if (nodoDe(siguienteEstacion(b)) == indice) propio[b] = 1;
+            else estado.soltarAutobus(b);
+        }
+        this.estacionesActivas = new int[red.getNumeroEstaciones()]; // el modelo de demanda es de toda la red
+        int nodos = limites.length - 1;
+        this.salientes = new ByteBuffer[nodos];
+        this.cantidadSalientes = new int[nodos];
+        for (int j = 0; j < nodos; j++) {
+            if (j != indice) salientes[j] = nuevaTrama(64 * EstadoRed.BYTES_AUTOBUS);
+        }
+        setDemanda(new DemandaUniforme(5));
+    }
+
+    /**
+     * Crea el nodo con los autobuses repartidos entre las rutas por turnos, como
+     * {@link Simulador#Simulador(RedTransporte, int, int, long)}.
+     */
+    public NodoParticion(RedTransporte red, int numeroAutobuses, int capacidadMaximaPorAutobus, long semilla,
+                         int[] limites, int indice) {
+        this(red, Simulador.repartirPorTurnos(red, numeroAutobuses), capacidadMaximaPorAutobus, semilla, limites, indice);
+    }
+
+    /**
+     * Reparte las estaciones en {@code nodos} rangos contiguos de tamaño parecido.
+     */
+    public static int[] particionar(int numeroEstaciones, int nodos) {
+        if (nodos < 1 || nodos > numeroEstaciones) {
+            throw new IllegalArgumentException("Debe haber entre 1 y " + numeroEstaciones + " nodos");
+        }
+        int[] limites = new int[nodos + 1];
+        for (int i = 0; i <= nodos; i++) {
+            limites[i] = (int) ((long) i * numeroEstaciones / nodos);
+        }
+        return limites;
+    }
+
+    private static void validarLimites(int[] limites, int numeroEstaciones) {
+        if (limites == null || limites.length < 2 || limites[0] != 0 || limites[limites.length - 1] != numeroEstaciones) {
+            throw new IllegalArgumentException("Los límites deben ir de 0 a " + numeroEstaciones);
+        }
+        for (int i = 1; i < limites.length; i++) {
+            if (limites[i] <= limites[i - 1]) throw new IllegalArgumentException("Cada nodo debe tener al menos 1 estación");
+        }
+    }
+
+    /**
+     * Cambia el modelo de demanda, con la misma semilla derivada que usaría el simulador.
+     * Se consulta solo para las estaciones de este nodo.
+     */
+    public void setDemanda(ModeloDemanda demanda) {
+        if (demanda == null) throw new IllegalArgumentException("El modelo de demanda no puede ser nulo");
+        if (tickActual > 0) throw new IllegalStateException("La demanda se cambia antes del primer tick");
+        demanda.iniciar(red.getNumeroEstaciones(), Aleatorio.derivar(estado.getSemilla(), Aleatorio.DOMINIO_DEMANDA));
+        this.demanda = demanda;
+    }
+
+    /**
+     * Conecta este nodo con los demás por loopback. Todos los nodos deben llamarlo.
+     * @param puertos puerto de cada nodo
+     * @param esperaMs tiempo máximo para que aparezcan los demás nodos
+     */
+    public void conectar(int[] puertos, int esperaMs) throws IOException {
+        if (puertos == null || puertos.length != limites.length - 1) {
+            throw new IllegalArgumentException("Debe haber un puerto por nodo");
+        }
+        if (enlace != null) throw new IllegalStateException("El nodo ya está conectado");
+        enlace = EnlaceNodos.conectar(indice, puertos, esperaMs);
+    }
+
+    /**
+     * Avanza {@code n} ticks junto con los demás nodos.
+     */
+    public void ejecutarTicks(long n) throws IOException {
+        for (long i = 0; i < n; i++) {
+            avanzarTick();
+        }
+    }
+
+    /**
+     * Un tick: demanda de las estaciones propias, congestión, movimiento y abordaje de los
+     * autobuses propios, traspaso de los que salen del rango y barrera con los demás nodos.
+     */
+    public void avanzarTick() throws IOException {
+        if (enlace == null && limites.length > 2) throw new IllegalStateException("El nodo no está conectado");
+        final long tick = tickActual + 1;
+        estado.tick = (int) tick;
+
+        // 1) Llegadas en las estaciones propias
+        int activas = demanda.prepararTick(tick, estacionesActivas);
+        if (activas < 0) {
+            for (int e = desde; e < hasta; e++) {
+                estado.agregarPasajeros(e - desde, demanda.llegadas(e));
+            }
+        } else {
+            for (int i = 0; i < activas; i++) {
+                int e = estacionesActivas[i];
+                if (e >= desde && e < hasta) estado.agregarPasajeros(e - desde, demanda.llegadas(e));
+            }
+        }
+
+        // 2) Congestión, movimiento y bajada. La siguiente estación de un autobús propio es
+        //    propia, y el abordaje todavía no cambió sus conteos
+        final int numeroAutobuses = estado.getNumeroAutobuses();
+        final int[] ruta = estado.ruta;
+        for (int b = 0; b < numeroAutobuses; b++) {
+            seMovio[b] = 0;
+            if (propio[b] == 0) continue;
+            if (DespachoCongestion.siguienteCongestionada(estado, redLocal, b)) {
+                estado.retrasar(b, 1);
+                retrasos++;
+            }
+            if (estado.avanzarAutobus(b, red.getLongitudRuta(ruta[b]))) {
+                estado.dejarPasajeros(b);
+                seMovio[b] = 1;
+            }
+        }
+
+        // 3) Abordaje en orden de id (el de los índices locales) y traspaso de los que ahora van hacia otro nodo
+        for (int b = 0; b < numeroAutobuses; b++) {
+            if (seMovio[b] == 0) continue;
+            estado.reubicarAutobus(b);
+            estado.recogerPasajeros(b, estado.estacionRegistrada[b]);
+            int nodo = nodoDe(siguienteEstacion(b));
+            if (nodo != indice) traspasar(b, nodo);
+        }
+
+        // 4) Barrera: una trama por vecino con los autobuses que recibe
+        if (enlace != null) intercambiar(tick);
+        tickActual = tick;
+    }
+
+    private void traspasar(int bus, int nodo) {
+        ByteBuffer trama = salientes[nodo];
+        if (trama.remaining() < EstadoRed.BYTES_AUTOBUS) {
+            ByteBuffer mayor = ByteBuffer.allocate(trama.capacity() * 2).order(ByteOrder.LITTLE_ENDIAN);
+            trama.flip();
+            mayor.put(trama);
+            salientes[nodo] = trama = mayor;
+        }
+        estado.escribirAutobus(bus, trama);
+        cantidadSalientes[nodo]++;
+        propio[bus] = 0;
+        estado.soltarAutobus(bus);
+        traspasos++;
+    }
+
+    private void intercambiar(long tick) throws IOException {
+        for (int j = 0; j < salientes.length; j++) {
+            if (j == indice) continue;
+            ByteBuffer trama = salientes[j];
+            trama.putLong(0, tick);
+            trama.putInt(8, cantidadSalientes[j]);
+            trama.flip();
+            enlace.enviar(j, trama);
+            trama.clear();
+            trama.position(BYTES_CABECERA);
+            cantidadSalientes[j] = 0;
+        }
+        for (int j = 0; j < salientes.length; j++) {
+            if (j == indice) continue;
+            ByteBuffer trama = enlace.recibir(j);
+            long tickTrama = trama.getLong();
+            if (tickTrama != tick) throw new IOException("El nodo " + j + " envió el tick " + tickTrama + " en el tick " + tick);
+            for (int k = trama.getInt(); k > 0; k--) {
+                propio[estado.leerAutobus(trama)] = 1;
+            }
+        }
+    }
+
+    private static ByteBuffer nuevaTrama(int capacidad) {
+        ByteBuffer trama = ByteBuffer.allocate(BYTES_CABECERA + capacidad).order(ByteOrder.LITTLE_ENDIAN);
+        trama.position(BYTES_CABECERA);
+        return trama;
+    }
+
+    private int estacionLocal(int estacion) {
+        return estacion >= desde && estacion < hasta ? estacion - desde : ajena;
+    }
+
+    private int siguienteEstacion(int bus) {
+        int r = estado.ruta[bus];
+        return red.getParada(r, red.getPosicionSiguiente(r, estado.posicion[bus]));
+    }
+
+    /**
+     * @return nodo dueño de la estación
+     */
+    public int nodoDe(int estacion) {
+        int i = Arrays.binarySearch(limites, estacion);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    // ---- Resultados de este nodo (sumados sobre todos los nodos dan los de la red) ----
+
+    public long getTickActual() {
+        return tickActual;
+    }
+
+    public int getIndice() {
+        return indice;
+    }
+
+    public int getEstacionDesde() {
+        return desde;
+    }
+
+    public int getEstacionHasta() {
+        return hasta;
+    }
+
+    /**
+     * @return true si el autobús lo simula este nodo
+     */
+    public boolean isPropio(int bus) {
+        int b = estado.indiceAutobus(bus);
+        return b >= 0 && propio[b] != 0;
+    }
+
+    /**
+     * @return índice del autobús en {@link #getEstado()}, o -1 si su ruta no pasa por el nodo
+     */
+    public int getIndiceLocal(int bus) {
+        return estado.indiceAutobus(bus);
+    }
+
+    public int getAutobusesPropios() {
+        int n = 0;
+        for (byte p : propio) {
+            n += p;
+        }
+        return n;
+    }
+
+    /**
+     * @return autobuses enviados a otros nodos desde el inicio
+     */
+    public long getTraspasos() {
+        return traspasos;
+    }
+
+    /**
+     * @return ticks de retraso por congestión de los autobuses propios desde el inicio
+     */
+    public long getRetrasos() {
+        return retrasos;
+    }
+
+    /**
+     * @return pasajeros esperando en las estaciones propias
+     */
+    public long getPasajerosEsperando() {
+        long total = 0;
+        for (int e = 0; e < ajena; e++) {
+            total += estado.pasajerosEsperando[e];
+        }
+        return total;
+    }
+
+    /**
+     * @return pasajeros que subieron en las estaciones propias
+     */
+    public long getAbordajes() {
+        long total = 0;
+        for (int e = 0; e < ajena; e++) {
+            total += estado.abordajes[e];
+        }
+        return total;
+    }
+
+    /**
+     * @return ticks esperados por los pasajeros que subieron en las estaciones propias
+     */
+    public long getEsperaAcumulada() {
+        long total = 0;
+        for (int e = 0; e < ajena; e++) {
+            total += estado.esperaAcumulada[e];
+        }
+        return total;
+    }
+
+    /**
+     * @return viajes completados por los autobuses propios (los contadores viajan con el autobús)
+     */
+    public long getViajesCompletados() {
+        long total = 0;
+        for (int b = 0; b < propio.length; b++) {
+            if (propio[b] != 0) total += estado.viajesCompletados[b];
+        }
+        return total;
+    }
+
+    /**
+     * @return duración sumada de esos viajes
+     */
+    public long getTiempoViaje() {
+        long total = 0;
+        for (int b = 0; b < propio.length; b++) {
+            if (propio[b] != 0) total += estado.tiempoViaje[b];
+        }
+        return total;
+    }
+
+    /**
+     * @return pasajeros a bordo de los autobuses propios
+     */
+    public long getPasajerosABordo() {
+        long total = 0;
+        for (int b = 0; b < propio.length; b++) {
+            if (propio[b] != 0) total += estado.pasajerosAutobus[b];
+        }
+        return total;
+    }
+
+    /**
+     * Estado del nodo, con índices locales: la estación {@code e} es la
+     * {@code getEstacionDesde() + e} (la última agrupa las ajenas) y los autobuses se traducen
+     * con {@link #getIndiceLocal(int)}. Los datos de autobuses no propios están desactualizados.
+     */
+    public EstadoRed getEstado() {
+        return estado;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (enlace != null) enlace.close();
+    }
+}
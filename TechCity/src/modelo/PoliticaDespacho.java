@@ -0,0 +1,40 @@
+package modelo;
+
+/**
+ * Control de la flota que corre en cada tick, después de las llegadas de pasajeros y antes
+ * del movimiento: decide qué autobuses esperan (con {@link EstadoRed#retrasar(int, int)}),
+ * cuáles pasan de largo por la próxima parada ({@link EstadoRed#omitirSiguienteParada(int)})
+ * o cuáles se reubican en su ruta ({@link EstadoRed#colocarAutobus(int, int)}).
+ * <p>
+ * Solo se usa en el modo por ticks. Si {@link #isPorAutobus()} es true el simulador puede
+ * repartir {@link #aplicar(EstadoRed, long, int, int)} en rangos de autobuses entre hilos;
+ * si no, la llama una vez con toda la flota, en orden de id, para que el resultado no
+ * dependa de la cantidad de hilos.
+ *
+ * @see DespachoCongestion
+ * @see DespachoIntervalo
+ */
+public interface PoliticaDespacho {
+
+    /**
+     * Se llama una vez al asignar la política a un simulador.
+     */
+    void iniciar(EstadoRed estado);
+
+    /**
+     * Aplica la política a los autobuses [desde, hasta).
+     * @param tick tick que se va a simular
+     * @return ticks de retraso agregados (para las métricas)
+     */
+    int aplicar(EstadoRed estado, long tick, int desde, int hasta);
+
+    /**
+     * @return true si cada autobús se decide solo con sus datos y los conteos de estaciones
+     */
+    boolean isPorAutobus();
+
+    /**
+     * @return nombre corto para tablas y reportes
+     */
+    String getNombre();
+}
@@ -0,0 +1,139 @@
+package modelo;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Guarda y restaura el estado completo de un {@link Simulador} en un archivo binario,
+ * escrito y leído a través de {@link java.nio.MappedByteBuffer}.
+ * <p>
+ * El archivo guarda la red, los contadores de estaciones y autobuses, los pasajeros en
+ * espera y a bordo, el índice de estaciones, los flujos aleatorios, el modelo de demanda y,
+ * en modo eventos, los intentos programados de cada autobús. Una simulación restaurada
+ * continúa exactamente igual que la original. No se guardan los listeners, el reloj ni el
+ * paralelismo (que no cambia el resultado).
+ * <p>
+ * Formato (little-endian): {@link #MAGIA}, {@link #VERSION}, semilla, tick, red, almacén,
+ * demanda, modo y {@link #MAGIA} de cierre. Los arreglos se copian en bloque, así que
+ * guardar o cargar un millón de autobuses toma una fracción de segundo.
+ * Solo se pueden guardar los modelos de demanda de este paquete.
+ */
+public final class PuntoControl {
+
+    /** Primeros 4 bytes del archivo ("TCPC"). */
+    public static final int MAGIA = 0x43504354;
+    /** Versión del formato; cambia cuando cambia lo que se guarda. */
+    public static final int VERSION = 1;
+
+    private static final int DEMANDA_UNIFORME = 0;
+    private static final int DEMANDA_POISSON = 1;
+    private static final int DEMANDA_HISTORICA = 2;
+
+    private PuntoControl() {
+    }
+
+    /**
+     * Guarda el estado del simulador, que debe estar detenido. Si el archivo existe se reemplaza.
+     * @return tamaño del archivo en bytes
+     * @throws IllegalArgumentException si el modelo de demanda no se puede guardar
+     */
+    public static long guardar(Simulador simulador, Path archivo) throws IOException {
+        if (simulador.isEnEjecucion()) {
+            throw new IllegalStateException("Detenga la simulación antes de guardar un punto de control");
+        }
+        if (!(simulador.getPolitica() instanceof DespachoCongestion)) {
+            throw new IllegalStateException("Los puntos de control solo admiten la política de despacho por defecto");
+        }
+        // Primera pasada: solo cuenta los bytes, para mapear el archivo con su tamaño exacto
+        SalidaMapeada contador = new SalidaMapeada();
+        escribir(simulador, contador);
+        long tamano = contador.getPosicion();
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            escribir(simulador, new SalidaMapeada(canal, tamano));
+        }
+        return tamano;
+    }
+
+    /**
+     * Crea un simulador detenido con el estado guardado en el archivo. Usa el reloj por defecto.
+     */
+    public static Simulador cargar(Path archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            EntradaMapeada entrada = new EntradaMapeada(canal);
+            if (entrada.getTamano() < 8 || entrada.leerInt() != MAGIA) {
+                throw new IOException("El archivo no es un punto de control: " + archivo);
+            }
+            int version = entrada.leerInt();
+            if (version != VERSION) throw new IOException("Versión de punto de control no soportada: " + version);
+
+            long semilla = entrada.leerLong();
+            long tick = entrada.leerLong();
+            if (tick < 0) throw new IOException("Tick inválido en el archivo: " + tick);
+            RedTransporte red = RedTransporte.leer(entrada);
+            int numeroAutobuses = entrada.leerCantidad(Integer.MAX_VALUE);
+            if (numeroAutobuses == 0) throw new IOException("El punto de control no tiene autobuses");
+
+            // La ruta, posición y capacidad de cada autobús se reemplazan al leer el almacén
+            Simulador simulador = new Simulador(red, new int[numeroAutobuses], 1, semilla);
+            simulador.getEstado().leer(entrada);
+            ModeloDemanda demanda = leerDemanda(entrada, red.getNumeroEstaciones());
+            boolean eventos = entrada.leerInt() != 0;
+            MotorEventos motor = simulador.restaurar(tick, demanda, eventos);
+            if (motor != null) motor.leer(entrada);
+
+            if (entrada.leerInt() != MAGIA || entrada.getPosicion() != entrada.getTamano()) {
+                throw new IOException("El punto de control está dañado: " + archivo);
+            }
+            return simulador;
+        }
+    }
+
+    private static void escribir(Simulador simulador, SalidaMapeada salida) throws IOException {
+        EstadoRed estado = simulador.getEstado();
+        salida.escribirInt(MAGIA);
+        salida.escribirInt(VERSION);
+        salida.escribirLong(estado.getSemilla());
+        salida.escribirLong(simulador.getTickActual());
+        estado.getRed().escribir(salida);
+        salida.escribirInt(estado.getNumeroAutobuses());
+        estado.escribir(salida);
+        escribirDemanda(simulador.getDemanda(), salida);
+        MotorEventos motor = simulador.getMotorEventos();
+        salida.escribirInt(motor != null ? 1 : 0);
+        if (motor != null) motor.escribir(salida);
+        salida.escribirInt(MAGIA);
+    }
+
+    private static void escribirDemanda(ModeloDemanda demanda, SalidaMapeada salida) throws IOException {
+        if (demanda instanceof DemandaUniforme) {
+            salida.escribirInt(DEMANDA_UNIFORME);
+            ((DemandaUniforme) demanda).escribir(salida);
+        } else if (demanda instanceof DemandaPoisson) {
+            salida.escribirInt(DEMANDA_POISSON);
+            ((DemandaPoisson) demanda).escribir(salida);
+        } else if (demanda instanceof DemandaHistorica) {
+            salida.escribirInt(DEMANDA_HISTORICA);
+            ((DemandaHistorica) demanda).escribir(salida);
+        } else {
+            throw new IllegalArgumentException("El modelo de demanda " + demanda.getClass().getName()
+                    + " no se puede guardar en un punto de control");
+        }
+    }
+
+    private static ModeloDemanda leerDemanda(EntradaMapeada entrada, int numeroEstaciones) throws IOException {
+        int tipo = entrada.leerInt();
+        switch (tipo) {
+            case DEMANDA_UNIFORME:
+                return DemandaUniforme.leer(entrada, numeroEstaciones);
+            case DEMANDA_POISSON:
+                return DemandaPoisson.leer(entrada, numeroEstaciones);
+            case DEMANDA_HISTORICA:
+                return DemandaHistorica.leer(entrada, numeroEstaciones);
+            default:
+                throw new IOException("Modelo de demanda desconocido en el archivo: " + tipo);
+        }
+    }
+}
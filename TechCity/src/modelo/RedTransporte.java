@@ -0,0 +1,204 @@
+package modelo;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Grafo de la red: estaciones y rutas que pasan por ellas.
+ * <p>
+ * Cada ruta es una secuencia circular de paradas (al llegar a la última vuelve a la primera);
+ * una línea de ida y vuelta se describe listando las paradas de ida y luego las de vuelta.
+ * Las rutas se guardan en formato CSR: las paradas de la ruta {@code r} están en
+ * {@code paradas[inicioRuta[r] .. inicioRuta[r + 1])}, sin un objeto por ruta ni por tramo.
+ * También se guarda el índice inverso estación -> (ruta, posición), que indica en qué rutas
+ * está cada estación y permite reconocer los transbordos.
+ * <p>
+ * Es inmutable: puede compartirse entre simuladores e hilos.
+ */
+public final class RedTransporte {
+
+    private final int numeroEstaciones;
+
+    // Rutas (CSR)
+    private final int[] inicioRuta;
+    private final int[] paradas;
+
+    // Índice inverso (CSR): apariciones de cada estación en las rutas
+    private final int[] inicioEstacion;
+    private final int[] rutaAparicion;
+    private final int[] posicionAparicion;
+
+    /**
+     * Crea la red a partir de las paradas de cada ruta.
+     * @param numeroEstaciones cantidad de estaciones (>=1)
+     * @param rutas por ruta, índices de sus paradas en orden de recorrido (al menos una parada cada una)
+     */
+    public RedTransporte(int numeroEstaciones, int[][] rutas) {
+        if (numeroEstaciones <= 0) throw new IllegalArgumentException("Debe haber al menos 1 estación");
+        if (rutas == null || rutas.length == 0) throw new IllegalArgumentException("Debe haber al menos 1 ruta");
+        this.numeroEstaciones = numeroEstaciones;
+
+        int total = 0;
+        for (int r = 0; r < rutas.length; r++) {
+            if (rutas[r] == null || rutas[r].length == 0) {
+                throw new IllegalArgumentException("La ruta " + r + " no tiene paradas");
+            }
+            total += rutas[r].length;
+        }
+        this.inicioRuta = new int[rutas.length + 1];
+        this.paradas = new int[total];
+        int k = 0;
+        for (int r = 0; r < rutas.length; r++) {
+            inicioRuta[r] = k;
+            for (int estacion : rutas[r]) {
+                if (estacion < 0 || estacion >= numeroEstaciones) {
+                    throw new IllegalArgumentException("La ruta " + r + " usa una estación inexistente: " + estacion);
+                }
+                paradas[k++] = estacion;
+            }
+        }
+        inicioRuta[rutas.length] = k;
+
+        // Índice inverso por ordenamiento por conteo: queda ordenado por ruta y posición
+        this.inicioEstacion = new int[numeroEstaciones + 1];
+        for (int p : paradas) {
+            inicioEstacion[p + 1]++;
+        }
+        for (int e = 1; e <= numeroEstaciones; e++) {
+            inicioEstacion[e] += inicioEstacion[e - 1];
+        }
+        this.rutaAparicion = new int[total];
+        this.posicionAparicion = new int[total];
+        int[] cursor = inicioEstacion.clone();
+        for (int r = 0; r < rutas.length; r++) {
+            for (int i = inicioRuta[r]; i < inicioRuta[r + 1]; i++) {
+                int c = cursor[paradas[i]]++;
+                rutaAparicion[c] = r;
+                posicionAparicion[c] = i - inicioRuta[r];
+            }
+        }
+    }
+
+    /**
+     * Red de una sola ruta circular que pasa por todas las estaciones en orden de índice.
+     */
+    public static RedTransporte circular(int numeroEstaciones) {
+        if (numeroEstaciones <= 0) throw new IllegalArgumentException("Debe haber al menos 1 estación");
+        int[] ruta = new int[numeroEstaciones];
+        for (int i = 0; i < numeroEstaciones; i++) {
+            ruta[i] = i;
+        }
+        return new RedTransporte(numeroEstaciones, new int[][]{ruta});
+    }
+
+    public int getNumeroEstaciones() {
+        return numeroEstaciones;
+    }
+
+    public int getNumeroRutas() {
+        return inicioRuta.length - 1;
+    }
+
+    /**
+     * @return total de paradas sumando todas las rutas
+     */
+    public int getNumeroParadas() {
+        return paradas.length;
+    }
+
+    public int getLongitudRuta(int ruta) {
+        return inicioRuta[ruta + 1] - inicioRuta[ruta];
+    }
+
+    /**
+     * @return estación en la posición {@code posicion} de la ruta
+     */
+    public int getParada(int ruta, int posicion) {
+        return paradas[inicioRuta[ruta] + posicion];
+    }
+
+    /**
+     * Índice global de una parada de ruta, entre 0 y {@link #getNumeroParadas()} - 1.
+     * Sirve para guardar datos por parada (por ejemplo, la cola de pasajeros de cada ruta en una estación).
+     */
+    public int getIndiceParada(int ruta, int posicion) {
+        return inicioRuta[ruta] + posicion;
+    }
+
+    /**
+     * @return posición siguiente en la ruta circular
+     */
+    public int getPosicionSiguiente(int ruta, int posicion) {
+        int siguiente = posicion + 1;
+        return siguiente == getLongitudRuta(ruta) ? 0 : siguiente;
+    }
+
+    /**
+     * @return cantidad de veces que las rutas pasan por la estación
+     */
+    public int getCantidadApariciones(int estacion) {
+        return inicioEstacion[estacion + 1] - inicioEstacion[estacion];
+    }
+
+    /**
+     * @param k índice de la aparición, entre 0 y {@link #getCantidadApariciones(int)} - 1
+     * @return ruta de la k-ésima aparición de la estación
+     */
+    public int getRutaAparicion(int estacion, int k) {
+        return rutaAparicion[inicioEstacion[estacion] + k];
+    }
+
+    /**
+     * @param k índice de la aparición, entre 0 y {@link #getCantidadApariciones(int)} - 1
+     * @return posición dentro de su ruta de la k-ésima aparición de la estación
+     */
+    public int getPosicionAparicion(int estacion, int k) {
+        return posicionAparicion[inicioEstacion[estacion] + k];
+    }
+
+    /**
+     * @return true si por la estación pasa más de una ruta
+     */
+    public boolean esTransbordo(int estacion) {
+        int desde = inicioEstacion[estacion];
+        int hasta = inicioEstacion[estacion + 1];
+        for (int k = desde + 1; k < hasta; k++) {
+            if (rutaAparicion[k] != rutaAparicion[desde]) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Escribe la cantidad de estaciones y las paradas de cada ruta (ver {@link PuntoControl}).
+     */
+    void escribir(SalidaMapeada salida) throws IOException {
+        salida.escribirInt(numeroEstaciones);
+        salida.escribirInt(getNumeroRutas());
+        salida.escribirInts(inicioRuta);
+        salida.escribirInts(paradas);
+    }
+
+    /**
+     * Lee una red escrita con {@link #escribir(SalidaMapeada)}; el índice inverso se reconstruye.
+     */
+    static RedTransporte leer(EntradaMapeada entrada) throws IOException {
+        int numeroEstaciones = entrada.leerCantidad(Integer.MAX_VALUE);
+        int numeroRutas = entrada.leerCantidad(Integer.MAX_VALUE - 1);
+        int[] inicio = new int[numeroRutas + 1];
+        entrada.leerInts(inicio);
+        int total = inicio[numeroRutas];
+        if (total < 0) throw new IOException("Cantidad de paradas inválida: " + total);
+        int[] todas = new int[total];
+        entrada.leerInts(todas);
+        int[][] rutas = new int[numeroRutas][];
+        for (int r = 0; r < numeroRutas; r++) {
+            if (inicio[r] < 0 || inicio[r] > inicio[r + 1]) throw new IOException("Rutas inválidas en el archivo");
+            rutas[r] = Arrays.copyOfRange(todas, inicio[r], inicio[r + 1]);
+        }
+        try {
+            return new RedTransporte(numeroEstaciones, rutas);
+        } catch (IllegalArgumentException ex) {
+            throw new IOException("Red inválida en el archivo: " + ex.getMessage(), ex);
+        }
+    }
+}
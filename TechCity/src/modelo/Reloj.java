@@ -0,0 +1,24 @@
+package modelo;
+
+/**
+ * Fuente de ticks del simulador. Decide en qué hilo y a qué ritmo se ejecuta
+ * {@link Simulador#actualizarSimulacion()}, de modo que el modelo no dependa de Swing.
+ */
+public interface Reloj {
+
+    /**
+     * Comienza a invocar la tarea de forma periódica.
+     * @param tarea acción a ejecutar en cada tick
+     */
+    void iniciar(Runnable tarea);
+
+    /**
+     * Detiene las invocaciones periódicas.
+     */
+    void detener();
+
+    /**
+     * @return true si el reloj está generando ticks
+     */
+    boolean isActivo();
+}
@@ -0,0 +1,149 @@
+package modelo;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Reloj de paso fijo que corre en un hilo dedicado, sin depender de Swing.
+ * Con periodo 0 ejecuta los ticks tan rápido como lo permita la CPU.
+ */
+public class RelojHilo implements Reloj {
+
+    /** Periodo que indica "tan rápido como sea posible". */
+    public static final long MAXIMA_VELOCIDAD = 0L;
+
+    private volatile long periodoNanos;
+    private volatile boolean activo;
+    private volatile Thread hilo;   // null cuando no hay un hilo corriendo el bucle
+    private volatile Runnable tarea;
+
+    /**
+     * Constructor.
+     * @param periodoMs milisegundos entre ticks (0 = máxima velocidad)
+     */
+    public RelojHilo(long periodoMs) {
+        setPeriodoNanos(TimeUnit.MILLISECONDS.toNanos(periodoMs));
+    }
+
+    /**
+     * Crea un reloj con una frecuencia dada.
+     * @param ticksPorSegundo ticks por segundo (> 0)
+     */
+    public static RelojHilo conFrecuencia(double ticksPorSegundo) {
+        RelojHilo reloj = new RelojHilo(MAXIMA_VELOCIDAD);
+        reloj.setTicksPorSegundo(ticksPorSegundo);
+        return reloj;
+    }
+
+    /**
+     * Crea un reloj que no espera entre ticks.
+     */
+    public static RelojHilo maximaVelocidad() {
+        return new RelojHilo(MAXIMA_VELOCIDAD);
+    }
+
+    @Override
+    public synchronized void iniciar(Runnable tarea) {
+        if (tarea == null) throw new IllegalArgumentException("La tarea no puede ser nula");
+        if (activo) return;
+        this.tarea = tarea;
+        activo = true;
+        // Si el hilo anterior aún termina su último tick, él mismo sigue (ver bucle): no se
+        // solapan ticks y quien llama (el EDT al reanudar) no espera a que termine
+        if (hilo == null) {
+            Thread nuevo = new Thread(this::bucle, "techcity-reloj");
+            nuevo.setDaemon(true);
+            hilo = nuevo;
+            nuevo.start();
+        }
+    }
+
+    @Override
+    public synchronized void detener() {
+        activo = false;
+        if (hilo != null) {
+            LockSupport.unpark(hilo);
+        }
+    }
+
+    @Override
+    public boolean isActivo() {
+        return activo;
+    }
+
+    /**
+     * Bucle de paso fijo: espera hasta el siguiente instante programado y ejecuta un tick.
+     * Si un tick tarda más que el periodo no se acumulan ráfagas de ticks atrasados.
+     * Si el periodo cambia durante la espera, el tick pendiente se reprograma con el nuevo
+     * (a 0.25 ticks por segundo no hace falta esperar 4 s para acelerar).
+     * <p>
+     * Al detenerse, el hilo decide con el candado del reloj si termina: si lo reactivaron
+     * mientras terminaba el último tick, sigue corriendo en lugar de dejar paso a otro.
+     */
+    private void bucle() {
+        boolean normal = false;
+        try {
+            while (true) {
+                long periodo = periodoNanos;
+                long siguiente = System.nanoTime() + periodo;
+                while (activo) {
+                    long espera;
+                    while (activo && (espera = siguiente - System.nanoTime()) > 0) {
+                        LockSupport.parkNanos(this, espera);
+                        long nuevo = periodoNanos;
+                        if (nuevo != periodo) {
+                            siguiente += nuevo - periodo;
+                            periodo = nuevo;
+                        }
+                    }
+                    if (!activo) break;
+
+                    tarea.run();
+
+                    periodo = periodoNanos;
+                    long ahora = System.nanoTime();
+                    siguiente += periodo;
+                    if (siguiente < ahora) siguiente = ahora;
+                }
+                synchronized (this) {
+                    if (!activo) {
+                        hilo = null;
+                        normal = true;
+                        return;
+                    }
+                }
+            }
+        } finally {
+            if (!normal) {
+                // La tarea lanzó una excepción: el reloj queda detenido
+                synchronized (this) {
+                    activo = false;
+                    hilo = null;
+                }
+            }
+        }
+    }
+
+    public long getPeriodoNanos() {
+        return periodoNanos;
+    }
+
+    /**
+     * Cambia el periodo. Se aplica al tick pendiente, contando desde el anterior.
+     * @param periodoNanos nanosegundos entre ticks (0 = máxima velocidad)
+     */
+    public void setPeriodoNanos(long periodoNanos) {
+        this.periodoNanos = Math.max(MAXIMA_VELOCIDAD, periodoNanos);
+        Thread h = hilo;
+        if (h != null) LockSupport.unpark(h);
+    }
+
+    /**
+     * Cambia la frecuencia de ticks.
+     * @param ticksPorSegundo ticks por segundo (> 0)
+     */
+    public void setTicksPorSegundo(double ticksPorSegundo) {
+        if (!(ticksPorSegundo > 0)) throw new IllegalArgumentException("La frecuencia debe ser positiva");
+        setPeriodoNanos(Math.round(TimeUnit.SECONDS.toNanos(1) / ticksPorSegundo));
+    }
+}
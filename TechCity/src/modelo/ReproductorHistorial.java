@@ -0,0 +1,477 @@
+package modelo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static modelo.FormatoHistorial.*;
+
+/**
+ * Reproduce un archivo grabado con {@link GrabadorHistorial} y notifica a los mismos
+ * listeners que el simulador, de modo que la interfaz (tablas y mapa) puede mostrar una
+ * corrida grabada igual que una en vivo.
+ * <p>
+ * El estado se reconstruye en un {@link EstadoRed} propio aplicando los cambios de cada foto;
+ * las vistas de {@link #getEstaciones()} y {@link #getAutobuses()} leen de él. Los bloques se
+ * leen mapeando el archivo y se descomprimen de a uno cuando hacen falta.
+ * <p>
+ * La velocidad la marca el {@link Reloj} (por defecto un {@link RelojHilo} de 1 segundo) y
+ * {@link #setFotosPorPaso(int)}: en cada paso se aplican varias fotos y se notifica una vez.
+ * Al terminar el archivo la reproducción se detiene sola.
+ */
+public final class ReproductorHistorial implements Closeable {
+
+    private final Path archivo;
+    private final FileChannel canal;
+    private final RedTransporte red;
+    private final EstadoRed estado;
+    private final List<Estacion> estaciones;
+    private final List<Autobus> autobuses;
+    private final long inicioCabeceraColumnas; // posición del estado inicial (columnas) en el archivo
+    private final long tickInicial;
+
+    // Índice de bloques, armado al abrir
+    private long[] posicionBloque = new long[16];
+    private int[] fotosBloque = new int[16];
+    private int numeroBloques;
+    private int totalFotos;
+    private long tickFinal;
+
+    // Bloque descomprimido en curso
+    private final Inflater descompresor = new Inflater();
+    private byte[] comprimido = new byte[0];
+    private byte[] crudo = new byte[0];
+    private int bloqueActual = -1;
+    private long[] tickFoto = new long[0];
+    private final int[][] inicioFoto = new int[COLUMNAS][];  // por columna: inicio de los cambios de cada foto
+    private final int[][] indices = new int[COLUMNAS][];
+    private final long[][] diferencias = new long[COLUMNAS][];
+    private int fotoEnBloque;
+    private long tickActual;
+
+    private final List<Simulador.SimulacionListener> listeners = new CopyOnWriteArrayList<>();
+    private final List<Simulador.FotoListener> fotoListeners = new CopyOnWriteArrayList<>();
+    private volatile BufferFotos bufferFotos;
+    private Reloj reloj = new RelojHilo(1000);
+    private volatile boolean enEjecucion;
+    private volatile int fotosPorPaso = 1;
+
+    private ReproductorHistorial(Path archivo, FileChannel canal) throws IOException {
+        this.archivo = archivo;
+        this.canal = canal;
+        EntradaMapeada entrada = new EntradaMapeada(canal);
+        if (entrada.getTamano() < 8 || entrada.leerInt() != MAGIA) {
+            throw new IOException("El archivo no es un historial de simulación: " + archivo);
+        }
+        int version = entrada.leerInt();
+        if (version != VERSION) throw new IOException("Versión de historial no soportada: " + version);
+        this.red = RedTransporte.leer(entrada);
+        int numeroAutobuses = entrada.leerCantidad(Integer.MAX_VALUE);
+        this.estado = new EstadoRed(red, numeroAutobuses, 0L);
+        int[] rutas = new int[numeroAutobuses];
+        entrada.leerInts(rutas);
+        for (int b = 0; b < numeroAutobuses; b++) {
+            try {
+                estado.asignarRuta(b, rutas[b], 0);
+            } catch (IllegalArgumentException ex) {
+                throw new IOException("Historial dañado: " + ex.getMessage(), ex);
+            }
+        }
+        this.tickInicial = entrada.leerLong();
+        this.inicioCabeceraColumnas = entrada.getPosicion();
+        // Dos columnas por estación y cinco por autobús, de 8 bytes por valor
+        long inicioBloques = inicioCabeceraColumnas + 8L * (2L * estado.getNumeroEstaciones() + 5L * numeroAutobuses);
+        this.estaciones = estado.vistaEstaciones();
+        this.autobuses = estado.vistaAutobuses(estaciones);
+        indexarBloques(inicioBloques, entrada.getTamano());
+        restablecer();
+    }
+
+    /**
+     * Abre un historial y deja el estado en su primera foto.
+     */
+    public static ReproductorHistorial abrir(Path archivo) throws IOException {
+        FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ);
+        try {
+            return new ReproductorHistorial(archivo, canal);
+        } catch (IOException | RuntimeException ex) {
+            canal.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Recorre las cabeceras de los bloques. Un último bloque incompleto (por ejemplo, si el
+     * programa que grababa terminó sin cerrar el grabador) se ignora.
+     */
+    private void indexarBloques(long posicion, long tamano) throws IOException {
+        ByteBuffer cabecera = ByteBuffer.allocate(CABECERA_BLOQUE).order(ByteOrder.LITTLE_ENDIAN);
+        tickFinal = tickInicial;
+        while (posicion + CABECERA_BLOQUE <= tamano) {
+            cabecera.clear();
+            while (cabecera.hasRemaining() && canal.read(cabecera, posicion + cabecera.position()) > 0) {
+                // leer hasta completar la cabecera
+            }
+            cabecera.flip();
+            cabecera.getLong(); // tick base
+            int fotos = cabecera.getInt();
+            cabecera.getInt(); // bytes crudos
+            int bytesComprimidos = cabecera.getInt();
+            if (fotos <= 0 || bytesComprimidos < 0 || posicion + CABECERA_BLOQUE + bytesComprimidos > tamano) break;
+            if (numeroBloques == posicionBloque.length) {
+                posicionBloque = Arrays.copyOf(posicionBloque, numeroBloques * 2);
+                fotosBloque = Arrays.copyOf(fotosBloque, numeroBloques * 2);
+            }
+            posicionBloque[numeroBloques] = posicion;
+            fotosBloque[numeroBloques] = fotos;
+            numeroBloques++;
+            totalFotos += fotos;
+            posicion += CABECERA_BLOQUE + bytesComprimidos;
+        }
+        if (numeroBloques > 0) {
+            // El último tick se conoce al descomprimir el último bloque
+            cargarBloque(numeroBloques - 1);
+            tickFinal = tickFoto[fotosBloque[numeroBloques - 1] - 1];
+            bloqueActual = -1;
+        }
+    }
+
+    /**
+     * Vuelve al estado de la primera foto (la cabecera del archivo).
+     */
+    private void restablecer() throws IOException {
+        EntradaMapeada entrada = new EntradaMapeada(canal, inicioCabeceraColumnas);
+        int numeroAutobuses = estado.getNumeroAutobuses();
+        long[] valores = new long[Math.max(estado.getNumeroEstaciones(), numeroAutobuses)];
+        for (int c = 0; c < COLUMNAS; c++) {
+            int n = esDeEstacion(c) ? estado.getNumeroEstaciones() : numeroAutobuses;
+            entrada.leerLongs(valores, 0, n);
+            for (int i = 0; i < n; i++) {
+                fijar(c, i, valores[i]);
+            }
+        }
+        tickActual = tickInicial;
+        bloqueActual = -1;
+        fotoEnBloque = 0;
+    }
+
+    private long valor(int columna, int i) {
+        switch (columna) {
+            case ESPERANDO: return estado.pasajerosEsperando[i];
+            case SUBIDAS: return estado.abordajes[i];
+            case POSICION: return estado.posicion[i];
+            case CARGA: return estado.pasajerosAutobus[i];
+            case RETRASO: return estado.retraso[i];
+            case BAJADAS: return estado.viajesCompletados[i];
+            default: return estado.capacidad[i];
+        }
+    }
+
+    private void fijar(int columna, int i, long valor) {
+        switch (columna) {
+            case ESPERANDO: estado.pasajerosEsperando[i] = (int) valor; break;
+            case SUBIDAS: estado.abordajes[i] = valor; break;
+            case POSICION: estado.colocarAutobus(i, (int) valor); break;
+            case CARGA: estado.pasajerosAutobus[i] = (int) valor; break;
+            case RETRASO: estado.retraso[i] = (int) valor; break;
+            case BAJADAS: estado.viajesCompletados[i] = valor; break;
+            default: estado.capacidad[i] = (int) valor; break;
+        }
+    }
+
+    /**
+     * Descomprime un bloque y decodifica sus columnas.
+     */
+    private void cargarBloque(int bloque) throws IOException {
+        long posicion = posicionBloque[bloque];
+        MappedByteBuffer mapa = canal.map(FileChannel.MapMode.READ_ONLY, posicion, CABECERA_BLOQUE);
+        mapa.order(ByteOrder.LITTLE_ENDIAN);
+        long tickBase = mapa.getLong();
+        int fotos = mapa.getInt();
+        int bytesCrudos = mapa.getInt();
+        int bytesComprimidos = mapa.getInt();
+
+        // Inflater no acepta búferes en Java 8: una copia de los datos comprimidos
+        if (comprimido.length < bytesComprimidos) comprimido = new byte[bytesComprimidos];
+        if (crudo.length < bytesCrudos) crudo = new byte[bytesCrudos];
+        canal.map(FileChannel.MapMode.READ_ONLY, posicion + CABECERA_BLOQUE, bytesComprimidos)
+                .get(comprimido, 0, bytesComprimidos);
+        descompresor.reset();
+        descompresor.setInput(comprimido, 0, bytesComprimidos);
+        try {
+            int leidos = 0;
+            while (leidos < bytesCrudos && !descompresor.finished()) {
+                int n = descompresor.inflate(crudo, leidos, bytesCrudos - leidos);
+                if (n == 0 && (descompresor.needsInput() || descompresor.needsDictionary())) break;
+                leidos += n;
+            }
+            if (leidos != bytesCrudos) throw new IOException("Bloque " + bloque + " del historial incompleto");
+        } catch (DataFormatException ex) {
+            throw new IOException("Bloque " + bloque + " del historial dañado", ex);
+        }
+
+        LectorBytes lector = new LectorBytes(crudo, bytesCrudos);
+        if (tickFoto.length < fotos) tickFoto = new long[fotos];
+        long tick = tickBase;
+        for (int f = 0; f < fotos; f++) {
+            tick += lector.varint();
+            tickFoto[f] = tick;
+        }
+        for (int c = 0; c < COLUMNAS; c++) {
+            int[] inicio = inicioFoto[c];
+            if (inicio == null || inicio.length < fotos + 1) inicio = inicioFoto[c] = new int[fotos + 1];
+            int total = 0;
+            for (int f = 0; f < fotos; f++) {
+                inicio[f] = total;
+                total += (int) lector.varint();
+            }
+            inicio[fotos] = total;
+            if (indices[c] == null || indices[c].length < total) {
+                indices[c] = new int[total];
+                diferencias[c] = new long[total];
+            }
+            int limite = esDeEstacion(c) ? estado.getNumeroEstaciones() : estado.getNumeroAutobuses();
+            for (int f = 0; f < fotos; f++) {
+                int indice = 0;
+                for (int k = inicio[f]; k < inicio[f + 1]; k++) {
+                    indice += (int) lector.varint();
+                    if (indice < 0 || indice >= limite) throw new IOException("Bloque " + bloque + " del historial dañado");
+                    indices[c][k] = indice;
+                    diferencias[c][k] = desZigzag(lector.varint());
+                }
+            }
+        }
+        bloqueActual = bloque;
+        fotoEnBloque = 0;
+    }
+
+    /**
+     * Aplica la siguiente foto sin notificar.
+     * @return false si no quedan fotos
+     */
+    private boolean aplicarSiguiente() throws IOException {
+        if (bloqueActual < 0 || fotoEnBloque == fotosBloque[bloqueActual]) {
+            int siguiente = bloqueActual + 1;
+            if (siguiente >= numeroBloques) return false;
+            cargarBloque(siguiente);
+        }
+        int f = fotoEnBloque++;
+        for (int c = 0; c < COLUMNAS; c++) {
+            int[] idx = indices[c];
+            long[] dif = diferencias[c];
+            for (int k = inicioFoto[c][f], fin = inicioFoto[c][f + 1]; k < fin; k++) {
+                fijar(c, idx[k], valor(c, idx[k]) + dif[k]);
+            }
+        }
+        tickActual = tickFoto[f];
+        return true;
+    }
+
+    /**
+     * Avanza {@link #getFotosPorPaso()} fotos y notifica a los listeners.
+     * @return false si el historial ya había terminado
+     */
+    public boolean avanzar() throws IOException {
+        boolean avanzo = false;
+        for (int i = 0, n = fotosPorPaso; i < n && aplicarSiguiente(); i++) {
+            avanzo = true;
+        }
+        if (avanzo) notificarActualizacion();
+        return avanzo;
+    }
+
+    /**
+     * Lleva el estado a la última foto con tick menor o igual a {@code tick} y notifica.
+     * Hacia atrás vuelve a aplicar desde el principio.
+     */
+    public void irA(long tick) throws IOException {
+        if (enEjecucion) throw new IllegalStateException("Detenga la reproducción antes de saltar");
+        if (tick < tickActual) restablecer();
+        // Saltar bloques enteros sin descomprimirlos no es posible: los cambios son acumulativos
+        while (tieneSiguiente() && siguienteTick() <= tick) {
+            aplicarSiguiente();
+        }
+        notificarActualizacion();
+    }
+
+    private boolean tieneSiguiente() {
+        return (bloqueActual >= 0 && fotoEnBloque < fotosBloque[bloqueActual]) || bloqueActual + 1 < numeroBloques;
+    }
+
+    private long siguienteTick() throws IOException {
+        if (bloqueActual < 0 || fotoEnBloque == fotosBloque[bloqueActual]) {
+            cargarBloque(bloqueActual + 1);
+        }
+        return tickFoto[fotoEnBloque];
+    }
+
+    private void notificarActualizacion() {
+        BufferFotos buffer = bufferFotos;
+        if (buffer != null) {
+            FotoSimulacion foto = buffer.getEscritura();
+            foto.capturar(estado, tickActual);
+            buffer.publicar(); // antes de avisar, como en Simulador
+            for (int i = 0, n = fotoListeners.size(); i < n; i++) {
+                fotoListeners.get(i).onFoto(foto);
+            }
+        }
+        for (int i = 0, n = listeners.size(); i < n; i++) {
+            listeners.get(i).onActualizar(estaciones, autobuses);
+        }
+    }
+
+    /**
+     * Publica el estado actual sin avanzar (por ejemplo, para el primer dibujo).
+     */
+    public void publicarEstado() {
+        if (enEjecucion) throw new IllegalStateException("No se puede publicar el estado con la reproducción en ejecución");
+        notificarActualizacion();
+    }
+
+    /**
+     * Reproduce con el reloj: una llamada a {@link #avanzar()} por tick del reloj.
+     */
+    public void iniciarReproduccion() {
+        if (enEjecucion) return;
+        enEjecucion = true;
+        reloj.iniciar(this::paso);
+    }
+
+    public void detenerReproduccion() {
+        enEjecucion = false;
+        if (reloj.isActivo()) reloj.detener();
+    }
+
+    private void paso() {
+        if (!enEjecucion) return;
+        boolean avanzo;
+        try {
+            avanzo = avanzar();
+        } catch (IOException ex) {
+            detenerReproduccion();
+            throw new UncheckedIOException("Error leyendo el historial " + archivo, ex);
+        }
+        if (!avanzo) detenerReproduccion();
+    }
+
+    /**
+     * Cambia la fuente de pasos. Si la reproducción está en curso continúa con el nuevo reloj.
+     */
+    public void setReloj(Reloj reloj) {
+        if (reloj == null) throw new IllegalArgumentException("El reloj no puede ser nulo");
+        boolean ejecutando = enEjecucion;
+        detenerReproduccion();
+        this.reloj = reloj;
+        if (ejecutando) iniciarReproduccion();
+    }
+
+    public Reloj getReloj() {
+        return reloj;
+    }
+
+    /**
+     * @param fotos fotos aplicadas en cada paso del reloj (>=1); más fotos = reproducción más rápida
+     */
+    public void setFotosPorPaso(int fotos) {
+        if (fotos < 1) throw new IllegalArgumentException("Debe aplicarse al menos 1 foto por paso");
+        this.fotosPorPaso = fotos;
+    }
+
+    public int getFotosPorPaso() {
+        return fotosPorPaso;
+    }
+
+    public void addListener(Simulador.SimulacionListener listener) {
+        if (listener != null) listeners.add(listener);
+    }
+
+    public void removeListener(Simulador.SimulacionListener listener) {
+        listeners.remove(listener);
+    }
+
+    public void addFotoListener(Simulador.FotoListener listener) {
+        if (listener == null) return;
+        getBufferFotos();
+        fotoListeners.add(listener);
+    }
+
+    public void removeFotoListener(Simulador.FotoListener listener) {
+        fotoListeners.remove(listener);
+    }
+
+    /**
+     * Igual que {@link Simulador#getBufferFotos()}: la foto más reciente para un consumidor en otro hilo.
+     */
+    public BufferFotos getBufferFotos() {
+        BufferFotos buffer = bufferFotos;
+        if (buffer == null) {
+            synchronized (this) {
+                buffer = bufferFotos;
+                if (buffer == null) {
+                    buffer = bufferFotos = new BufferFotos(estado.getNumeroEstaciones(), estado.getNumeroAutobuses());
+                }
+            }
+        }
+        return buffer;
+    }
+
+    public boolean isEnEjecucion() {
+        return enEjecucion;
+    }
+
+    public List<Estacion> getEstaciones() {
+        return estaciones;
+    }
+
+    public List<Autobus> getAutobuses() {
+        return autobuses;
+    }
+
+    public RedTransporte getRed() {
+        return red;
+    }
+
+    /**
+     * @return estado reconstruido (solo lectura: los cambios se pisan con la foto siguiente)
+     */
+    public EstadoRed getEstado() {
+        return estado;
+    }
+
+    public long getTickInicial() {
+        return tickInicial;
+    }
+
+    public long getTickFinal() {
+        return tickFinal;
+    }
+
+    public long getTickActual() {
+        return tickActual;
+    }
+
+    /**
+     * @return fotos grabadas después del estado inicial
+     */
+    public int getCantidadFotos() {
+        return totalFotos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        detenerReproduccion();
+        descompresor.end();
+        canal.close();
+    }
+}
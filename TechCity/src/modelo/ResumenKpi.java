@@ -0,0 +1,122 @@
+package modelo;
+
+/**
+ * Copia de los indicadores de red y por ruta de un {@link AgregadorKpi}, para leerlos desde
+ * otro hilo (la vista en el EDT) sin candados mientras el agregador sigue acumulando en el
+ * hilo del motor. Cuesta O(rutas) llenarla. La de {@link AgregadorKpi#resumir()} no cambia
+ * más; las de {@link AgregadorKpi#tomarResumen()} se reciclan en la llamada siguiente.
+ */
+public final class ResumenKpi {
+
+    private long fotos;
+    private double esperaMediaRed;
+    private double esperaP50Red;
+    private double esperaP90Red;
+    private double esperaP99Red;
+    private double cargaMediaRed;
+    private double cargaP90Red;
+    private double fraccionPerdidaRed;
+
+    // Por ruta
+    private final double[] cargaMedia;
+    private final double[] cargaMaxima;
+    private final double[] intervaloMedio;
+    private final double[] coeficienteVariacion;
+    private final double[] fraccionPerdida;
+
+    boolean fresco; // publicado y aún no tomado (ver AgregadorKpi#publicarResumen)
+
+    ResumenKpi(AgregadorKpi kpi) {
+        this(kpi.getNumeroRutas());
+        copiar(kpi);
+    }
+
+    ResumenKpi(int rutas) {
+        this.cargaMedia = new double[rutas];
+        this.cargaMaxima = new double[rutas];
+        this.intervaloMedio = new double[rutas];
+        this.coeficienteVariacion = new double[rutas];
+        this.fraccionPerdida = new double[rutas];
+    }
+
+    void copiar(AgregadorKpi kpi) {
+        this.fotos = kpi.getFotos();
+        this.esperaMediaRed = kpi.getEsperaMediaRed();
+        this.esperaP50Red = kpi.getEsperaP50Red();
+        this.esperaP90Red = kpi.getEsperaP90Red();
+        this.esperaP99Red = kpi.getEsperaP99Red();
+        this.cargaMediaRed = kpi.getCargaMediaRed();
+        this.cargaP90Red = kpi.getCargaP90Red();
+        this.fraccionPerdidaRed = kpi.getFraccionPerdidaRed();
+        for (int r = 0; r < cargaMedia.length; r++) {
+            cargaMedia[r] = kpi.getCargaMediaRuta(r);
+            cargaMaxima[r] = kpi.getCargaMaximaRuta(r);
+            intervaloMedio[r] = kpi.getIntervaloMedio(r);
+            coeficienteVariacion[r] = kpi.getCoeficienteVariacionIntervalo(r);
+            fraccionPerdida[r] = kpi.getFraccionPerdidaRuta(r);
+        }
+    }
+
+    /**
+     * @return fotos acumuladas por el agregador al crear el resumen
+     */
+    public long getFotos() {
+        return fotos;
+    }
+
+    public int getNumeroRutas() {
+        return cargaMedia.length;
+    }
+
+    // Red completa
+
+    public double getEsperaMediaRed() {
+        return esperaMediaRed;
+    }
+
+    public double getEsperaP50Red() {
+        return esperaP50Red;
+    }
+
+    public double getEsperaP90Red() {
+        return esperaP90Red;
+    }
+
+    public double getEsperaP99Red() {
+        return esperaP99Red;
+    }
+
+    public double getCargaMediaRed() {
+        return cargaMediaRed;
+    }
+
+    public double getCargaP90Red() {
+        return cargaP90Red;
+    }
+
+    public double getFraccionPerdidaRed() {
+        return fraccionPerdidaRed;
+    }
+
+    // Rutas
+
+    public double getCargaMediaRuta(int ruta) {
+        return cargaMedia[ruta];
+    }
+
+    public double getCargaMaximaRuta(int ruta) {
+        return cargaMaxima[ruta];
+    }
+
+    public double getIntervaloMedio(int ruta) {
+        return intervaloMedio[ruta];
+    }
+
+    public double getCoeficienteVariacionIntervalo(int ruta) {
+        return coeficienteVariacion[ruta];
+    }
+
+    public double getFraccionPerdidaRuta(int ruta) {
+        return fraccionPerdida[ruta];
+    }
+}
@@ -0,0 +1,159 @@
+package modelo;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Escritura secuencial de primitivos y arreglos sobre un archivo mapeado en memoria
+ * ({@link MappedByteBuffer}), en little-endian. El archivo se mapea por ventanas de hasta
+ * {@link #VENTANA} bytes, así que admite archivos de más de 2 GB; los arreglos se copian en
+ * bloque a través de vistas del búfer.
+ * <p>
+ * Sin canal solo cuenta bytes: se usa en una primera pasada para conocer el tamaño exacto
+ * del archivo antes de mapearlo.
+ */
+final class SalidaMapeada {
+
+    static final long VENTANA = 1L << 28;
+
+    private final FileChannel canal; // null = solo cuenta
+    private final long tamano;
+    private MappedByteBuffer ventana;
+    private long posicion;
+
+    /**
+     * Salida que solo cuenta los bytes escritos.
+     */
+    SalidaMapeada() {
+        this.canal = null;
+        this.tamano = Long.MAX_VALUE;
+    }
+
+    /**
+     * @param canal canal abierto para lectura y escritura
+     * @param tamano bytes totales que se escribirán (el archivo se extiende a este tamaño)
+     */
+    SalidaMapeada(FileChannel canal, long tamano) {
+        this.canal = canal;
+        this.tamano = tamano;
+    }
+
+    /**
+     * @return bytes escritos hasta ahora
+     */
+    long getPosicion() {
+        return posicion;
+    }
+
+    /**
+     * Garantiza que la ventana actual tenga lugar para {@code bytes} bytes.
+     */
+    private void asegurar(int bytes) throws IOException {
+        if (ventana != null && ventana.remaining() >= bytes) return;
+        if (posicion + bytes > tamano) throw new IOException("Se escribió más de lo previsto en el archivo");
+        ventana = canal.map(FileChannel.MapMode.READ_WRITE, posicion, Math.min(VENTANA, tamano - posicion));
+        ventana.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    void escribirInt(int valor) throws IOException {
+        if (canal != null) {
+            asegurar(4);
+            ventana.putInt(valor);
+        }
+        posicion += 4;
+    }
+
+    void escribirLong(long valor) throws IOException {
+        if (canal != null) {
+            asegurar(8);
+            ventana.putLong(valor);
+        }
+        posicion += 8;
+    }
+
+    void escribirDouble(double valor) throws IOException {
+        if (canal != null) {
+            asegurar(8);
+            ventana.putDouble(valor);
+        }
+        posicion += 8;
+    }
+
+    void escribirInts(int[] valores, int desde, int cantidad) throws IOException {
+        if (canal != null) {
+            while (cantidad > 0) {
+                asegurar(4);
+                int n = Math.min(cantidad, ventana.remaining() / 4);
+                ventana.asIntBuffer().put(valores, desde, n);
+                ventana.position(ventana.position() + n * 4);
+                desde += n;
+                cantidad -= n;
+                posicion += 4L * n;
+            }
+        } else {
+            posicion += 4L * cantidad;
+        }
+    }
+
+    void escribirLongs(long[] valores, int desde, int cantidad) throws IOException {
+        if (canal != null) {
+            while (cantidad > 0) {
+                asegurar(8);
+                int n = Math.min(cantidad, ventana.remaining() / 8);
+                ventana.asLongBuffer().put(valores, desde, n);
+                ventana.position(ventana.position() + n * 8);
+                desde += n;
+                cantidad -= n;
+                posicion += 8L * n;
+            }
+        } else {
+            posicion += 8L * cantidad;
+        }
+    }
+
+    void escribirDoubles(double[] valores, int desde, int cantidad) throws IOException {
+        if (canal != null) {
+            while (cantidad > 0) {
+                asegurar(8);
+                int n = Math.min(cantidad, ventana.remaining() / 8);
+                ventana.asDoubleBuffer().put(valores, desde, n);
+                ventana.position(ventana.position() + n * 8);
+                desde += n;
+                cantidad -= n;
+                posicion += 8L * n;
+            }
+        } else {
+            posicion += 8L * cantidad;
+        }
+    }
+
+    void escribirInts(int[] valores) throws IOException {
+        escribirInts(valores, 0, valores.length);
+    }
+
+    void escribirLongs(long[] valores) throws IOException {
+        escribirLongs(valores, 0, valores.length);
+    }
+
+    void escribirDoubles(double[] valores) throws IOException {
+        escribirDoubles(valores, 0, valores.length);
+    }
+
+    /**
+     * Texto en UTF-8, precedido por su longitud en bytes.
+     */
+    void escribirTexto(String texto) throws IOException {
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        escribirInt(bytes.length);
+        for (byte b : bytes) {
+            if (canal != null) {
+                asegurar(1);
+                ventana.put(b);
+            }
+            posicion++;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package modelo;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Servidor HTTP local (solo en la interfaz de loopback) que expone {@link MetricasSimulacion}
+ * en {@code /metrics} con el formato de texto de Prometheus.
+ * Usa el servidor HTTP incluido en el JDK y un único hilo propio.
+ */
+public final class ServidorMetricas implements AutoCloseable {
+
+    private final HttpServer servidor;
+
+    private ServidorMetricas(HttpServer servidor) {
+        this.servidor = servidor;
+    }
+
+    /**
+     * @param puerto puerto local; 0 elige uno libre (ver {@link #getPuerto()})
+     */
+    public static ServidorMetricas iniciar(MetricasSimulacion metricas, int puerto) throws IOException {
+        if (metricas == null) throw new IllegalArgumentException("Las métricas no pueden ser nulas");
+        HttpServer servidor = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), puerto), 0);
+        servidor.createContext("/metrics", intercambio -> responder(intercambio, metricas));
+        servidor.start();
+        return new ServidorMetricas(servidor);
+    }
+
+    private static void responder(HttpExchange intercambio, MetricasSimulacion metricas) throws IOException {
+        try {
+            if (!"GET".equals(intercambio.getRequestMethod())) {
+                intercambio.sendResponseHeaders(405, -1);
+                return;
+            }
+            StringBuilder texto = new StringBuilder(2048);
+            metricas.escribirPrometheus(texto);
+            byte[] cuerpo = texto.toString().getBytes(StandardCharsets.UTF_8);
+            intercambio.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            intercambio.sendResponseHeaders(200, cuerpo.length);
+            try (OutputStream salida = intercambio.getResponseBody()) {
+                salida.write(cuerpo);
+            }
+        } finally {
+            intercambio.close();
+        }
+    }
+
+    public int getPuerto() {
+        return servidor.getAddress().getPort();
+    }
+
+    /**
+     * Detiene el servidor sin esperar a las respuestas en curso.
+     */
+    @Override
+    public void close() {
+        servidor.stop(0);
+    }
+}
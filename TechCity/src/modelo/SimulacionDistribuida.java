@@ -0,0 +1,259 @@
+package modelo;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Lanza una simulación repartida en varios procesos de la misma máquina: un
+ * {@link NodoParticion} por JVM, conectados por loopback, sobre una red circular.
+ * <p>
+ * Uso desde la línea de comandos:
+ * <pre>
+ * java -cp target/classes modelo.SimulacionDistribuida nodos estaciones autobuses capacidad semilla ticks [opciones JVM...]
+ * </pre>
+ * Cada nodo corre con las opciones de JVM indicadas (por ejemplo {@code -Xmx2g}) y al
+ * terminar informa sus resultados, que aquí se suman.
+ */
+public final class SimulacionDistribuida {
+
+    private static final String PREFIJO_RESUMEN = "RESUMEN";
+    private static final int ESPERA_CONEXION_MS = 30_000;
+
+    private SimulacionDistribuida() {
+    }
+
+    /**
+     * Resultados sumados de todos los nodos.
+     */
+    public static final class Resumen {
+        private final int nodos;
+        private final long ticks;
+        private long viajesCompletados;
+        private long tiempoViaje;
+        private long abordajes;
+        private long esperaAcumulada;
+        private long pasajerosEsperando;
+        private long pasajerosABordo;
+        private long traspasos;
+        private long retrasos;
+        private long milisegundos; // del nodo más lento
+
+        Resumen(int nodos, long ticks) {
+            this.nodos = nodos;
+            this.ticks = ticks;
+        }
+
+        private void sumar(long[] v) {
+            viajesCompletados += v[0];
+            tiempoViaje += v[1];
+            abordajes += v[2];
+            esperaAcumulada += v[3];
+            pasajerosEsperando += v[4];
+            pasajerosABordo += v[5];
+            traspasos += v[6];
+            retrasos += v[7];
+            milisegundos = Math.max(milisegundos, v[8]);
+        }
+
+        private static String linea(NodoParticion nodo, long ms) {
+            return PREFIJO_RESUMEN + " " + nodo.getViajesCompletados() + " " + nodo.getTiempoViaje()
+                    + " " + nodo.getAbordajes() + " " + nodo.getEsperaAcumulada()
+                    + " " + nodo.getPasajerosEsperando() + " " + nodo.getPasajerosABordo()
+                    + " " + nodo.getTraspasos() + " " + nodo.getRetrasos() + " " + ms;
+        }
+
+        public int getNodos() {
+            return nodos;
+        }
+
+        public long getTicks() {
+            return ticks;
+        }
+
+        public long getViajesCompletados() {
+            return viajesCompletados;
+        }
+
+        public long getAbordajes() {
+            return abordajes;
+        }
+
+        public long getPasajerosEsperando() {
+            return pasajerosEsperando;
+        }
+
+        public long getPasajerosABordo() {
+            return pasajerosABordo;
+        }
+
+        /**
+         * @return autobuses traspasados entre nodos
+         */
+        public long getTraspasos() {
+            return traspasos;
+        }
+
+        public long getRetrasos() {
+            return retrasos;
+        }
+
+        public double getEsperaPromedio() {
+            return abordajes == 0 ? 0 : (double) esperaAcumulada / abordajes;
+        }
+
+        public double getViajePromedio() {
+            return viajesCompletados == 0 ? 0 : (double) tiempoViaje / viajesCompletados;
+        }
+
+        /**
+         * @return duración de la simulación en el nodo más lento (sin contar el arranque)
+         */
+        public long getMilisegundos() {
+            return milisegundos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "nodos=%d ticks=%d viajes=%d abordajes=%d esperando=%d a_bordo=%d traspasos=%d retrasos=%d"
+                            + " espera_promedio=%.4f viaje_promedio=%.4f ms=%d",
+                    nodos, ticks, viajesCompletados, abordajes, pasajerosEsperando, pasajerosABordo,
+                    traspasos, retrasos, getEsperaPromedio(), getViajePromedio(), milisegundos);
+        }
+    }
+
+    /**
+     * Lanza un proceso por nodo con el classpath de esta JVM y espera a que terminen.
+     * @param opcionesJvm opciones para cada proceso (por ejemplo {@code -Xmx2g})
+     */
+    public static Resumen ejecutar(int nodos, int estaciones, int autobuses, int capacidad, long semilla, long ticks,
+                                   List<String> opcionesJvm) throws IOException, InterruptedException {
+        NodoParticion.particionar(estaciones, nodos); // valida la cantidad de nodos
+        if (autobuses < 1) throw new IllegalArgumentException("Debe haber al menos 1 autobús");
+        if (capacidad < 1) throw new IllegalArgumentException("La capacidad debe ser positiva");
+        if (ticks < 0) throw new IllegalArgumentException("Los ticks no pueden ser negativos");
+        String puertos = puertosLibres(nodos);
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+
+        List<Process> procesos = new ArrayList<>(nodos);
+        try {
+            for (int i = 0; i < nodos; i++) {
+                List<String> comando = new ArrayList<>();
+                comando.add(java);
+                comando.addAll(opcionesJvm);
+                comando.add("-cp");
+                comando.add(System.getProperty("java.class.path"));
+                comando.add(SimulacionDistribuida.class.getName());
+                comando.add("nodo");
+                comando.add(Integer.toString(i));
+                comando.add(puertos);
+                comando.add(Integer.toString(estaciones));
+                comando.add(Integer.toString(autobuses));
+                comando.add(Integer.toString(capacidad));
+                comando.add(Long.toString(semilla));
+                comando.add(Long.toString(ticks));
+                procesos.add(new ProcessBuilder(comando).redirectError(ProcessBuilder.Redirect.INHERIT).start());
+            }
+
+            Resumen resumen = new Resumen(nodos, ticks);
+            for (int i = 0; i < nodos; i++) {
+                Process p = procesos.get(i);
+                long[] valores = null;
+                try (BufferedReader r = new BufferedReader(new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8))) {
+                    for (String linea; (linea = r.readLine()) != null; ) {
+                        if (linea.startsWith(PREFIJO_RESUMEN + " ")) valores = leerValores(linea);
+                    }
+                }
+                int salida = p.waitFor();
+                if (salida != 0 || valores == null) {
+                    throw new IOException("El nodo " + i + " terminó con código " + salida);
+                }
+                resumen.sumar(valores);
+            }
+            return resumen;
+        } finally {
+            for (Process p : procesos) {
+                p.destroy();
+            }
+        }
+    }
+
+    private static long[] leerValores(String linea) {
+        String[] partes = linea.split(" ");
+        long[] valores = new long[partes.length - 1];
+        for (int k = 1; k < partes.length; k++) {
+            valores[k - 1] = Long.parseLong(partes[k]);
+        }
+        return valores;
+    }
+
+    /**
+     * Pide al sistema puertos libres de loopback (pueden ocuparse antes de usarlos, pero es poco probable).
+     */
+    private static String puertosLibres(int cantidad) throws IOException {
+        List<ServerSocket> abiertos = new ArrayList<>(cantidad);
+        StringBuilder lista = new StringBuilder();
+        try {
+            for (int i = 0; i < cantidad; i++) {
+                ServerSocket s = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+                abiertos.add(s);
+                if (i > 0) lista.append(',');
+                lista.append(s.getLocalPort());
+            }
+        } finally {
+            for (ServerSocket s : abiertos) {
+                s.close();
+            }
+        }
+        return lista.toString();
+    }
+
+    private static void ejecutarNodo(String[] args) throws IOException {
+        int indice = Integer.parseInt(args[1]);
+        String[] textoPuertos = args[2].split(",");
+        int[] puertos = new int[textoPuertos.length];
+        for (int j = 0; j < puertos.length; j++) {
+            puertos[j] = Integer.parseInt(textoPuertos[j]);
+        }
+        int estaciones = Integer.parseInt(args[3]);
+        int autobuses = Integer.parseInt(args[4]);
+        int capacidad = Integer.parseInt(args[5]);
+        long semilla = Long.parseLong(args[6]);
+        long ticks = Long.parseLong(args[7]);
+
+        RedTransporte red = RedTransporte.circular(estaciones);
+        try (NodoParticion nodo = new NodoParticion(red, autobuses, capacidad, semilla,
+                NodoParticion.particionar(estaciones, puertos.length), indice)) {
+            nodo.conectar(puertos, ESPERA_CONEXION_MS);
+            long inicio = System.nanoTime();
+            nodo.ejecutarTicks(ticks);
+            System.out.println(Resumen.linea(nodo, (System.nanoTime() - inicio) / 1_000_000));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 8 && args[0].equals("nodo")) {
+            ejecutarNodo(args);
+            return;
+        }
+        if (args.length < 6) {
+            System.err.println("Uso: SimulacionDistribuida nodos estaciones autobuses capacidad semilla ticks [opciones JVM...]");
+            System.exit(2);
+        }
+        List<String> opciones = new ArrayList<>();
+        for (int k = 6; k < args.length; k++) {
+            opciones.add(args[k]);
+        }
+        Resumen resumen = ejecutar(Integer.parseInt(args[0]), Integer.parseInt(args[1]), Integer.parseInt(args[2]),
+                Integer.parseInt(args[3]), Long.parseLong(args[4]), Long.parseLong(args[5]), opciones);
+        System.out.println(resumen);
+    }
+}
@@ -1,13 +1,24 @@
 package modelo;
 
-import javax.swing.Timer;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Motor de simulación. Mantiene listas de estaciones y autobuses,
- * y actualiza el estado cada segundo usando un Timer.
+ * y actualiza el estado en cada tick marcado por un {@link Reloj}.
+ * Los autobuses recorren las rutas de una {@link RedTransporte}; los constructores con
+ * cantidad de estaciones usan una única ruta circular por todas ellas.
+ * El estado vive en un {@link EstadoRed} de arreglos primitivos; las listas de
+ * {@link Estacion} y {@link Autobus} son vistas sobre él para la capa de presentación.
+ * Por defecto usa un {@link RelojHilo} de 1 segundo, de modo que el modelo
+ * puede ejecutarse sin Swing; también admite lotes síncronos con {@link #ejecutarTicks(long)}.
+ * <p>
+ * Con {@link #setModo(Modo)} se elige entre recorrer todas las entidades en cada tick
+ * ({@link Modo#TICKS}) o procesar solo los eventos pendientes ({@link Modo#EVENTOS}).
+ * Las llegadas de pasajeros las decide un {@link ModeloDemanda} ({@link #setDemanda(ModeloDemanda)});
+ * por defecto llegan de 0 a 5 pasajeros por tick a cada estación.
+ * El estado completo se guarda y se restaura con {@link PuntoControl}.
  */
 public class Simulador {
 
@@ -17,58 +28,161 @@ public class Simulador {
     public interface SimulacionListener {
         /**
          * Notificación de actualización periódica.
+         * Las listas no se pueden modificar, pero sus elementos son vistas vivas del estado:
+         * para leer desde otro hilo mientras el motor avanza use {@link FotoSimulacion}.
          * @param estaciones lista actual de estaciones (inmutable de cara al receptor)
          * @param autobuses lista actual de autobuses (inmutable de cara al receptor)
          */
         void onActualizar(List<Estacion> estaciones, List<Autobus> autobuses);
     }
 
+    /**
+     * Listener que recibe una foto compacta del estado al final de cada tick.
+     */
+    public interface FotoListener {
+        /**
+         * Se llama en el hilo del motor, con la foto ya publicada en {@link Simulador#getBufferFotos()}:
+         * el consumidor del buffer puede estar leyéndola, así que solo debe leerse. Se recicla
+         * al volver de la llamada y no debe guardarse.
+         * @param foto estado al final del tick
+         */
+        void onFoto(FotoSimulacion foto);
+    }
+
+    /**
+     * Forma de avanzar la simulación.
+     */
+    public enum Modo {
+        /** Cada tick visita todas las estaciones y autobuses (admite paralelismo). */
+        TICKS,
+        /** Solo se procesan eventos: llegadas de pasajeros e intentos de avance de autobuses. */
+        EVENTOS
+    }
+
+    private final EstadoRed estado;
     private final List<Estacion> estaciones;
     private final List<Autobus> autobuses;
-    private Timer timer;
-    private boolean enEjecucion;
+    private Reloj reloj;
+    private volatile boolean enEjecucion;
+    // Lo toma cada tick del reloj: detener y reconfigurar lo toman para esperar al tick en curso
+    private final Object candadoTick = new Object();
+    private long tickActual;
+
+    private final List<SimulacionListener> listeners = new CopyOnWriteArrayList<>();
+    private final List<FotoListener> fotoListeners = new CopyOnWriteArrayList<>();
+    private volatile BufferFotos bufferFotos; // se crea al primer consumidor de fotos
+
+    // Ejecución paralela del tick (null = secuencial)
+    private volatile EjecutorParalelo ejecutor;
+    private final byte[] seMovio;        // por autobús: 1 si avanzó en este tick
+    private int[] inicioLlegadas;        // por estación: inicio de sus llegadas en ordenLlegadas
+    private int[] ordenLlegadas;         // autobuses que avanzaron, agrupados por estación y en orden de id
+    private final EjecutorParalelo.TareaRango tareaLlegadas = this::faseLlegadas;
+    private final EjecutorParalelo.TareaRango tareaLlegadasActivas = this::faseLlegadasActivas;
+    private final EjecutorParalelo.TareaRango tareaLlegadasEnBloque = this::faseLlegadasEnBloque;
+    private final EjecutorParalelo.TareaRango tareaDespacho = this::faseDespacho;
+    private final EjecutorParalelo.TareaRango tareaMovimiento = this::faseMovimiento;
+    private final EjecutorParalelo.TareaRango tareaAbordaje = this::faseAbordaje;
+
+    // Demanda de pasajeros
+    private ModeloDemanda demanda;
+    private final int[] estacionesActivas; // estaciones con llegadas en el tick (demanda dispersa)
+    private int cantidadActivas;
+
+    // Llegadas de la demanda uniforme en bloque (escalar o con la Vector API)
+    private static final int BLOQUE_LLEGADAS = 4096; // estaciones por pasada: las llegadas siguen en caché al encolarlas
+    private final LlegadasEnBloque llegadasEnBloque = LlegadasEnBloque.preferida();
+    private int[] llegadasTick;          // por estación: llegadas sorteadas en el tick (se crea al primer uso)
+    private int[] estacionesAtendidas;   // -1 si alguna ruta pasa por la estación y 0 si no; null si pasan por todas
+
+    // Control de la flota antes del movimiento
+    private PoliticaDespacho politica;
 
-    private final Random random = new Random();
-    private final List<SimulacionListener> listeners = new ArrayList<>();
+    // Modo eventos (null = por ticks)
+    private volatile MotorEventos motor;
+
+    // Instrumentación (null = deshabilitada)
+    private volatile MetricasSimulacion metricas;
 
     /**
      * Crea el simulador con una cantidad de estaciones y autobuses, y capacidad máxima por autobús.
-     * La ruta es circular pasando por todas las estaciones.
+     * La ruta es circular pasando por todas las estaciones. La semilla se elige al azar.
      *
      * @param numeroEstaciones cantidad de estaciones
      * @param numeroAutobuses cantidad de autobuses
      * @param capacidadMaximaPorAutobus capacidad de cada autobús
      */
     public Simulador(int numeroEstaciones, int numeroAutobuses, int capacidadMaximaPorAutobus) {
-        if (numeroEstaciones <= 0) throw new IllegalArgumentException("Debe haber al menos 1 estación");
-        if (numeroAutobuses <= 0) throw new IllegalArgumentException("Debe haber al menos 1 autobús");
+        this(numeroEstaciones, numeroAutobuses, capacidadMaximaPorAutobus, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Crea el simulador con una semilla fija: dos simuladores con los mismos parámetros y la
+     * misma semilla producen exactamente la misma evolución, en modo secuencial o paralelo.
+     *
+     * @param numeroEstaciones cantidad de estaciones
+     * @param numeroAutobuses cantidad de autobuses
+     * @param capacidadMaximaPorAutobus capacidad de cada autobús
+     * @param semilla semilla de la que se derivan los flujos aleatorios de cada entidad
+     */
+    public Simulador(int numeroEstaciones, int numeroAutobuses, int capacidadMaximaPorAutobus, long semilla) {
+        this(RedTransporte.circular(numeroEstaciones), numeroAutobuses, capacidadMaximaPorAutobus, semilla);
+    }
+
+    /**
+     * Crea el simulador sobre una red de varias rutas. Los autobuses se reparten entre las rutas
+     * por turnos (el autobús {@code i} va a la ruta {@code i % rutas}).
+     *
+     * @param red red de estaciones y rutas
+     * @param numeroAutobuses cantidad de autobuses
+     * @param capacidadMaximaPorAutobus capacidad de cada autobús
+     * @param semilla semilla de la que se derivan los flujos aleatorios de cada entidad
+     */
+    public Simulador(RedTransporte red, int numeroAutobuses, int capacidadMaximaPorAutobus, long semilla) {
+        this(red, repartirPorTurnos(red, numeroAutobuses), capacidadMaximaPorAutobus, semilla);
+    }
+
+    /**
+     * Crea el simulador sobre una red de varias rutas con la ruta de cada autobús indicada.
+     * Los autobuses de una misma ruta empiezan repartidos a lo largo de ella.
+     *
+     * @param red red de estaciones y rutas
+     * @param rutaPorAutobus ruta de cada autobús (su longitud es la cantidad de autobuses)
+     * @param capacidadMaximaPorAutobus capacidad de cada autobús
+     * @param semilla semilla de la que se derivan los flujos aleatorios de cada entidad
+     */
+    public Simulador(RedTransporte red, int[] rutaPorAutobus, int capacidadMaximaPorAutobus, long semilla) {
+        if (red == null) throw new IllegalArgumentException("La red no puede ser nula");
+        if (rutaPorAutobus == null || rutaPorAutobus.length == 0) throw new IllegalArgumentException("Debe haber al menos 1 autobús");
         if (capacidadMaximaPorAutobus <= 0) throw new IllegalArgumentException("La capacidad debe ser positiva");
 
-        // Crear estaciones
-        List<Estacion> ests = new ArrayList<>();
-        for (int i = 0; i < numeroEstaciones; i++) {
-            ests.add(new Estacion(i, "Estación " + (i + 1)));
-        }
-        this.estaciones = Collections.unmodifiableList(ests); // ruta fija, referencias constantes
+        final int numeroAutobuses = rutaPorAutobus.length;
+        this.estado = crearEstado(red, rutaPorAutobus, capacidadMaximaPorAutobus, semilla);
 
-        // Crear autobuses con posiciones iniciales distribuidas
-        List<Autobus> buses = new ArrayList<>();
-        for (int i = 0; i < numeroAutobuses; i++) {
-            int posicionInicial = (i * numeroEstaciones) / numeroAutobuses;
-            buses.add(new Autobus(i + 1, capacidadMaximaPorAutobus, ests, posicionInicial));
-        }
-        this.autobuses = Collections.unmodifiableList(buses);
+        // Vistas para la capa de presentación
+        this.estaciones = estado.vistaEstaciones();
+        this.autobuses = estado.vistaAutobuses(estaciones);
+        this.seMovio = new byte[numeroAutobuses];
+        this.estacionesActivas = new int[red.getNumeroEstaciones()];
+        this.demanda = new DemandaUniforme(5);
+        demanda.iniciar(red.getNumeroEstaciones(), Aleatorio.derivar(semilla, Aleatorio.DOMINIO_DEMANDA));
+        this.politica = new DespachoCongestion();
+        politica.iniciar(estado);
 
         this.enEjecucion = false;
 
-        // Preparar timer cada 1 segundo
-        this.timer = new Timer(1000, new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                actualizarSimulacion();
-            }
-        });
-        this.timer.setInitialDelay(1000);
+        // Reloj por defecto: un tick por segundo en un hilo propio
+        this.reloj = new RelojHilo(1000);
+    }
+
+    static int[] repartirPorTurnos(RedTransporte red, int numeroAutobuses) {
+        if (red == null) throw new IllegalArgumentException("La red no puede ser nula");
+        if (numeroAutobuses <= 0) throw new IllegalArgumentException("Debe haber al menos 1 autobús");
+        int[] rutas = new int[numeroAutobuses];
+        for (int i = 0; i < numeroAutobuses; i++) {
+            rutas[i] = i % red.getNumeroRutas();
+        }
+        return rutas;
     }
 
     /**
@@ -77,68 +191,362 @@ public class Simulador {
     public void iniciarSimulacion() {
         if (!enEjecucion) {
             enEjecucion = true;
-            if (!timer.isRunning()) {
-                timer.start();
+            Reloj r = reloj;
+            if (!r.isActivo()) {
+                r.iniciar(() -> tickReloj(r));
             }
         }
     }
 
     /**
-     * Detiene/pausa la simulación.
+     * Tick pedido por el reloj. No corre si la simulación se detuvo o cambió de reloj mientras
+     * el reloj esperaba, ni a la vez que una reconfiguración o un lote de {@link #ejecutarTicks(long)}.
+     */
+    private void tickReloj(Reloj origen) {
+        synchronized (candadoTick) {
+            if (enEjecucion && reloj == origen) actualizarSimulacion();
+        }
+    }
+
+    /**
+     * Detiene/pausa la simulación. Vuelve cuando termina el tick que el reloj pudiera estar
+     * ejecutando, así que después se puede reconfigurar sin carreras con el motor.
      */
     public void detenerSimulacion() {
         enEjecucion = false;
-        if (timer.isRunning()) {
-            timer.stop();
+        if (reloj.isActivo()) {
+            reloj.detener();
+        }
+        synchronized (candadoTick) {
+            // Solo espera al tick en curso: los siguientes ven enEjecucion en false
+        }
+    }
+
+    /**
+     * Ejecuta {@code n} ticks de forma síncrona en el hilo llamante, sin esperar entre ellos.
+     * Útil para simular una jornada completa en lote (86400 ticks = 24 h).
+     * En modo eventos el lote avanza de una vez y se notifica a los listeners solo al final.
+     * @param n cantidad de ticks a ejecutar (>=0)
+     */
+    public void ejecutarTicks(long n) {
+        if (n < 0) throw new IllegalArgumentException("La cantidad de ticks no puede ser negativa");
+        synchronized (candadoTick) {
+            if (enEjecucion) throw new IllegalStateException("Detenga la simulación antes de ejecutar ticks en lote");
+            MotorEventos mot = motor;
+            if (mot != null) {
+                if (n == 0) return;
+                avanzarEventos(mot, n);
+                return;
+            }
+            for (long i = 0; i < n; i++) {
+                actualizarSimulacion();
+            }
         }
     }
 
     /**
-     * Lógica que corre cada segundo:
-     * - Incrementa pasajeros en estaciones (0-5)
-     * - Calcula retrasos si hay >20 pasajeros en la siguiente estación
-     * - Mueve autobuses (si no están retrasados)
-     * - Deja y recoge pasajeros
+     * Crea el almacén con los autobuses distribuidos a lo largo de su ruta.
+     */
+    static EstadoRed crearEstado(RedTransporte red, int[] rutaPorAutobus, int capacidadMaximaPorAutobus, long semilla) {
+        EstadoRed estado = new EstadoRed(red, rutaPorAutobus.length, semilla);
+        int[] posiciones = posicionesIniciales(red, rutaPorAutobus);
+        for (int i = 0; i < rutaPorAutobus.length; i++) {
+            estado.capacidad[i] = capacidadMaximaPorAutobus;
+            estado.asignarRuta(i, rutaPorAutobus[i], posiciones[i]);
+        }
+        return estado;
+    }
+
+    /**
+     * Posición inicial de cada autobús: los de una misma ruta quedan repartidos a lo largo
+     * de ella. La usa también {@link NodoParticion}, para partir del mismo estado.
+     */
+    static int[] posicionesIniciales(RedTransporte red, int[] rutaPorAutobus) {
+        int[] porRuta = new int[red.getNumeroRutas()];
+        for (int r : rutaPorAutobus) {
+            if (r < 0 || r >= porRuta.length) throw new IllegalArgumentException("Ruta inexistente: " + r);
+            porRuta[r]++;
+        }
+        int[] asignados = new int[porRuta.length];
+        int[] posiciones = new int[rutaPorAutobus.length];
+        for (int i = 0; i < rutaPorAutobus.length; i++) {
+            int r = rutaPorAutobus[i];
+            int k = asignados[r]++;
+            posiciones[i] = (int) (((long) k * red.getLongitudRuta(r)) / porRuta[r]);
+        }
+        return posiciones;
+    }
+
+    /**
+     * Lógica que corre en cada tick:
+     * - Incrementa pasajeros en estaciones según el modelo de demanda
+     * - Aplica la política de despacho (por defecto, retraso si hay >20 pasajeros en la siguiente estación)
+     * - Mueve autobuses (si no están retrasados) y deja pasajeros
+     * - Recoge pasajeros: en cada estación, los autobuses que llegaron suben en orden de id
+     *   (salvo los que la política hizo pasar de largo)
      * - Notifica a la vista
+     * <p>
+     * Todos los autobuses evalúan el retraso con los conteos previos al abordaje, y el abordaje
+     * se resuelve por estación en orden de id. Así el resultado es el mismo en modo secuencial
+     * y en paralelo, sin importar la cantidad de hilos.
      */
     public void actualizarSimulacion() {
-        // 1) Aumentar pasajeros en estaciones
-        for (Estacion est : estaciones) {
-            int inc = random.nextInt(6); // 0..5
-            est.agregarPasajeros(inc);
+        final int numeroEstaciones = estado.getNumeroEstaciones();
+        final int numeroAutobuses = estado.getNumeroAutobuses();
+        final MotorEventos mot = motor;
+        if (mot != null) {
+            avanzarEventos(mot, 1);
+            return;
         }
 
-        // 2) Para cada autobús, evaluar retrasos y movimiento
-        for (Autobus bus : autobuses) {
-            // Si la siguiente estación está muy concurrida, agregar retraso
-            Estacion siguiente = bus.getSiguienteEstacion();
-            if (siguiente.getPasajerosEsperando() > 20) {
-                bus.retrasar(1); // 1 segundo extra de retraso
+        final EjecutorParalelo ejec = ejecutor;
+        final MetricasSimulacion met = metricas;
+        final long inicio = met == null ? 0 : System.nanoTime();
+        long t = inicio;
+        estado.tick = (int) (tickActual + 1);
+        cantidadActivas = demanda.prepararTick(tickActual + 1, estacionesActivas);
+        final boolean densa = cantidadActivas < 0;
+        final boolean enBloque = densa && demanda.getClass() == DemandaUniforme.class;
+        if (enBloque && llegadasTick == null) prepararLlegadasEnBloque();
+
+        // 1) Aumentar pasajeros en estaciones (independiente por estación)
+        // 2) Política de despacho, movimiento y bajada de pasajeros (independiente por autobús)
+        // 3) Abordaje por estación
+        if (ejec == null) {
+            if (enBloque) faseLlegadasEnBloque(0, numeroEstaciones);
+            else if (densa) faseLlegadas(0, numeroEstaciones);
+            else faseLlegadasActivas(0, cantidadActivas);
+            if (met != null) t = met.registrar(MetricasSimulacion.Fase.DEMANDA, t);
+            estado.congestionVigente = enBloque;
+            faseDespacho(0, numeroAutobuses);
+            estado.congestionVigente = false;
+            faseMovimiento(0, numeroAutobuses);
+            if (met != null) t = met.registrar(MetricasSimulacion.Fase.MOVIMIENTO, t);
+            final int[] estacionAutobus = estado.estacionRegistrada;
+            for (int b = 0; b < numeroAutobuses; b++) {
+                if (seMovio[b] != 0) {
+                    estado.reubicarAutobus(b);
+                    if (!estado.consumirOmision(b)) estado.recogerPasajeros(b, estacionAutobus[b]);
+                }
             }
+        } else {
+            if (enBloque) ejec.ejecutar(numeroEstaciones, tareaLlegadasEnBloque);
+            else if (densa) ejec.ejecutar(numeroEstaciones, tareaLlegadas);
+            else ejec.ejecutar(cantidadActivas, tareaLlegadasActivas);
+            if (met != null) t = met.registrar(MetricasSimulacion.Fase.DEMANDA, t);
+            estado.congestionVigente = enBloque;
+            if (politica.isPorAutobus()) ejec.ejecutar(numeroAutobuses, tareaDespacho);
+            else faseDespacho(0, numeroAutobuses);
+            estado.congestionVigente = false;
+            ejec.ejecutar(numeroAutobuses, tareaMovimiento);
+            if (met != null) t = met.registrar(MetricasSimulacion.Fase.MOVIMIENTO, t);
+            agruparLlegadas();
+            ejec.ejecutar(numeroEstaciones, tareaAbordaje);
+        }
+        if (met != null) t = met.registrar(MetricasSimulacion.Fase.ABORDAJE, t);
 
-            // Mover si no está retrasado
-            boolean seMovio = bus.mover();
+        tickActual++;
 
-            // Si se movió, deja y luego recoge pasajeros en la nueva estación
-            if (seMovio) {
-                bus.dejarPasajeros();
-                bus.recogerPasajeros();
-            }
+        // 4) Notificar a listeners
+        notificarActualizacion();
+        if (met != null) {
+            met.registrar(MetricasSimulacion.Fase.NOTIFICACION, t);
+            met.registrar(MetricasSimulacion.Fase.TICK, inicio);
+            met.sumarTicks(1);
         }
+    }
 
-        // 3) Notificar a listeners
+    /**
+     * Avanza {@code n} ticks en modo eventos y notifica una vez al final.
+     */
+    private void avanzarEventos(MotorEventos mot, long n) {
+        final MetricasSimulacion met = metricas;
+        if (met == null) {
+            mot.avanzarHasta(tickActual + n);
+            tickActual += n;
+            notificarActualizacion();
+            return;
+        }
+        final long inicio = System.nanoTime();
+        final long reintentos = mot.getReintentos();
+        met.sumarEventos(mot.avanzarHasta(tickActual + n));
+        met.sumarRetrasos(mot.getReintentos() - reintentos);
+        tickActual += n;
+        if (n > 1) {
+            // Un lote no es un tick: se mide aparte para no mezclar su duración con la de los ticks
+            notificarActualizacion();
+            met.registrar(MetricasSimulacion.Fase.LOTE, inicio);
+            met.sumarTicks(n);
+            return;
+        }
+        long t = met.registrar(MetricasSimulacion.Fase.EVENTOS, inicio);
         notificarActualizacion();
+        met.registrar(MetricasSimulacion.Fase.NOTIFICACION, t);
+        met.registrar(MetricasSimulacion.Fase.TICK, inicio);
+        met.sumarTicks(1);
+    }
+
+    /**
+     * Agrega las llegadas del tick en las estaciones [desde, hasta) (demanda densa).
+     */
+    private void faseLlegadas(int desde, int hasta) {
+        final ModeloDemanda dem = demanda;
+        for (int e = desde; e < hasta; e++) {
+            estado.agregarPasajeros(e, dem.llegadas(e));
+        }
+    }
+
+    private void prepararLlegadasEnBloque() {
+        final RedTransporte red = estado.getRed();
+        final int n = estado.getNumeroEstaciones();
+        int[] atendidas = new int[n];
+        boolean todas = true;
+        for (int e = 0; e < n; e++) {
+            if (red.getCantidadApariciones(e) > 0) atendidas[e] = -1;
+            else todas = false;
+        }
+        estacionesAtendidas = todas ? null : atendidas;
+        llegadasTick = new int[n];
+    }
+
+    /**
+     * Agrega las llegadas de la {@link DemandaUniforme} en las estaciones [desde, hasta): sorteo,
+     * conteo y máscara de congestión en bloque ({@link LlegadasEnBloque}), y luego se encolan los
+     * pasajeros de cada estación. Los extremos se redondean a múltiplos de 64 para que cada tramo
+     * paralelo escriba palabras enteras de la máscara; los tramos siguen sin solaparse.
+     */
+    private void faseLlegadasEnBloque(int desde, int hasta) {
+        final int n = estado.getNumeroEstaciones();
+        desde = Math.min(n, (desde + 63) & ~63);
+        hasta = Math.min(n, (hasta + 63) & ~63);
+        final DemandaUniforme dem = (DemandaUniforme) demanda;
+        final long[] flujos = dem.getFlujos();
+        final int limite = dem.getMaximo() + 1;
+        final int[] llegadas = llegadasTick;
+        for (int b = desde; b < hasta; b += BLOQUE_LLEGADAS) {
+            int fin = Math.min(b + BLOQUE_LLEGADAS, hasta);
+            llegadasEnBloque.sortear(flujos, limite, estacionesAtendidas, llegadas, estado.pasajerosEsperando,
+                    DespachoCongestion.UMBRAL, estado.congestionadas, b, fin);
+            for (int e = b; e < fin; e++) {
+                if (llegadas[e] > 0) estado.encolarLlegadasContadas(e, llegadas[e]);
+            }
+        }
+    }
+
+    /**
+     * Agrega las llegadas del tick en las estaciones activas [desde, hasta) (demanda dispersa).
+     */
+    private void faseLlegadasActivas(int desde, int hasta) {
+        final ModeloDemanda dem = demanda;
+        final int[] activas = estacionesActivas;
+        for (int i = desde; i < hasta; i++) {
+            estado.agregarPasajeros(activas[i], dem.llegadas(activas[i]));
+        }
+    }
+
+    /**
+     * Aplica la política de despacho a los autobuses [desde, hasta).
+     */
+    private void faseDespacho(int desde, int hasta) {
+        int retrasos = politica.aplicar(estado, tickActual + 1, desde, hasta);
+        MetricasSimulacion met = metricas;
+        if (met != null) met.sumarRetrasos(retrasos);
+    }
+
+    /**
+     * Mueve y baja pasajeros de los autobuses [desde, hasta) que no están retrasados.
+     * Solo escribe datos propios de cada autobús.
+     */
+    private void faseMovimiento(int desde, int hasta) {
+        final int[] ruta = estado.ruta;
+        final RedTransporte red = estado.getRed();
+        for (int b = desde; b < hasta; b++) {
+            // Si se movió, deja pasajeros en la nueva estación.
+            // El índice de estaciones es compartido: se actualiza después, en un solo hilo
+            if (estado.avanzarAutobus(b, red.getLongitudRuta(ruta[b]))) {
+                estado.dejarPasajeros(b);
+                seMovio[b] = 1;
+            } else {
+                seMovio[b] = 0;
+            }
+        }
+    }
+
+    /**
+     * Ordenamiento por conteo de los autobuses que avanzaron, agrupados por estación.
+     * Recorrer los autobuses en orden ascendente deja cada grupo ordenado por id.
+     * En la misma pasada actualiza el índice de estaciones, en el mismo orden que el modo secuencial.
+     */
+    private void agruparLlegadas() {
+        final int[] estacionAutobus = estado.estacionRegistrada;
+        final int[] inicio = inicioLlegadas;
+        final int[] orden = ordenLlegadas;
+        final int numeroAutobuses = estado.getNumeroAutobuses();
+
+        Arrays.fill(inicio, 0);
+        for (int b = 0; b < numeroAutobuses; b++) {
+            if (seMovio[b] != 0) {
+                estado.reubicarAutobus(b);
+                inicio[estacionAutobus[b] + 1]++;
+            }
+        }
+        for (int e = 1; e < inicio.length; e++) {
+            inicio[e] += inicio[e - 1];
+        }
+        // inicio[e] se usa como cursor de escritura y termina apuntando al inicio de e + 1
+        for (int b = 0; b < numeroAutobuses; b++) {
+            if (seMovio[b] != 0) orden[inicio[estacionAutobus[b]]++] = b;
+        }
+        System.arraycopy(inicio, 0, inicio, 1, inicio.length - 1);
+        inicio[0] = 0;
     }
 
-    private void notificarActualizacion() {
-        // Ofrecer vistas inmutables para evitar modificaciones externas accidentales
-        List<Estacion> copiaEst = Collections.unmodifiableList(new ArrayList<>(estaciones));
-        List<Autobus> copiaBus = Collections.unmodifiableList(new ArrayList<>(autobuses));
-        for (SimulacionListener l : listeners) {
-            l.onActualizar(copiaEst, copiaBus);
+    /**
+     * Sube pasajeros en las estaciones [desde, hasta). Cada estación solo la toca un hilo.
+     */
+    private void faseAbordaje(int desde, int hasta) {
+        final int[] inicio = inicioLlegadas;
+        final int[] orden = ordenLlegadas;
+        for (int e = desde; e < hasta; e++) {
+            for (int k = inicio[e], fin = inicio[e + 1]; k < fin; k++) {
+                int b = orden[k];
+                if (!estado.consumirOmision(b)) estado.recogerPasajeros(b, e);
+            }
         }
     }
 
+    /**
+     * Publica el estado actual: llena la foto del tick (sin asignar memoria) y avisa a los listeners.
+     * Se publica antes de avisar, para que un listener que agenda una lectura del buffer
+     * (como el puente al EDT) encuentre siempre la foto de este tick. La foto publicada no se
+     * vuelve a escribir hasta el próximo {@code publicar}, que llega después de los listeners.
+     */
+    void notificarActualizacion() {
+        BufferFotos buffer = bufferFotos;
+        if (buffer != null) {
+            FotoSimulacion foto = buffer.getEscritura();
+            capturarFoto(foto);
+            buffer.publicar();
+            for (int i = 0, n = fotoListeners.size(); i < n; i++) {
+                fotoListeners.get(i).onFoto(foto);
+            }
+        }
+
+        // Las listas de vistas ya son inmutables: se entregan sin copiarlas
+        for (int i = 0, n = listeners.size(); i < n; i++) {
+            listeners.get(i).onActualizar(estaciones, autobuses);
+        }
+    }
+
+    /**
+     * Copia el estado actual en la foto, con el retraso que vería el modo por ticks.
+     */
+    void capturarFoto(FotoSimulacion foto) {
+        foto.capturar(estado, tickActual);
+        MotorEventos mot = motor;
+        if (mot != null) mot.completarFoto(foto, tickActual);
+    }
+
     public void addListener(SimulacionListener listener) {
         if (listener != null) listeners.add(listener);
     }
@@ -147,6 +555,227 @@ public class Simulador {
         listeners.remove(listener);
     }
 
+    public void addFotoListener(FotoListener listener) {
+        if (listener == null) return;
+        getBufferFotos();
+        fotoListeners.add(listener);
+    }
+
+    public void removeFotoListener(FotoListener listener) {
+        fotoListeners.remove(listener);
+    }
+
+    /**
+     * Buffer por el que un único consumidor (por ejemplo un hilo de análisis o la interfaz)
+     * lee la foto más reciente mientras el motor sigue avanzando. Al pedirlo por primera vez
+     * el simulador empieza a tomar una foto por tick.
+     */
+    public BufferFotos getBufferFotos() {
+        BufferFotos buffer = bufferFotos;
+        if (buffer == null) {
+            synchronized (this) {
+                buffer = bufferFotos;
+                if (buffer == null) {
+                    buffer = bufferFotos = new BufferFotos(estado.getNumeroEstaciones(), estado.getNumeroAutobuses());
+                }
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * Publica el estado actual sin avanzar la simulación (por ejemplo, para el primer dibujo).
+     * No debe llamarse mientras la simulación está en ejecución.
+     */
+    public void publicarEstado() {
+        synchronized (candadoTick) {
+            if (enEjecucion) throw new IllegalStateException("No se puede publicar el estado con la simulación en ejecución");
+            notificarActualizacion();
+        }
+    }
+
+    /**
+     * Cambia la fuente de ticks. Si la simulación está en ejecución continúa con el nuevo reloj.
+     * @param reloj nuevo reloj (no nulo)
+     */
+    public void setReloj(Reloj reloj) {
+        if (reloj == null) throw new IllegalArgumentException("El reloj no puede ser nulo");
+        synchronized (candadoTick) {
+            boolean ejecutando = enEjecucion;
+            detenerSimulacion();
+            // Un tick que el reloj anterior ya tenía en camino no corre: ya no es el reloj actual
+            this.reloj = reloj;
+            if (ejecutando) iniciarSimulacion();
+        }
+    }
+
+    /**
+     * Define cuántos hilos ejecutan cada tick. Con 1 el tick es secuencial; con más se reparten
+     * las fases de llegadas, movimiento y abordaje en un ForkJoinPool. El resultado no depende de este valor.
+     * @param hilos cantidad de hilos (>=1)
+     */
+    public void setParalelismo(int hilos) {
+        if (hilos < 1) throw new IllegalArgumentException("Debe haber al menos 1 hilo");
+        synchronized (candadoTick) {
+            if (enEjecucion) throw new IllegalStateException("Detenga la simulación antes de cambiar el paralelismo");
+            EjecutorParalelo anterior = ejecutor;
+            if (anterior != null) {
+                if (anterior.getHilos() == hilos) return;
+                anterior.cerrar();
+            }
+            if (hilos == 1) {
+                ejecutor = null;
+                return;
+            }
+            if (ordenLlegadas == null) {
+                inicioLlegadas = new int[estado.getNumeroEstaciones() + 1];
+                ordenLlegadas = new int[estado.getNumeroAutobuses()];
+            }
+            ejecutor = new EjecutorParalelo(hilos);
+        }
+    }
+
+    /**
+     * Cambia la forma de avanzar la simulación conservando el estado actual.
+     * En modo eventos el tick es secuencial: el paralelismo solo se usa en modo por ticks.
+     * @param modo modo nuevo (no nulo)
+     */
+    public void setModo(Modo modo) {
+        if (modo == null) throw new IllegalArgumentException("El modo no puede ser nulo");
+        synchronized (candadoTick) {
+            if (enEjecucion) throw new IllegalStateException("Detenga la simulación antes de cambiar el modo");
+            MotorEventos actual = motor;
+            if (modo == Modo.EVENTOS && !(politica instanceof DespachoCongestion)) {
+                throw new IllegalStateException("El modo eventos solo admite la política de despacho por defecto");
+            }
+            if (modo == Modo.EVENTOS && actual == null) {
+                motor = new MotorEventos(estado, tickActual, demanda);
+            } else if (modo == Modo.TICKS && actual != null) {
+                actual.volcarRetrasos(tickActual);
+                motor = null;
+            }
+        }
+    }
+
+    public Modo getModo() {
+        return motor == null ? Modo.TICKS : Modo.EVENTOS;
+    }
+
+    /**
+     * Cambia el modelo de llegadas de pasajeros. El modelo se inicia con un flujo aleatorio
+     * derivado de la semilla del simulador y se usa desde el tick siguiente, en ambos modos.
+     * Con una demanda dispersa (por ejemplo {@link DemandaPoisson} con tasas nocturnas) solo se
+     * visitan las estaciones que reciben pasajeros.
+     * @param demanda modelo nuevo (no nulo, no compartido con otro simulador)
+     */
+    public void setDemanda(ModeloDemanda demanda) {
+        if (demanda == null) throw new IllegalArgumentException("El modelo de demanda no puede ser nulo");
+        synchronized (candadoTick) {
+            if (enEjecucion) throw new IllegalStateException("Detenga la simulación antes de cambiar la demanda");
+            demanda.iniciar(estado.getNumeroEstaciones(), Aleatorio.derivar(estado.getSemilla(), Aleatorio.DOMINIO_DEMANDA));
+            this.demanda = demanda;
+            MotorEventos mot = motor;
+            if (mot != null) mot.setDemanda(demanda);
+        }
+    }
+
+    public ModeloDemanda getDemanda() {
+        return demanda;
+    }
+
+    /**
+     * Cambia el control de la flota que corre antes del movimiento en cada tick. La política se
+     * inicia con el estado actual. Solo se usa en modo por ticks; el modo eventos tiene su
+     * propia versión de {@link DespachoCongestion}.
+     * @param politica política nueva (no nula, no compartida con otro simulador)
+     */
+    public void setPolitica(PoliticaDespacho politica) {
+        if (politica == null) throw new IllegalArgumentException("La política de despacho no puede ser nula");
+        synchronized (candadoTick) {
+            if (enEjecucion) throw new IllegalStateException("Detenga la simulación antes de cambiar la política de despacho");
+            if (motor != null && !(politica instanceof DespachoCongestion)) {
+                throw new IllegalStateException("El modo eventos solo admite la política de despacho por defecto");
+            }
+            politica.iniciar(estado);
+            Arrays.fill(estado.omitirParada, (byte) 0);
+            this.politica = politica;
+        }
+    }
+
+    public PoliticaDespacho getPolitica() {
+        return politica;
+    }
+
+    /**
+     * Activa la medición de cada fase del tick (se puede llamar con la simulación en ejecución).
+     * Si ya estaba activa devuelve las mismas métricas.
+     * @return métricas del simulador
+     */
+    public synchronized MetricasSimulacion habilitarMetricas() {
+        MetricasSimulacion met = metricas;
+        if (met == null) {
+            met = new MetricasSimulacion();
+            metricas = met;
+        }
+        return met;
+    }
+
+    /**
+     * Deja de medir. Las métricas ya tomadas se conservan en el objeto devuelto antes.
+     */
+    public synchronized void deshabilitarMetricas() {
+        metricas = null;
+    }
+
+    /**
+     * @return métricas activas, o null si la medición está deshabilitada
+     */
+    public MetricasSimulacion getMetricas() {
+        return metricas;
+    }
+
+    /**
+     * @return motor del modo eventos, o null en modo por ticks
+     */
+    MotorEventos getMotorEventos() {
+        return motor;
+    }
+
+    /**
+     * Retoma un punto de control: el estado ya fue leído en el almacén y la demanda viene
+     * con sus flujos restaurados. En modo eventos devuelve el motor, para leer sus intentos programados.
+     */
+    MotorEventos restaurar(long tickActual, ModeloDemanda demanda, boolean eventos) {
+        this.tickActual = tickActual;
+        this.demanda = demanda;
+        MotorEventos mot = eventos ? new MotorEventos(estado, tickActual, demanda) : null;
+        this.motor = mot;
+        return mot;
+    }
+
+    public int getParalelismo() {
+        EjecutorParalelo ejec = ejecutor;
+        return ejec == null ? 1 : ejec.getHilos();
+    }
+
+    public Reloj getReloj() {
+        return reloj;
+    }
+
+    /**
+     * @return cantidad de ticks simulados desde la creación
+     */
+    public long getTickActual() {
+        return tickActual;
+    }
+
+    /**
+     * @return semilla de la corrida; con ella se puede reproducir exactamente
+     */
+    public long getSemilla() {
+        return estado.getSemilla();
+    }
+
     public boolean isEnEjecucion() {
         return enEjecucion;
     }
@@ -158,4 +787,18 @@ public class Simulador {
     public List<Autobus> getAutobuses() {
         return autobuses;
     }
+
+    /**
+     * @return red de estaciones y rutas que recorren los autobuses
+     */
+    public RedTransporte getRed() {
+        return estado.getRed();
+    }
+
+    /**
+     * @return almacén de arreglos primitivos con el estado de la red
+     */
+    public EstadoRed getEstado() {
+        return estado;
+    }
 }
\ No newline at end of file
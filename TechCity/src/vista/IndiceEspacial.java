@@ -0,0 +1,83 @@
+package vista;
+
+/**
+ * Índice espacial de grilla uniforme sobre las posiciones de las estaciones.
+ * Las estaciones de cada celda se guardan contiguas (formato CSR), por lo que consultar
+ * un rectángulo cuesta en proporción a las celdas y estaciones visibles, no al total.
+ */
+final class IndiceEspacial {
+
+    private final int minX;
+    private final int minY;
+    private final int tamanoCelda;
+    private final int columnas;
+    private final int filas;
+    private final int[] inicioCelda;     // por celda: inicio en estacionesPorCelda (tamaño celdas + 1)
+    private final int[] estacionesPorCelda;
+
+    /**
+     * Construye el índice con celdas de {@code tamanoCelda} unidades de mundo.
+     */
+    IndiceEspacial(int[] xs, int[] ys, int tamanoCelda) {
+        int n = xs.length;
+        int x0 = Integer.MAX_VALUE, y0 = Integer.MAX_VALUE, x1 = Integer.MIN_VALUE, y1 = Integer.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            x0 = Math.min(x0, xs[i]);
+            y0 = Math.min(y0, ys[i]);
+            x1 = Math.max(x1, xs[i]);
+            y1 = Math.max(y1, ys[i]);
+        }
+        if (n == 0) {
+            x0 = y0 = x1 = y1 = 0;
+        }
+        this.minX = x0;
+        this.minY = y0;
+        this.tamanoCelda = Math.max(1, tamanoCelda);
+        this.columnas = (x1 - x0) / this.tamanoCelda + 1;
+        this.filas = (y1 - y0) / this.tamanoCelda + 1;
+
+        // Ordenamiento por conteo de las estaciones por celda
+        inicioCelda = new int[columnas * filas + 1];
+        for (int i = 0; i < n; i++) {
+            inicioCelda[celda(xs[i], ys[i]) + 1]++;
+        }
+        for (int c = 1; c < inicioCelda.length; c++) {
+            inicioCelda[c] += inicioCelda[c - 1];
+        }
+        estacionesPorCelda = new int[n];
+        int[] cursor = inicioCelda.clone();
+        for (int i = 0; i < n; i++) {
+            estacionesPorCelda[cursor[celda(xs[i], ys[i])]++] = i;
+        }
+    }
+
+    private int celda(int x, int y) {
+        return ((y - minY) / tamanoCelda) * columnas + (x - minX) / tamanoCelda;
+    }
+
+    /**
+     * Escribe en {@code resultado} las estaciones de las celdas que tocan el rectángulo
+     * [x0, x1] x [y0, y1] (coordenadas de mundo). Puede incluir estaciones apenas fuera del
+     * rectángulo, dentro de las celdas de borde.
+     * @param resultado arreglo con capacidad para todas las estaciones
+     * @return cantidad de estaciones escritas
+     */
+    int consultar(int x0, int y0, int x1, int y1, int[] resultado) {
+        if (x1 < minX || y1 < minY) return 0;
+        int c0 = Math.max(0, (x0 - minX) / tamanoCelda);
+        int c1 = Math.min(columnas - 1, (x1 - minX) / tamanoCelda);
+        int f0 = Math.max(0, (y0 - minY) / tamanoCelda);
+        int f1 = Math.min(filas - 1, (y1 - minY) / tamanoCelda);
+
+        int cantidad = 0;
+        for (int f = f0; f <= f1; f++) {
+            for (int c = c0; c <= c1; c++) {
+                int celda = f * columnas + c;
+                for (int k = inicioCelda[celda], fin = inicioCelda[celda + 1]; k < fin; k++) {
+                    resultado[cantidad++] = estacionesPorCelda[k];
+                }
+            }
+        }
+        return cantidad;
+    }
+}
@@ -0,0 +1,114 @@
+package vista;
+
+import modelo.Autobus;
+import modelo.FotoSimulacion;
+
+import java.util.List;
+
+/**
+ * Tabla de autobuses respaldada por arreglos primitivos.
+ * Las etiquetas "Bus N" se arman una sola vez y los nombres de estación se toman de la
+ * tabla de estaciones; solo se notifican las celdas cuyo valor cambió.
+ */
+class ModeloTablaAutobuses extends ModeloTablaIncremental {
+
+    private static final int COL_BUS = 0;
+    private static final int COL_ESTACION = 1;
+    private static final int COL_OCUPADOS = 2;
+    private static final int COL_CAPACIDAD = 3;
+    private static final int COL_DISPONIBLE = 4;
+
+    private final ModeloTablaEstaciones estaciones;
+
+    private String[] etiquetas = new String[0];
+    private int[] estacion = new int[0];
+    private int[] ocupados = new int[0];
+    private int[] capacidad = new int[0];
+
+    ModeloTablaAutobuses(ModeloTablaEstaciones estaciones) {
+        super("Bus", "Estación actual", "Ocupados", "Capacidad", "Disp.");
+        this.estaciones = estaciones;
+    }
+
+    /**
+     * Define las filas (cambio de topología o de flota).
+     */
+    void setAutobuses(List<Autobus> autobuses) {
+        int n = autobuses.size();
+        etiquetas = new String[n];
+        estacion = new int[n];
+        ocupados = new int[n];
+        capacidad = new int[n];
+        for (int i = 0; i < n; i++) {
+            Autobus b = autobuses.get(i);
+            etiquetas[i] = "Bus " + b.getId();
+            estacion[i] = b.getEstacionActual().getId();
+            ocupados[i] = b.getPasajerosActuales();
+            capacidad[i] = b.getCapacidadMaxima();
+        }
+        fireTableDataChanged();
+    }
+
+    void actualizar(FotoSimulacion foto) {
+        iniciarCambios();
+        for (int i = 0, n = estacion.length; i < n; i++) {
+            actualizarFila(i, foto.getEstacionAutobus(i), foto.getPasajerosAutobus(i), foto.getCapacidad(i));
+        }
+        publicarCambios();
+    }
+
+    void actualizar(List<Autobus> autobuses) {
+        if (autobuses.size() != estacion.length) {
+            setAutobuses(autobuses);
+            return;
+        }
+        iniciarCambios();
+        for (int i = 0, n = estacion.length; i < n; i++) {
+            Autobus b = autobuses.get(i);
+            actualizarFila(i, b.getEstacionActual().getId(), b.getPasajerosActuales(), b.getCapacidadMaxima());
+        }
+        publicarCambios();
+    }
+
+    private void actualizarFila(int fila, int nuevaEstacion, int nuevosOcupados, int nuevaCapacidad) {
+        if (nuevaEstacion != estacion[fila]) {
+            estacion[fila] = nuevaEstacion;
+            marcarCambio(fila, COL_ESTACION);
+        }
+        boolean cambioDisponible = false;
+        if (nuevosOcupados != ocupados[fila]) {
+            ocupados[fila] = nuevosOcupados;
+            marcarCambio(fila, COL_OCUPADOS);
+            cambioDisponible = true;
+        }
+        if (nuevaCapacidad != capacidad[fila]) {
+            capacidad[fila] = nuevaCapacidad;
+            marcarCambio(fila, COL_CAPACIDAD);
+            cambioDisponible = true;
+        }
+        if (cambioDisponible) {
+            marcarCambio(fila, COL_DISPONIBLE);
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return estacion.length;
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columna) {
+        return columna >= COL_OCUPADOS ? Integer.class : String.class;
+    }
+
+    @Override
+    public Object getValueAt(int fila, int columna) {
+        switch (columna) {
+            case COL_BUS: return etiquetas[fila];
+            case COL_ESTACION: return estaciones.getNombre(estacion[fila]);
+            case COL_OCUPADOS: return ocupados[fila];
+            case COL_CAPACIDAD: return capacidad[fila];
+            default: return capacidad[fila] - ocupados[fila];
+        }
+    }
+}
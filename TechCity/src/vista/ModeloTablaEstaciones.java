@@ -0,0 +1,88 @@
+package vista;
+
+import modelo.Estacion;
+import modelo.FotoSimulacion;
+
+import java.util.List;
+
+/**
+ * Tabla de estaciones respaldada por arreglos primitivos.
+ * Solo notifica las celdas cuyo valor cambió respecto del último refresco.
+ */
+class ModeloTablaEstaciones extends ModeloTablaIncremental {
+
+    private static final int COL_NOMBRE = 0;
+    private static final int COL_ESPERANDO = 1;
+
+    private String[] nombres = new String[0];
+    private int[] esperando = new int[0];
+
+    ModeloTablaEstaciones() {
+        super("Estación", "Pasajeros esperando");
+    }
+
+    /**
+     * Define las filas (cambio de topología): nombres y cantidad de estaciones.
+     */
+    void setEstaciones(List<Estacion> estaciones) {
+        int n = estaciones.size();
+        nombres = new String[n];
+        esperando = new int[n];
+        for (int i = 0; i < n; i++) {
+            Estacion e = estaciones.get(i);
+            nombres[i] = e.getNombre();
+            esperando[i] = e.getPasajerosEsperando();
+        }
+        fireTableDataChanged();
+    }
+
+    void actualizar(FotoSimulacion foto) {
+        iniciarCambios();
+        for (int i = 0, n = esperando.length; i < n; i++) {
+            int valor = foto.getPasajerosEsperando(i);
+            if (valor != esperando[i]) {
+                esperando[i] = valor;
+                marcarCambio(i, COL_ESPERANDO);
+            }
+        }
+        publicarCambios();
+    }
+
+    void actualizar(List<Estacion> estaciones) {
+        if (estaciones.size() != esperando.length) {
+            setEstaciones(estaciones);
+            return;
+        }
+        iniciarCambios();
+        for (int i = 0, n = esperando.length; i < n; i++) {
+            int valor = estaciones.get(i).getPasajerosEsperando();
+            if (valor != esperando[i]) {
+                esperando[i] = valor;
+                marcarCambio(i, COL_ESPERANDO);
+            }
+        }
+        publicarCambios();
+    }
+
+    /**
+     * Nombre de la estación con el índice dado (compartido con la tabla de autobuses).
+     */
+    String getNombre(int estacion) {
+        return nombres[estacion];
+    }
+
+    @Override
+    public int getRowCount() {
+        return esperando.length;
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columna) {
+        return columna == COL_ESPERANDO ? Integer.class : String.class;
+    }
+
+    @Override
+    public Object getValueAt(int fila, int columna) {
+        return columna == COL_NOMBRE ? nombres[fila] : Integer.valueOf(esperando[fila]);
+    }
+}
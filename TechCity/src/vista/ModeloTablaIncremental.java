@@ -0,0 +1,74 @@
+package vista;
+
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Base de los modelos de tabla que se actualizan por diferencias.
+ * Las subclases guardan los valores mostrados en arreglos primitivos, anotan las celdas
+ * que cambiaron con {@link #marcarCambio(int, int)} y al final llaman a {@link #publicarCambios()},
+ * que dispara solo los eventos necesarios: uno por celda si son pocas, o uno por el
+ * tramo de filas afectado si son muchas.
+ */
+abstract class ModeloTablaIncremental extends AbstractTableModel {
+
+    /** Por encima de esta cantidad de celdas cambiadas se emite un único evento de filas. */
+    private static final int MAXIMO_EVENTOS_CELDA = 64;
+
+    private final String[] columnas;
+    private final int[] celdasCambiadas = new int[MAXIMO_EVENTOS_CELDA]; // fila * columnas + columna
+    private int cantidadCambios;
+    private int primeraFila;
+    private int ultimaFila;
+
+    ModeloTablaIncremental(String... columnas) {
+        this.columnas = columnas;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnas.length;
+    }
+
+    @Override
+    public String getColumnName(int columna) {
+        return columnas[columna];
+    }
+
+    @Override
+    public boolean isCellEditable(int fila, int columna) {
+        return false;
+    }
+
+    /**
+     * Prepara el registro de cambios para una nueva actualización.
+     */
+    void iniciarCambios() {
+        cantidadCambios = 0;
+        primeraFila = Integer.MAX_VALUE;
+        ultimaFila = -1;
+    }
+
+    void marcarCambio(int fila, int columna) {
+        if (cantidadCambios < MAXIMO_EVENTOS_CELDA) {
+            celdasCambiadas[cantidadCambios] = fila * columnas.length + columna;
+        }
+        cantidadCambios++;
+        if (fila < primeraFila) primeraFila = fila;
+        if (fila > ultimaFila) ultimaFila = fila;
+    }
+
+    /**
+     * Dispara los eventos de las celdas marcadas desde {@link #iniciarCambios()}.
+     */
+    void publicarCambios() {
+        if (cantidadCambios == 0) return;
+        if (cantidadCambios > MAXIMO_EVENTOS_CELDA) {
+            fireTableRowsUpdated(primeraFila, ultimaFila);
+            return;
+        }
+        for (int i = 0; i < cantidadCambios; i++) {
+            int celda = celdasCambiadas[i];
+            fireTableCellUpdated(celda / columnas.length, celda % columnas.length);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package vista;
+
+import modelo.ResumenKpi;
+
+/**
+ * Tabla de indicadores por ruta. Guarda los valores ya redondeados a lo que se muestra,
+ * así solo se notifican las celdas cuyo texto cambia. Las etiquetas "Ruta N" se arman una
+ * sola vez, cuando cambia la cantidad de rutas.
+ */
+class ModeloTablaRutas extends ModeloTablaIncremental {
+
+    private static final int COL_RUTA = 0;
+    private static final int COL_CARGA = 1;
+    private static final int COL_CARGA_MAXIMA = 2;
+    private static final int COL_INTERVALO = 3;
+    private static final int COL_CV = 4;
+    private static final int COL_PERDIDOS = 5;
+    private static final int COLUMNAS_VALOR = 5;
+
+    private String[] etiquetas = new String[0];
+    private double[] valores = new double[0]; // COLUMNAS_VALOR por ruta
+
+    ModeloTablaRutas() {
+        super("Ruta", "Carga %", "Carga máx. %", "Intervalo", "CV intervalo", "Perdidos %");
+    }
+
+    void actualizar(ResumenKpi kpi) {
+        int rutas = kpi.getNumeroRutas();
+        if (rutas * COLUMNAS_VALOR != valores.length) {
+            etiquetas = new String[rutas];
+            for (int r = 0; r < rutas; r++) {
+                etiquetas[r] = "Ruta " + (r + 1);
+            }
+            valores = new double[rutas * COLUMNAS_VALOR];
+            copiar(kpi);
+            fireTableDataChanged();
+            return;
+        }
+        iniciarCambios();
+        copiar(kpi);
+        publicarCambios();
+    }
+
+    private void copiar(ResumenKpi kpi) {
+        for (int r = 0, n = kpi.getNumeroRutas(); r < n; r++) {
+            fijar(r, COL_CARGA, redondear(100 * kpi.getCargaMediaRuta(r), 10));
+            fijar(r, COL_CARGA_MAXIMA, redondear(100 * kpi.getCargaMaximaRuta(r), 10));
+            fijar(r, COL_INTERVALO, redondear(kpi.getIntervaloMedio(r), 10));
+            fijar(r, COL_CV, redondear(kpi.getCoeficienteVariacionIntervalo(r), 100));
+            fijar(r, COL_PERDIDOS, redondear(100 * kpi.getFraccionPerdidaRuta(r), 10));
+        }
+    }
+
+    private void fijar(int fila, int columna, double valor) {
+        int i = fila * COLUMNAS_VALOR + columna - 1;
+        if (valores[i] != valor) {
+            valores[i] = valor;
+            marcarCambio(fila, columna);
+        }
+    }
+
+    private static double redondear(double valor, int escala) {
+        return Math.round(valor * escala) / (double) escala;
+    }
+
+    @Override
+    public int getRowCount() {
+        return valores.length / COLUMNAS_VALOR;
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columna) {
+        return columna == COL_RUTA ? String.class : Double.class;
+    }
+
+    @Override
+    public Object getValueAt(int fila, int columna) {
+        if (columna == COL_RUTA) return etiquetas[fila];
+        return valores[fila * COLUMNAS_VALOR + columna - 1];
+    }
+}
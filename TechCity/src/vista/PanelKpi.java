@@ -0,0 +1,50 @@
+package vista;
+
+import modelo.ResumenKpi;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.Locale;
+
+/**
+ * Panel de indicadores de servicio: resumen de la red arriba y tabla por ruta abajo.
+ * Se refresca en el EDT con el último {@link ResumenKpi} publicado por el hilo del motor.
+ */
+public class PanelKpi extends JPanel {
+
+    private final JLabel lblEspera = new JLabel();
+    private final JLabel lblPercentiles = new JLabel();
+    private final JLabel lblCarga = new JLabel();
+    private final JLabel lblPerdidos = new JLabel();
+    private final ModeloTablaRutas modeloRutas = new ModeloTablaRutas();
+
+    public PanelKpi() {
+        super(new BorderLayout(4, 4));
+        setBorder(BorderFactory.createTitledBorder("Indicadores"));
+
+        JPanel resumen = new JPanel(new GridLayout(0, 1));
+        resumen.add(lblEspera);
+        resumen.add(lblPercentiles);
+        resumen.add(lblCarga);
+        resumen.add(lblPerdidos);
+        add(resumen, BorderLayout.NORTH);
+
+        JTable tablaRutas = new JTable(modeloRutas);
+        tablaRutas.setPreferredScrollableViewportSize(new Dimension(360, 80));
+        add(new JScrollPane(tablaRutas), BorderLayout.CENTER);
+    }
+
+    /**
+     * Muestra los valores del resumen.
+     */
+    public void actualizar(ResumenKpi kpi) {
+        lblEspera.setText(String.format(Locale.ROOT, "Espera media por estación: %.1f pasajeros", kpi.getEsperaMediaRed()));
+        lblPercentiles.setText(String.format(Locale.ROOT, "Espera p50 / p90 / p99: %.0f / %.0f / %.0f",
+                kpi.getEsperaP50Red(), kpi.getEsperaP90Red(), kpi.getEsperaP99Red()));
+        lblCarga.setText(String.format(Locale.ROOT, "Carga media: %.1f %%   p90: %.1f %%",
+                100 * kpi.getCargaMediaRed(), 100 * kpi.getCargaP90Red()));
+        lblPerdidos.setText(String.format(Locale.ROOT, "Ticks perdidos por congestión: %.1f %%",
+                100 * kpi.getFraccionPerdidaRed()));
+        modeloRutas.actualizar(kpi);
+    }
+}
@@ -2,149 +2,674 @@ package vista;
 
 import modelo.Autobus;
 import modelo.Estacion;
+import modelo.FotoSimulacion;
+import modelo.RedTransporte;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
 import java.util.List;
-import java.util.*;
 
 /**
  * Panel que dibuja el mapa: estaciones (nodos), conexiones (líneas) y autobuses (rectángulos).
+ * Con varias rutas cada una se dibuja con su color y las estaciones de transbordo llevan un anillo.
+ * <p>
+ * El dibujo se separa en dos capas. La capa estática (conexiones, estaciones y nombres) se
+ * pinta una vez en una imagen y solo se regenera si cambia el tamaño, la topología o la vista.
+ * En cada cuadro se copia esa imagen y encima se dibuja lo dinámico: estaciones congestionadas,
+ * pasajeros esperando y autobuses.
+ * <p>
+ * Con {@link #setPeriodoTick(long)} los autobuses se mueven de forma continua: durante el
+ * periodo que sigue a cada foto, los que avanzaron se dibujan entre su estación anterior y la
+ * actual, con un bucle de repintado al ritmo de refresco de la pantalla. Si los ticks son
+ * más cortos que un cuadro la animación se apaga y se dibujan en su estación.
+ * <p>
+ * Admite desplazamiento (arrastrar), zoom (rueda) y vuelta a la vista completa (doble clic).
+ * Mientras se arrastra, la capa estática se corre sin regenerarse y se regenera una sola vez
+ * al soltar; el zoom la regenera a lo sumo una vez por cuadro (los repintados se agrupan).
+ * Solo se dibujan las estaciones visibles, obtenidas de un {@link IndiceEspacial}, y cuando
+ * las estaciones quedan muy juntas en pantalla se pasa a un nivel de detalle resumido: sin
+ * nombres ni conteos, y con los autobuses agrupados en una insignia por estación.
  */
 public class PanelMapa extends JPanel {
 
-    private List<Estacion> estaciones = Collections.emptyList();
-    private List<Autobus> autobuses = Collections.emptyList();
+    private static final int RADIO_ESTACION = 14;
+    private static final int ANCHO_BUS = 18;
+    private static final int ALTO_BUS = 12;
+    private static final int UMBRAL_CONGESTION = 20;
 
-    // Posiciones calculadas de cada estación (index -> Point)
-    private final Map<Integer, Point> posicionesEstaciones = new HashMap<>();
+    /** Separación mínima en pantalla (px) entre estaciones vecinas para dibujar con detalle. */
+    private static final double SEPARACION_DETALLE = 36;
+    /** Separación mínima (px) para escribir el número en las insignias de autobuses. */
+    private static final double SEPARACION_INSIGNIA = 16;
+    /** Margen (px) alrededor de la pantalla para no cortar nombres ni autobuses en el borde. */
+    private static final int MARGEN_VISIBLE = 80;
+    private static final double ZOOM_MINIMO = 0.5;
+    private static final double ZOOM_MAXIMO = 512;
+    private static final double FACTOR_RUEDA = 1.15;
+
+    private static final Color COLOR_CONEXION = new Color(180, 180, 180);
+    private static final Color COLOR_ESTACION = new Color(80, 140, 220);
+    private static final Color COLOR_CONGESTION = new Color(220, 80, 80);
+    private static final Color COLOR_BUS = new Color(60, 180, 75, 220);
+    private static final Color[] COLORES_RUTA = {
+            new Color(230, 159, 0), new Color(86, 180, 233), new Color(0, 158, 115), new Color(240, 228, 66),
+            new Color(0, 114, 178), new Color(213, 94, 0), new Color(204, 121, 167), new Color(120, 120, 120)
+    };
+    private static final BasicStroke TRAZO_CONEXION = new BasicStroke(2f);
+    private static final BasicStroke TRAZO_ESTACION = new BasicStroke(1.5f);
+    private static final BasicStroke TRAZO_BUS = new BasicStroke(1f);
+
+    // Topología: nombres de estaciones y posiciones de mundo (índice -> x, y)
+    private String[] nombres = new String[0];
+    private RedTransporte red;
+    private int[] xs = new int[0];
+    private int[] ys = new int[0];
+    private IndiceEspacial indice;
+    private double radioMundo;
+
+    // Estado dinámico copiado del último tick
+    private int[] esperando = new int[0];
+    private int[] idBus = new int[0];
+    private String[] etiquetasBus = new String[0];
+    // Autobuses por estación, copiados del índice del modelo: lista enlazada por índice
+    // que empieza en primerBus[e] y sigue por siguienteBus[bus] hasta -1
+    private int[] primerBus = new int[0];
+    private int[] conteoBus = new int[0];
+    private int[] siguienteBus = new int[0];
+    // Estación de cada autobús en el tick anterior, para animar el tramo recorrido
+    private int[] anteriorBus = new int[0];
+
+    // Animación: instante de la foto, duración de un tick y cuadros por segundo de la pantalla
+    private final Timer animacion;
+    private final long nanosCuadro;
+    private long nanosFoto;
+    private long periodoTickNanos;
+    private boolean hayMovimiento;
+
+    // Vista: pantalla = mundo * zoom + desplazamiento
+    private double zoom = 1;
+    private double desplazamientoX;
+    private double desplazamientoY;
+
+    // Estaciones visibles con la vista actual y su posición en pantalla
+    private int[] visibles = new int[0];
+    private int cantidadVisibles;
+    private boolean[] esVisible = new boolean[0];
+    private int[] pantallaX = new int[0];
+    private int[] pantallaY = new int[0];
+    private boolean detalle = true;
+    private double separacion;
+
+    // Capa estática y parámetros con los que se generó
+    private BufferedImage capaEstatica;
+    private boolean capaValida;
+    private double desplazamientoCapaX;
+    private double desplazamientoCapaY;
+    private boolean arrastrando;
+    private int anchoCapa = -1;
+    private int altoCapa = -1;
+
+    private Font fuenteNombres;
+    private Font fuenteConteos;
+    private Font fuenteBuses;
+
+    // Dígitos del conteo que se está dibujando, para no crear un String por estación en cada cuadro
+    private final char[] digitos = new char[11];
 
     public PanelMapa() {
         setBackground(Color.WHITE);
         setPreferredSize(new Dimension(600, 400));
         setDoubleBuffered(true);
+        instalarControlesVista();
+        int hz = frecuenciaPantalla();
+        nanosCuadro = 1_000_000_000L / hz;
+        animacion = new Timer(Math.max(1, 1000 / hz), e -> avanzarAnimacion());
+        animacion.setCoalesce(true);
+    }
+
+    /**
+     * Frecuencia de refresco de la pantalla principal, o 60 Hz si no se conoce.
+     */
+    public static int frecuenciaPantalla() {
+        if (GraphicsEnvironment.isHeadless()) return 60;
+        int hz = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                .getDisplayMode().getRefreshRate();
+        return hz == DisplayMode.REFRESH_RATE_UNKNOWN || hz < 24 ? 60 : hz;
+    }
+
+    /**
+     * Define la duración de un tick en tiempo real, para animar el movimiento de los autobuses
+     * entre fotos. Con 0 (o con ticks más cortos que un cuadro) no se anima.
+     */
+    public void setPeriodoTick(long nanos) {
+        periodoTickNanos = Math.max(0, nanos);
+        if (!animando()) animacion.stop();
+        repaint();
+    }
+
+    private boolean animando() {
+        return periodoTickNanos > nanosCuadro;
+    }
+
+    /**
+     * @return fracción del tick transcurrida desde la foto, entre 0 y 1 (1 = sin animación)
+     */
+    private double fraccionTick() {
+        if (!animando() || !hayMovimiento) return 1;
+        double f = (double) (System.nanoTime() - nanosFoto) / periodoTickNanos;
+        return f < 0 ? 0 : Math.min(1, f);
+    }
+
+    private void avanzarAnimacion() {
+        if (fraccionTick() >= 1) animacion.stop(); // este último cuadro deja cada autobús en su estación
+        repaint();
+    }
+
+    private void instalarControlesVista() {
+        MouseAdapter raton = new MouseAdapter() {
+            private int ultimoX;
+            private int ultimoY;
+
+            @Override
+            public void mousePressed(MouseEvent e) {
+                ultimoX = e.getX();
+                ultimoY = e.getY();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                desplazamientoX += e.getX() - ultimoX;
+                desplazamientoY += e.getY() - ultimoY;
+                ultimoX = e.getX();
+                ultimoY = e.getY();
+                arrastrando = true;
+                repaint(); // la capa estática se corre en paintComponent
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                if (arrastrando) {
+                    arrastrando = false;
+                    invalidarVista();
+                }
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                acercar(e.getX(), e.getY(), Math.pow(FACTOR_RUEDA, -e.getPreciseWheelRotation()));
+            }
+
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) restablecerVista();
+            }
+        };
+        addMouseListener(raton);
+        addMouseMotionListener(raton);
+        addMouseWheelListener(raton);
+    }
+
+    /**
+     * Cambia el zoom manteniendo fijo el punto de pantalla (px, py).
+     */
+    public void acercar(int px, int py, double factor) {
+        double nuevoZoom = Math.max(ZOOM_MINIMO, Math.min(ZOOM_MAXIMO, zoom * factor));
+        double f = nuevoZoom / zoom;
+        desplazamientoX = px - (px - desplazamientoX) * f;
+        desplazamientoY = py - (py - desplazamientoY) * f;
+        zoom = nuevoZoom;
+        invalidarVista();
+    }
+
+    /**
+     * Vuelve a la vista completa del mapa.
+     */
+    public void restablecerVista() {
+        zoom = 1;
+        desplazamientoX = 0;
+        desplazamientoY = 0;
+        invalidarVista();
+    }
+
+    public double getZoom() {
+        return zoom;
+    }
+
+    private void invalidarVista() {
+        capaValida = false;
+        repaint();
+    }
+
+    /**
+     * Define las estaciones del mapa unidas por una única ruta circular en orden de índice.
+     */
+    public void setTopologia(List<Estacion> estaciones) {
+        setTopologia(estaciones, null);
+    }
+
+    /**
+     * Define las estaciones y rutas del mapa (cambio de topología): invalida la capa estática.
+     * @param red rutas a dibujar; si es null, una ruta circular por todas las estaciones
+     */
+    public void setTopologia(List<Estacion> estaciones, RedTransporte red) {
+        int n = estaciones.size();
+        if (red != null && red.getNumeroEstaciones() != n) {
+            throw new IllegalArgumentException("La red no corresponde a las estaciones");
+        }
+        this.red = red != null || n == 0 ? red : RedTransporte.circular(n);
+        nombres = new String[n];
+        esperando = new int[n];
+        esVisible = new boolean[n];
+        visibles = new int[n];
+        pantallaX = new int[n];
+        pantallaY = new int[n];
+        cantidadVisibles = 0;
+        primerBus = new int[n];
+        conteoBus = new int[n];
+        Arrays.fill(primerBus, -1);
+        for (int i = 0; i < n; i++) {
+            Estacion e = estaciones.get(i);
+            nombres[i] = e.getNombre();
+            esperando[i] = e.getPasajerosEsperando();
+        }
+        anchoCapa = -1; // fuerza recalcular posiciones e índice
+        capaValida = false;
+        repaint();
     }
 
     /**
      * Recibe los datos y solicita repintar.
      */
     public void setDatos(List<Estacion> estaciones, List<Autobus> autobuses) {
-        this.estaciones = estaciones != null ? estaciones : Collections.emptyList();
-        this.autobuses = autobuses != null ? autobuses : Collections.emptyList();
-        recalcularPosiciones();
+        if (estaciones == null || autobuses == null) return;
+        if (estaciones.size() != nombres.length) {
+            setTopologia(estaciones);
+        }
+        for (int i = 0; i < esperando.length; i++) {
+            esperando[i] = estaciones.get(i).getPasajerosEsperando();
+        }
+        prepararAutobuses(autobuses.size());
+        Arrays.fill(anteriorBus, -1);
+        hayMovimiento = false;
+        Arrays.fill(primerBus, -1);
+        Arrays.fill(conteoBus, 0);
+        for (int i = autobuses.size() - 1; i >= 0; i--) {
+            Autobus b = autobuses.get(i);
+            fijarIdBus(i, b.getId());
+            int e = b.getEstacionActual().getId();
+            if (e < 0 || e >= primerBus.length) {
+                siguienteBus[i] = -1;
+                continue;
+            }
+            siguienteBus[i] = primerBus[e];
+            primerBus[e] = i;
+            conteoBus[e]++;
+        }
         repaint();
     }
 
-    private void recalcularPosiciones() {
-        posicionesEstaciones.clear();
-        int n = estaciones.size();
-        if (n == 0) return;
+    /**
+     * Copia los datos dinámicos de la foto del tick y solicita repintar.
+     * La topología debe haberse definido antes con {@link #setTopologia(List)}.
+     */
+    public void setFoto(FotoSimulacion foto) {
+        if (foto.getNumeroEstaciones() != esperando.length) return;
+        for (int i = 0; i < esperando.length; i++) {
+            esperando[i] = foto.getPasajerosEsperando(i);
+            primerBus[i] = foto.getPrimerAutobus(i);
+            conteoBus[i] = foto.getCantidadAutobuses(i);
+        }
+        prepararAutobuses(foto.getNumeroAutobuses());
+        boolean movimiento = false;
+        for (int i = 0; i < siguienteBus.length; i++) {
+            siguienteBus[i] = foto.getSiguienteAutobus(i);
+            int anterior = foto.getEstacionAnterior(i);
+            anteriorBus[i] = anterior;
+            movimiento |= anterior != foto.getEstacionAutobus(i);
+            fijarIdBus(i, i + 1);
+        }
+        nanosFoto = foto.getNanosCaptura();
+        hayMovimiento = movimiento;
+        if (movimiento && animando() && !animacion.isRunning()) animacion.start();
+        repaint();
+    }
 
-        // Distribuir en círculo
-        int w = Math.max(1, getWidth());
-        int h = Math.max(1, getHeight());
+    private void prepararAutobuses(int n) {
+        if (siguienteBus.length != n) {
+            idBus = new int[n];
+            etiquetasBus = new String[n];
+            siguienteBus = new int[n];
+            anteriorBus = new int[n];
+            Arrays.fill(anteriorBus, -1);
+        }
+    }
+
+    private void fijarIdBus(int i, int id) {
+        if (etiquetasBus[i] == null || idBus[i] != id) {
+            idBus[i] = id;
+            etiquetasBus[i] = String.valueOf(id);
+        }
+    }
+
+    /**
+     * Distribuye las estaciones en círculo según el tamaño del panel (coordenadas de mundo)
+     * y reconstruye el índice espacial.
+     */
+    private void recalcularPosiciones(int w, int h) {
+        int n = nombres.length;
+        if (xs.length != n) {
+            xs = new int[n];
+            ys = new int[n];
+        }
         int radio = (int) (Math.min(w, h) * 0.4);
         int cx = w / 2;
         int cy = h / 2;
 
         for (int i = 0; i < n; i++) {
             double ang = 2 * Math.PI * i / n;
-            int x = cx + (int) (radio * Math.cos(ang));
-            int y = cy + (int) (radio * Math.sin(ang));
-            posicionesEstaciones.put(i, new Point(x, y));
+            xs[i] = cx + (int) (radio * Math.cos(ang));
+            ys[i] = cy + (int) (radio * Math.sin(ang));
+        }
+        radioMundo = radio;
+        indice = new IndiceEspacial(xs, ys, Math.max(8, Math.min(w, h) / 32));
+    }
+
+    /**
+     * Determina las estaciones visibles con la vista actual, su posición en pantalla
+     * y el nivel de detalle.
+     */
+    private void calcularVisibles(int w, int h) {
+        for (int k = 0; k < cantidadVisibles; k++) {
+            esVisible[visibles[k]] = false;
+        }
+        int x0 = (int) Math.floor((-MARGEN_VISIBLE - desplazamientoX) / zoom);
+        int y0 = (int) Math.floor((-MARGEN_VISIBLE - desplazamientoY) / zoom);
+        int x1 = (int) Math.ceil((w + MARGEN_VISIBLE - desplazamientoX) / zoom);
+        int y1 = (int) Math.ceil((h + MARGEN_VISIBLE - desplazamientoY) / zoom);
+        cantidadVisibles = indice.consultar(x0, y0, x1, y1, visibles);
+        for (int k = 0; k < cantidadVisibles; k++) {
+            int i = visibles[k];
+            esVisible[i] = true;
+            pantallaX[i] = (int) Math.round(xs[i] * zoom + desplazamientoX);
+            pantallaY[i] = (int) Math.round(ys[i] * zoom + desplazamientoY);
         }
+
+        int n = nombres.length;
+        separacion = n > 1 ? zoom * 2 * Math.PI * radioMundo / n : Double.MAX_VALUE;
+        detalle = separacion >= SEPARACION_DETALLE;
     }
 
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
-        // Antialiasing
+        int w = Math.max(1, getWidth());
+        int h = Math.max(1, getHeight());
+        if (!capaValida || w != anchoCapa || h != altoCapa) {
+            reconstruirCapaEstatica(w, h);
+        } else if (desplazamientoX != desplazamientoCapaX || desplazamientoY != desplazamientoCapaY) {
+            calcularVisibles(w, h); // arrastrando: la capa se corre y lo dinámico sigue a la vista
+        }
+
         Graphics2D g2 = (Graphics2D) g.create();
         try {
+            g2.drawImage(capaEstatica, (int) Math.round(desplazamientoX - desplazamientoCapaX),
+                    (int) Math.round(desplazamientoY - desplazamientoCapaY), null);
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+            // Capa dinámica
+            if (detalle) {
+                dibujarOcupacionEstaciones(g2);
+                dibujarAutobuses(g2);
+            } else {
+                dibujarCongestionResumida(g2);
+                dibujarInsigniasAutobuses(g2);
+            }
+        } finally {
+            g2.dispose();
+        }
+        // Con animación, entregar el cuadro ya (sin esperar al búfer del sistema de ventanas)
+        if (animacion.isRunning()) Toolkit.getDefaultToolkit().sync();
+    }
+
+    /**
+     * Pinta conexiones, estaciones y nombres visibles en una imagen reutilizable.
+     * Las posiciones y el índice solo se recalculan si cambió el tamaño o la topología.
+     */
+    private void reconstruirCapaEstatica(int w, int h) {
+        if (w != anchoCapa || h != altoCapa) {
+            recalcularPosiciones(w, h);
+        }
+        calcularVisibles(w, h);
+        fuenteNombres = getFont().deriveFont(Font.PLAIN, 12f);
+        fuenteConteos = getFont().deriveFont(Font.BOLD, 10f);
+        fuenteBuses = getFont().deriveFont(Font.BOLD, 10f);
+
+        if (capaEstatica == null || capaEstatica.getWidth() != w || capaEstatica.getHeight() != h) {
+            GraphicsConfiguration gc = getGraphicsConfiguration();
+            capaEstatica = gc != null
+                    ? gc.createCompatibleImage(w, h, Transparency.OPAQUE)
+                    : new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        }
+
+        Graphics2D g2 = capaEstatica.createGraphics();
+        try {
+            g2.setColor(getBackground());
+            g2.fillRect(0, 0, w, h);
             g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
             // Dibujar conexiones de la ruta (asumimos ruta circular por índice)
             dibujarConexiones(g2);
 
             // Dibujar estaciones
-            dibujarEstaciones(g2);
-
-            // Dibujar autobuses
-            dibujarAutobuses(g2);
+            if (detalle) {
+                dibujarEstaciones(g2);
+            } else {
+                dibujarEstacionesResumidas(g2);
+            }
         } finally {
             g2.dispose();
         }
+        anchoCapa = w;
+        altoCapa = h;
+        desplazamientoCapaX = desplazamientoX;
+        desplazamientoCapaY = desplazamientoY;
+        capaValida = true;
     }
 
+    /**
+     * Dibuja los tramos de ruta que tocan alguna estación visible, recorriendo las rutas
+     * que pasan por cada una.
+     */
     private void dibujarConexiones(Graphics2D g2) {
-        int n = estaciones.size();
-        g2.setStroke(new BasicStroke(2f));
-        g2.setColor(new Color(180, 180, 180));
-        for (int i = 0; i < n; i++) {
-            Point a = posicionesEstaciones.get(i);
-            Point b = posicionesEstaciones.get((i + 1) % n);
-            if (a != null && b != null) {
-                g2.drawLine(a.x, a.y, b.x, b.y);
+        if (red == null) return;
+        boolean variasRutas = red.getNumeroRutas() > 1;
+        g2.setStroke(TRAZO_CONEXION);
+        g2.setColor(COLOR_CONEXION);
+        for (int k = 0; k < cantidadVisibles; k++) {
+            int i = visibles[k];
+            for (int a = 0, apariciones = red.getCantidadApariciones(i); a < apariciones; a++) {
+                int r = red.getRutaAparicion(i, a);
+                int longitud = red.getLongitudRuta(r);
+                if (longitud < 2) continue;
+                int p = red.getPosicionAparicion(i, a);
+                int sig = red.getParada(r, red.getPosicionSiguiente(r, p));
+                int ant = red.getParada(r, p == 0 ? longitud - 1 : p - 1);
+                if (variasRutas) g2.setColor(COLORES_RUTA[r % COLORES_RUTA.length]);
+                dibujarTramo(g2, i, sig);
+                if (!esVisible[ant]) dibujarTramo(g2, ant, i);
             }
         }
     }
 
+    private void dibujarTramo(Graphics2D g2, int a, int b) {
+        g2.drawLine(aPantallaX(a), aPantallaY(a), aPantallaX(b), aPantallaY(b));
+    }
+
+    private int aPantallaX(int estacion) {
+        return esVisible[estacion] ? pantallaX[estacion] : (int) Math.round(xs[estacion] * zoom + desplazamientoX);
+    }
+
+    private int aPantallaY(int estacion) {
+        return esVisible[estacion] ? pantallaY[estacion] : (int) Math.round(ys[estacion] * zoom + desplazamientoY);
+    }
+
     private void dibujarEstaciones(Graphics2D g2) {
-        int n = estaciones.size();
-        int r = 14;
-        for (int i = 0; i < n; i++) {
-            Point p = posicionesEstaciones.get(i);
-            if (p == null) continue;
-            Estacion est = estaciones.get(i);
-
-            // Color según nivel de pasajeros
-            int espera = est.getPasajerosEsperando();
-            Color c = espera > 20 ? new Color(220, 80, 80) : new Color(80, 140, 220);
-            g2.setColor(c);
-            g2.fillOval(p.x - r, p.y - r, 2 * r, 2 * r);
+        int r = RADIO_ESTACION;
+        g2.setStroke(TRAZO_ESTACION);
+        g2.setFont(fuenteNombres);
+        FontMetrics fm = g2.getFontMetrics();
+        for (int k = 0; k < cantidadVisibles; k++) {
+            int i = visibles[k];
+            int x = pantallaX[i];
+            int y = pantallaY[i];
+            g2.setColor(COLOR_ESTACION);
+            g2.fillOval(x - r, y - r, 2 * r, 2 * r);
             g2.setColor(Color.DARK_GRAY);
-            g2.setStroke(new BasicStroke(1.5f));
-            g2.drawOval(p.x - r, p.y - r, 2 * r, 2 * r);
+            g2.drawOval(x - r, y - r, 2 * r, 2 * r);
+            if (red.esTransbordo(i)) {
+                g2.drawOval(x - r - 3, y - r - 3, 2 * r + 6, 2 * r + 6);
+            }
 
             // Nombre
-            g2.setFont(g2.getFont().deriveFont(Font.PLAIN, 12f));
-            String nombre = est.getNombre() + " (" + espera + ")";
-            int sw = g2.getFontMetrics().stringWidth(nombre);
-            g2.drawString(nombre, p.x - sw / 2, p.y - r - 6);
+            int sw = fm.stringWidth(nombres[i]);
+            g2.drawString(nombres[i], x - sw / 2, y - r - 6);
+        }
+    }
+
+    /**
+     * Radio de estación en el nivel resumido: proporcional a la separación en pantalla.
+     */
+    private int radioResumido() {
+        return (int) Math.max(2, Math.min(RADIO_ESTACION, separacion / 3));
+    }
+
+    private void dibujarEstacionesResumidas(Graphics2D g2) {
+        int r = radioResumido();
+        g2.setColor(COLOR_ESTACION);
+        for (int k = 0; k < cantidadVisibles; k++) {
+            int i = visibles[k];
+            g2.fillOval(pantallaX[i] - r, pantallaY[i] - r, 2 * r, 2 * r);
+        }
+    }
+
+    /**
+     * Colorea las estaciones congestionadas y escribe los pasajeros esperando en cada una.
+     */
+    private void dibujarOcupacionEstaciones(Graphics2D g2) {
+        int r = RADIO_ESTACION;
+        g2.setStroke(TRAZO_ESTACION);
+        g2.setFont(fuenteConteos);
+        FontMetrics fm = g2.getFontMetrics();
+        int ascenso = fm.getAscent() / 2 - 1;
+        for (int k = 0; k < cantidadVisibles; k++) {
+            int i = visibles[k];
+            int x = pantallaX[i];
+            int y = pantallaY[i];
+            int espera = esperando[i];
+            if (espera > UMBRAL_CONGESTION) {
+                g2.setColor(COLOR_CONGESTION);
+                g2.fillOval(x - r, y - r, 2 * r, 2 * r);
+                g2.setColor(Color.DARK_GRAY);
+                g2.drawOval(x - r, y - r, 2 * r, 2 * r);
+            }
+
+            int inicio = escribirDigitos(espera);
+            int largo = digitos.length - inicio;
+            g2.setColor(Color.WHITE);
+            g2.drawChars(digitos, inicio, largo, x - fm.charsWidth(digitos, inicio, largo) / 2, y + ascenso);
+        }
+    }
+
+    private void dibujarCongestionResumida(Graphics2D g2) {
+        int r = radioResumido();
+        g2.setColor(COLOR_CONGESTION);
+        for (int k = 0; k < cantidadVisibles; k++) {
+            int i = visibles[k];
+            if (esperando[i] > UMBRAL_CONGESTION) {
+                g2.fillOval(pantallaX[i] - r, pantallaY[i] - r, 2 * r, 2 * r);
+            }
         }
     }
 
     private void dibujarAutobuses(Graphics2D g2) {
-        int wBus = 18;
-        int hBus = 12;
-
-        int idx = 0;
-        for (Autobus bus : autobuses) {
-            Estacion estActual = bus.getEstacionActual();
-
-            // Buscar índice de estación actual por id
-            int index = Math.max(0, estActual.getId());
-            Point p = posicionesEstaciones.get(index);
-            if (p == null) continue;
-
-            // Offset para que varios buses en la misma estación no se encimen
-            int offset = (idx % 4) * 5 - 8;
-            int x = p.x + offset - wBus / 2;
-            int y = p.y + offset - hBus / 2;
-
-            // Color del bus
-            g2.setColor(new Color(60, 180, 75, 220));
-            g2.fillRoundRect(x, y, wBus, hBus, 6, 6);
-            g2.setColor(Color.DARK_GRAY);
-            g2.drawRoundRect(x, y, wBus, hBus, 6, 6);
+        g2.setStroke(TRAZO_BUS);
+        g2.setFont(fuenteBuses);
+        double f = fraccionTick();
+        for (int k = 0; k < cantidadVisibles; k++) {
+            int e = visibles[k];
+            int j = 0;
+            for (int bus = primerBus[e]; bus >= 0; bus = siguienteBus[bus], j++) {
+
+                // Offset para que varios buses en la misma estación no se encimen
+                int offset = (j % 4) * 5 - 8;
+                int bx = pantallaX[e];
+                int by = pantallaY[e];
+                int desde = anteriorBus[bus];
+                if (f < 1 && desde >= 0 && desde != e) {
+                    // En camino desde la estación anterior
+                    bx = (int) Math.round(aPantallaX(desde) + (bx - aPantallaX(desde)) * f);
+                    by = (int) Math.round(aPantallaY(desde) + (by - aPantallaY(desde)) * f);
+                }
+                int x = bx + offset - ANCHO_BUS / 2;
+                int y = by + offset - ALTO_BUS / 2;
 
-            // ID del bus
-            g2.setFont(g2.getFont().deriveFont(Font.BOLD, 10f));
-            String text = String.valueOf(bus.getId());
-            g2.setColor(Color.BLACK);
-            g2.drawString(text, x + 4, y + hBus - 3);
+                // Color del bus
+                g2.setColor(COLOR_BUS);
+                g2.fillRoundRect(x, y, ANCHO_BUS, ALTO_BUS, 6, 6);
+                g2.setColor(Color.DARK_GRAY);
+                g2.drawRoundRect(x, y, ANCHO_BUS, ALTO_BUS, 6, 6);
 
-            idx++;
+                // ID del bus
+                g2.setColor(Color.BLACK);
+                g2.drawString(etiquetasBus[bus], x + 4, y + ALTO_BUS - 3);
+            }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Nivel resumido: una insignia por estación con la cantidad de autobuses presentes.
+     */
+    private void dibujarInsigniasAutobuses(Graphics2D g2) {
+        boolean conNumero = separacion >= SEPARACION_INSIGNIA;
+        int lado = conNumero ? ALTO_BUS : Math.max(2, radioResumido());
+        g2.setFont(fuenteBuses);
+        FontMetrics fm = g2.getFontMetrics();
+        for (int k = 0; k < cantidadVisibles; k++) {
+            int e = visibles[k];
+            int cantidad = conteoBus[e];
+            if (cantidad == 0) continue;
+            int x = pantallaX[e];
+            int y = pantallaY[e] - lado;
+            g2.setColor(COLOR_BUS);
+            if (conNumero) {
+                int inicio = escribirDigitos(cantidad);
+                int largo = digitos.length - inicio;
+                g2.fillRoundRect(x, y, fm.charsWidth(digitos, inicio, largo) + 6, lado, 6, 6);
+                g2.setColor(Color.BLACK);
+                g2.drawChars(digitos, inicio, largo, x + 3, y + lado - 3);
+            } else {
+                g2.fillRect(x, y, lado, lado);
+            }
+        }
+    }
+
+    /**
+     * Escribe {@code n} en decimal al final de {@link #digitos}.
+     * @return posición del primer carácter
+     */
+    private int escribirDigitos(int n) {
+        int i = digitos.length;
+        long resto = Math.abs((long) n);
+        do {
+            digitos[--i] = (char) ('0' + resto % 10);
+            resto /= 10;
+        } while (resto > 0);
+        if (n < 0) digitos[--i] = '-';
+        return i;
+    }
+}
@@ -0,0 +1,52 @@
+package vista;
+
+import modelo.Autobus;
+import modelo.Estacion;
+import modelo.FotoSimulacion;
+
+import javax.swing.table.TableModel;
+import java.util.List;
+
+/**
+ * Modelos de las tablas de estaciones y autobuses.
+ * Separados de {@link VentanaSimulacion} para poder actualizarlos (y medirlos) sin abrir ventanas.
+ * Cada refresco compara con los valores ya mostrados y solo notifica las celdas que cambiaron.
+ */
+public class TablasSimulacion {
+
+    private final ModeloTablaEstaciones modeloEstaciones = new ModeloTablaEstaciones();
+    private final ModeloTablaAutobuses modeloAutobuses = new ModeloTablaAutobuses(modeloEstaciones);
+
+    /**
+     * Define las filas de ambas tablas (nombres, etiquetas y valores iniciales).
+     * Solo es necesario al inicio o si cambia la topología.
+     */
+    public void setTopologia(List<Estacion> estaciones, List<Autobus> autobuses) {
+        modeloEstaciones.setEstaciones(estaciones);
+        modeloAutobuses.setAutobuses(autobuses);
+    }
+
+    /**
+     * Actualiza las tablas desde la foto del tick.
+     */
+    public void actualizar(FotoSimulacion foto) {
+        modeloEstaciones.actualizar(foto);
+        modeloAutobuses.actualizar(foto);
+    }
+
+    /**
+     * Actualiza las tablas con la información actual.
+     */
+    public void actualizar(List<Estacion> estaciones, List<Autobus> autobuses) {
+        modeloEstaciones.actualizar(estaciones);
+        modeloAutobuses.actualizar(autobuses);
+    }
+
+    public TableModel getModeloEstaciones() {
+        return modeloEstaciones;
+    }
+
+    public TableModel getModeloAutobuses() {
+        return modeloAutobuses;
+    }
+}
@@ -1,10 +1,12 @@
 package vista;
 
+import modelo.ResumenKpi;
 import modelo.Autobus;
 import modelo.Estacion;
+import modelo.FotoSimulacion;
+import modelo.RedTransporte;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.util.List;
 
@@ -14,6 +16,10 @@ import java.util.List;
  */
 public class VentanaSimulacion extends JFrame {
 
+    /** Velocidades ofrecidas, en múltiplos del tiempo real (1 tick = 1 segundo). */
+    public static final double[] VELOCIDADES = {0.25, 0.5, 1, 2, 5, 10, 25, 50, 100, 250, 500, 1000};
+    private static final int VELOCIDAD_INICIAL = 2; // 1×
+
     private final JPanel panelPrincipal = new JPanel(new BorderLayout(8, 8));
     private final PanelMapa panelMapa = new PanelMapa();
 
@@ -23,9 +29,10 @@ public class VentanaSimulacion extends JFrame {
     private final JButton btnPausar = new JButton("Pausar");
     private final JButton btnReanudar = new JButton("Reanudar");
     private final JButton btnSalir = new JButton("Salir");
+    private final JComboBox<String> selectorVelocidad = new JComboBox<>(etiquetasVelocidad());
 
-    private DefaultTableModel modeloEstaciones;
-    private DefaultTableModel modeloAutobuses;
+    private final TablasSimulacion tablas = new TablasSimulacion();
+    private final PanelKpi panelKpi = new PanelKpi();
 
     public VentanaSimulacion() {
         super("TechCity - Simulación de Red de Transporte Inteligente");
@@ -45,15 +52,8 @@ public class VentanaSimulacion extends JFrame {
         JPanel panelDerecha = new JPanel();
         panelDerecha.setLayout(new BoxLayout(panelDerecha, BoxLayout.Y_AXIS));
 
-        modeloEstaciones = new DefaultTableModel(new Object[]{"Estación", "Pasajeros esperando"}, 0) {
-            @Override public boolean isCellEditable(int r, int c) { return false; }
-        };
-        tablaEstaciones.setModel(modeloEstaciones);
-
-        modeloAutobuses = new DefaultTableModel(new Object[]{"Bus", "Estación actual", "Ocupados", "Capacidad", "Disp."}, 0) {
-            @Override public boolean isCellEditable(int r, int c) { return false; }
-        };
-        tablaAutobuses.setModel(modeloAutobuses);
+        tablaEstaciones.setModel(tablas.getModeloEstaciones());
+        tablaAutobuses.setModel(tablas.getModeloAutobuses());
 
         JScrollPane spEst = new JScrollPane(tablaEstaciones);
         spEst.setBorder(BorderFactory.createTitledBorder("Estaciones"));
@@ -63,11 +63,17 @@ public class VentanaSimulacion extends JFrame {
         panelDerecha.add(spEst);
         panelDerecha.add(Box.createVerticalStrut(8));
         panelDerecha.add(spBus);
+        panelDerecha.add(Box.createVerticalStrut(8));
+        panelDerecha.add(panelKpi);
 
         panelPrincipal.add(panelDerecha, BorderLayout.EAST);
 
         // Sur: controles
         JPanel panelSur = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        selectorVelocidad.setSelectedIndex(VELOCIDAD_INICIAL);
+        selectorVelocidad.setToolTipText("Ticks simulados por segundo real");
+        panelSur.add(new JLabel("Velocidad:"));
+        panelSur.add(selectorVelocidad);
         panelSur.add(btnPausar);
         panelSur.add(btnReanudar);
         panelSur.add(btnSalir);
@@ -76,28 +82,69 @@ public class VentanaSimulacion extends JFrame {
         setContentPane(panelPrincipal);
     }
 
+    private static String[] etiquetasVelocidad() {
+        String[] etiquetas = new String[VELOCIDADES.length];
+        for (int i = 0; i < etiquetas.length; i++) {
+            double v = VELOCIDADES[i];
+            etiquetas[i] = (v == Math.rint(v) ? String.valueOf((long) v) : String.valueOf(v)) + "×";
+        }
+        return etiquetas;
+    }
+
+    /**
+     * @return velocidad elegida, en ticks por segundo
+     */
+    public double getVelocidad() {
+        return VELOCIDADES[Math.max(0, selectorVelocidad.getSelectedIndex())];
+    }
+
+    /**
+     * Indica al mapa cuánto dura un tick en tiempo real, para animar los autobuses.
+     */
+    public void setPeriodoTick(long nanos) {
+        panelMapa.setPeriodoTick(nanos);
+    }
+
+    /**
+     * Carga las filas de las tablas (nombres y valores iniciales).
+     */
+    public void prepararTablas(List<Estacion> estaciones, List<Autobus> autobuses) {
+        tablas.setTopologia(estaciones, autobuses);
+    }
+
     /**
      * Actualiza las tablas con la información actual.
      */
     public void actualizarTablas(List<Estacion> estaciones, List<Autobus> autobuses) {
-        // Estaciones
-        modeloEstaciones.setRowCount(0);
-        for (Estacion e : estaciones) {
-            modeloEstaciones.addRow(new Object[]{e.getNombre(), e.getPasajerosEsperando()});
-        }
+        tablas.actualizar(estaciones, autobuses);
+    }
 
-        // Autobuses
-        modeloAutobuses.setRowCount(0);
-        for (Autobus b : autobuses) {
-            int disp = b.getCapacidadMaxima() - b.getPasajerosActuales();
-            modeloAutobuses.addRow(new Object[]{
-                    "Bus " + b.getId(),
-                    b.getEstacionActual().getNombre(),
-                    b.getPasajerosActuales(),
-                    b.getCapacidadMaxima(),
-                    disp
-            });
-        }
+    /**
+     * Actualiza las tablas desde la foto del tick; solo se repintan las celdas que cambiaron.
+     */
+    public void actualizarTablas(FotoSimulacion foto) {
+        tablas.actualizar(foto);
+    }
+
+    /**
+     * Actualiza el panel de indicadores.
+     */
+    public void actualizarKpi(ResumenKpi kpi) {
+        panelKpi.actualizar(kpi);
+    }
+
+    /**
+     * Define las estaciones del mapa; la capa estática se regenera solo cuando esto cambia.
+     */
+    public void prepararMapa(List<Estacion> estaciones) {
+        panelMapa.setTopologia(estaciones);
+    }
+
+    /**
+     * Define las estaciones y las rutas que se dibujan en el mapa.
+     */
+    public void prepararMapa(List<Estacion> estaciones, RedTransporte red) {
+        panelMapa.setTopologia(estaciones, red);
     }
 
     /**
@@ -107,6 +154,13 @@ public class VentanaSimulacion extends JFrame {
         panelMapa.setDatos(estaciones, autobuses);
     }
 
+    /**
+     * Actualiza el mapa desde la foto del tick.
+     */
+    public void actualizarMapa(FotoSimulacion foto) {
+        panelMapa.setFoto(foto);
+    }
+
     public JPanel getPanelPrincipal() {
         return panelPrincipal;
     }
@@ -122,4 +176,8 @@ public class VentanaSimulacion extends JFrame {
     public JButton getBotonSalir() {
         return btnSalir;
     }
+
+    public JComboBox<String> getSelectorVelocidad() {
+        return selectorVelocidad;
+    }
 }
\ No newline at end of file